@@ -0,0 +1,129 @@
+package com.valkryst.Schillsaver.encoder;
+
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     Compares the cost of turning archive bytes into full-resolution frames with FFMPEG's {@code scale} filter, as
+ *     the encoder previously did, against rendering them with the {@link FrameRenderer}.
+ * </p>
+ *
+ * <p>
+ *     Both FFMPEG benchmarks write to the {@code null} muxer, so only the input and filtering work is measured and
+ *     not the video codec. FFMPEG must be available in the PATH.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FrameRendererBenchmark {
+    /** Number of frames to render in each invocation. */
+    private static final int FRAME_COUNT = 60;
+
+    @Param({ "P1080", "P2160", "P4320" })
+    public FrameResolution resolution;
+
+    @Param({ "S6", "S10" })
+    public BlockSize blockSize;
+
+    /** Random data, filling {@code FRAME_COUNT} frames. */
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        data = new byte[resolution.getBytesPerFrame(blockSize) * FRAME_COUNT];
+        new Random(0).nextBytes(data);
+    }
+
+    /** Renders the frames in-process, without FFMPEG, to isolate the cost of the renderer. */
+    @Benchmark
+    public long rendererOnly() throws IOException {
+        try (final var frameRenderer = new FrameRenderer(OutputStream.nullOutputStream(), resolution, blockSize)) {
+            frameRenderer.write(data);
+            return frameRenderer.getFramesWritten();
+        }
+    }
+
+    /** The previous path, where FFMPEG reads tiny {@code monob} frames and upscales them with {@code swscale}. */
+    @Benchmark
+    public int ffmpegScale() throws IOException, InterruptedException {
+        final var process = startFfmpeg(List.of(
+            "-f", "rawvideo",
+            "-pix_fmt", "monob",
+            "-s", (resolution.width / blockSize.blockSize) + "x" + (resolution.height / blockSize.blockSize),
+            "-i", "pipe:0",
+            "-vf", "scale=iw*" + blockSize.blockSize + ":-1",
+            "-sws_flags", "neighbor"
+        ));
+
+        try (final var outputStream = process.getOutputStream()) {
+            outputStream.write(data);
+        }
+
+        return process.waitFor();
+    }
+
+    /** The current path, where frames are rendered in-process and FFMPEG reads them without scaling. */
+    @Benchmark
+    public int javaRenderer() throws IOException, InterruptedException {
+        final var process = startFfmpeg(List.of(
+            "-f", "rawvideo",
+            "-pix_fmt", "gray",
+            "-s", resolution.width + "x" + resolution.height,
+            "-i", "pipe:0"
+        ));
+
+        try (final var frameRenderer = new FrameRenderer(new BufferedOutputStream(process.getOutputStream(), 1024 * 1024), resolution, blockSize)) {
+            frameRenderer.write(data);
+        }
+
+        return process.waitFor();
+    }
+
+    /**
+     * Starts an FFMPEG process which reads from stdin and writes to the {@code null} muxer.
+     *
+     * @param inputArguments Arguments describing the input.
+     * @return The process.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Process startFfmpeg(final List<String> inputArguments) throws IOException {
+        final var command = new ArrayList<String>();
+        command.add("ffmpeg");
+        command.add("-loglevel");
+        command.add("error");
+        command.addAll(inputArguments);
+        command.add("-f");
+        command.add("null");
+        command.add("-");
+
+        return new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    }
+}
@@ -1,18 +1,87 @@
 package com.valkryst.Schillsaver;
 
+import com.valkryst.Schillsaver.cli.CommandLine;
 import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.model.MainModel;
 import com.valkryst.Schillsaver.display.model.SettingsTabModel;
+import com.valkryst.Schillsaver.ffmpeg.FfmpegCapabilities;
+import com.valkryst.Schillsaver.setting.SettingsService;
+import com.valkryst.Schillsaver.setting.SwingTheme;
 import com.formdev.flatlaf.intellijthemes.FlatDraculaIJTheme;
 import com.formdev.flatlaf.intellijthemes.FlatLightFlatIJTheme;
 
 import javax.swing.*;
+import java.awt.*;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
 public class Main {
     public static void main(String[] args) throws IOException {
-        final var settings = new SettingsTabModel();
-        switch (settings.getSwingTheme()) {
+        // Used by the "cds" build profile, to record which classes are loaded when the UI is shown.
+        if (Boolean.getBoolean("schillsaver.cdsTraining")) {
+            trainClassDataSharing();
+            System.exit(0);
+        }
+
+        // Any arguments run the command-line interface, which must not load AWT or Swing.
+        if (args.length > 0) {
+            System.setProperty("java.awt.headless", "true");
+            System.exit(new CommandLine(System.out, System.err).run(args));
+        }
+
+        startGui();
+    }
+
+    /**
+     * Applies the user's theme, and displays the UI.
+     *
+     * <p>
+     *     FFMPEG is found, and the settings snapshot is loaded, in the background while the UI is built. Until FFMPEG
+     *     has been found, the encode and decode buttons are disabled. Only the theme is loaded beforehand, as it must
+     *     be applied before the first frame is drawn.
+     * </p>
+     *
+     * @throws IOException If an I/O exception occurs while loading the settings.
+     */
+    private static void startGui() throws IOException {
+        final var ffmpegAvailability = FfmpegCapabilities.checkAvailabilityAsync();
+        Thread.startVirtualThread(() -> {
+            try {
+                SettingsService.getInstance().getSettings();
+            } catch (final IOException ignored) {
+                // The error is shown when a job is started, as the settings are loaded again then.
+            }
+        });
+
+        applyTheme(new SettingsTabModel().getSwingTheme());
+
+        SwingUtilities.invokeLater(() -> {
+            // Ensure tooltips stay visible for 60 seconds.
+            ToolTipManager.sharedInstance().setDismissDelay(60000);
+
+            Display.getInstance().setContentPane(new MainModel().createView());
+
+            // Setting the content pane queued a repaint, so this runs once the first frame has been drawn.
+            if (Boolean.getBoolean("schillsaver.startupTiming")) {
+                SwingUtilities.invokeLater(Main::logTimeToFirstFrame);
+            }
+
+            ffmpegAvailability.thenAccept(available -> {
+                if (!available) {
+                    Display.displayWarning(null, "FFmpeg is not installed or not available in the PATH. Please install FFmpeg to use this application.");
+                }
+            });
+        });
+    }
+
+    /**
+     * Applies a theme.
+     *
+     * @param theme The theme.
+     */
+    private static void applyTheme(final SwingTheme theme) {
+        switch (theme) {
             case DARK:
                 FlatDraculaIJTheme.setup();
                 break;
@@ -20,12 +89,35 @@ public class Main {
                 FlatLightFlatIJTheme.setup();
                 break;
         }
+    }
 
-        SwingUtilities.invokeLater(() -> {
-            // Ensure tooltips stay visible for 60 seconds.
-            ToolTipManager.sharedInstance().setDismissDelay(60000);
-
-            Display.getInstance().setContentPane(new MainModel().createView());
+    /**
+     * Prints the time between the start of the process and the first frame of the UI being drawn. This is only done
+     * when the {@code schillsaver.startupTiming} property is set, to measure the effect of the "cds" build profile.
+     */
+    private static void logTimeToFirstFrame() {
+        ProcessHandle.current().info().startInstant().ifPresent(startInstant -> {
+            final var milliseconds = Duration.between(startInstant, Instant.now()).toMillis();
+            System.out.println("Time to first frame: " + milliseconds + "ms");
         });
     }
+
+    /**
+     * Loads the classes used to show the UI, without showing it, so that the JVM can record them in a class data
+     * sharing archive. The UI cannot be shown during the build, so it is built headless, and the error thrown when it
+     * first needs a screen is ignored.
+     */
+    private static void trainClassDataSharing() {
+        System.setProperty("java.awt.headless", "true");
+
+        try {
+            for (final var theme : SwingTheme.values()) {
+                applyTheme(theme);
+            }
+
+            new MainModel().createView();
+        } catch (final HeadlessException ignored) {
+            // The classes which were loaded before the error are still recorded.
+        }
+    }
 }
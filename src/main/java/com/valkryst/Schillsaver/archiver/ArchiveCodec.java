@@ -0,0 +1,46 @@
+package com.valkryst.Schillsaver.archiver;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <p>A format, and compression method, which the {@link Archiver} can use to bundle files into a single archive.</p>
+ *
+ * <p>
+ *     Each codec's output must begin with a signature that it can recognize, so that the codec of a decoded archive
+ *     can be detected without knowing the settings it was encoded with.
+ * </p>
+ */
+public interface ArchiveCodec {
+    /**
+     * Writes an archive, containing the specified entries, to the specified stream. Implementations must stop early
+     * if the calling thread is interrupted, and must not close the stream.
+     *
+     * @param entries Entries to archive, as listed by {@link ArchiveEntry#collect}. Folders are written as empty
+     *                folder entries, and are not walked, as their contents are listed as entries of their own.
+     * @param outputStream Stream to write the archive to.
+     * @param updateProgress Consumer to call when the progress needs to be updated.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    void writeArchive(@NonNull List<ArchiveEntry> entries, @NonNull OutputStream outputStream, @NonNull Consumer<String> updateProgress) throws IOException;
+
+    /**
+     * Determines whether the specified bytes, from the start of an archive, were written by this codec.
+     *
+     * @param header The first bytes of the archive.
+     * @return Whether the archive was written by this codec.
+     */
+    boolean matches(byte @NonNull [] header);
+
+    /**
+     * Retrieves the file extension of archives written by this codec.
+     *
+     * @return The file extension, without a leading period.
+     */
+    String getFileExtension();
+}
@@ -0,0 +1,78 @@
+package com.valkryst.Schillsaver.archiver;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A file, or folder, to be written into an archive.
+ *
+ * @param path Path to the file or folder.
+ * @param name Name of the entry within the archive, with {@code /} separators. Folder names do not end with a
+ *             {@code /}.
+ */
+public record ArchiveEntry(@NonNull Path path, @NonNull String name) {
+    /**
+     * <p>Lists the entries of an archive containing the specified paths.</p>
+     *
+     * <p>
+     *     Each folder is expanded into itself, followed by every file and folder within it, so that empty folders are
+     *     kept. Each entry is named relative to the parent of the selected path it was found in, so a selected folder
+     *     becomes a top-level folder of the archive.
+     * </p>
+     *
+     * <p>
+     *     Paths which are selected more than once, such as a folder along with a file inside of it, are only listed
+     *     once. Only regular files and folders are listed, and symbolic links to folders are not followed.
+     * </p>
+     *
+     * @param paths The selected paths.
+     * @return The entries.
+     *
+     * @throws IOException If an I/O exception occurs while walking a folder.
+     */
+    public static List<ArchiveEntry> collect(final @NonNull List<Path> paths) throws IOException {
+        final var entries = new ArrayList<ArchiveEntry>();
+        final var visited = new HashSet<Path>();
+
+        for (final var selectedPath : paths) {
+            final var absolutePath = selectedPath.toAbsolutePath().normalize();
+            final var baseDir = absolutePath.getParent() == null ? absolutePath : absolutePath.getParent();
+
+            try (final var stream = Files.walk(absolutePath)) {
+                for (final var iterator = stream.sorted().iterator() ; iterator.hasNext() ; ) {
+                    final var path = iterator.next();
+                    if (!Files.isRegularFile(path) && !Files.isDirectory(path)) {
+                        continue;
+                    }
+
+                    if (!visited.add(path.toRealPath())) {
+                        continue;
+                    }
+
+                    // A selected root folder has no parent, so it is not an entry itself, but its contents are.
+                    final var name = baseDir.relativize(path).toString();
+                    if (!name.isEmpty()) {
+                        entries.add(new ArchiveEntry(path, name.replace(path.getFileSystem().getSeparator(), "/")));
+                    }
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Determines whether the entry is a folder.
+     *
+     * @return Whether the entry is a folder.
+     */
+    public boolean isDirectory() {
+        return Files.isDirectory(path);
+    }
+}
@@ -1,18 +1,19 @@
 package com.valkryst.Schillsaver.archiver;
 
-import com.valkryst.Schillsaver.display.model.SettingsTabModel;
+import com.valkryst.Schillsaver.io.ScratchSpace;
+import com.valkryst.Schillsaver.setting.Settings;
 import lombok.NonNull;
 import lombok.Setter;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.function.Consumer;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class Archiver extends Thread {
 
@@ -28,17 +29,26 @@ public class Archiver extends Thread {
     /** List of paths to archive. */
     private final List<Path> paths;
 
+    /** Settings to archive with. */
+    private final Settings settings;
+
+    /** Codec used to write the archive. */
+    private final ArchiveCodec codec;
+
     /**
      * Constructs a new {@code Archiver}.
      *
      * @param paths List of paths to archive.
+     * @param settings Settings to archive with.
      */
-    public Archiver(final @NonNull List<Path> paths) {
+    public Archiver(final @NonNull List<Path> paths, final @NonNull Settings settings) {
         if (paths.isEmpty()) {
             throw new IllegalArgumentException("Paths list is empty.");
         }
 
         this.paths = paths;
+        this.settings = settings;
+        this.codec = settings.compressionCodec().codec;
     }
 
     @Override
@@ -54,100 +64,91 @@ public class Archiver extends Thread {
     }
 
     /**
-     * Attempts to create an archive containing the specified paths.
+     * Attempts to create an archive containing the specified paths, within its own folder in the scratch folder.
      *
      * @return Path to the archive file.
      *
      * @throws NullPointerException If {@code paths} is null.
      * @throws IllegalArgumentException If {@code paths} is empty.
-     * @throws IOException If an I/O exception occurs.
+     * @throws IOException If an I/O exception occurs, or if there is not enough free space for the archive.
      */
     protected Path createArchive() throws IOException {
-        final var archivePath = Files.createTempFile(UUID.randomUUID().toString(), ".zip");
+        final var archiveDirectory = ScratchSpace.createScratchFolder(settings);
+        try {
+            ScratchSpace.requireSpace(Map.of(archiveDirectory, estimateArchiveSize()));
+        } catch (final IOException e) {
+            Files.deleteIfExists(archiveDirectory);
+            throw e;
+        }
+
+        final var archivePath = archiveDirectory.resolve("archive." + codec.getFileExtension());
         updateProgress.accept("Creating Archive\n");
         updateProgress.accept("\tTemporary File Path: " + archivePath.toAbsolutePath() + "\n");
-        updateProgress.accept("\tTotal Paths to Add: " + paths.size() + "\n\n");
 
         try (
             final var fileOutputStream = Files.newOutputStream(archivePath, StandardOpenOption.CREATE);
-            final var zipOutputStream = new ZipOutputStream(fileOutputStream);
+            final var bufferedOutputStream = new BufferedOutputStream(fileOutputStream, 1024 * 1024)
         ) {
-            final var baseDir = paths.getFirst().getParent();
-            final var buffer = new byte[128 * 1024];
-            for (final Path path : paths) {
-                if (this.isInterrupted()) {
-                    break;
-                }
-
-                final var entry = new ZipEntry(baseDir.relativize(path) + (Files.isDirectory(path) ? "/" : ""));
-                zipOutputStream.putNextEntry(entry);
-
-                if (Files.isDirectory(path)) {
-                    updateProgress.accept("\tAdding Directory: " + path.toAbsolutePath() + "\n");
-                    zipOutputStream.closeEntry();
-                    continue;
-                }
-
-                updateProgress.accept("\tAdding File: " + path.toAbsolutePath() + "\n");
-
-                try (final var fileInputStream = Files.newInputStream(path)) {
-                    int read;
-                    while (!this.isInterrupted() && ((read = fileInputStream.read(buffer)) != -1)) {
-                        zipOutputStream.write(buffer, 0, read);
-                    }
-                }
-                zipOutputStream.closeEntry();
-            }
+            writeArchive(bufferedOutputStream);
+        } catch (final IOException | RuntimeException e) {
+            // The partial archive is unusable, so it is removed along with its folder.
+            Files.deleteIfExists(archivePath);
+            Files.deleteIfExists(archiveDirectory);
+            throw e;
         }
 
         if (this.isInterrupted()) {
             Files.deleteIfExists(archivePath);
+            Files.deleteIfExists(archiveDirectory);
             onError.accept(new IOException("Archiving process was interrupted. Deleted temporary file."));
             return null;
         }
 
-        updateProgress.accept("\n\tPadding Archive: " + archivePath.toAbsolutePath() + "\n");
-        this.padFile(archivePath);
-
         updateProgress.accept("Archive Created.\n");
         return archivePath;
     }
 
     /**
-     * If the specified file does not have a size that is a multiple of the frame size, then the file is padded with
-     * zeroes until it is. This is done to ensure FFMPEG has enough data to have an exact number of frames, otherwise
-     * it will display an error about not having a full frame worth of bytes at the end of the file.
+     * <p>
+     *     Writes an archive, containing the specified paths, to the specified stream. Folders are archived along with
+     *     everything in them.
+     * </p>
+     *
+     * <p>
+     *     This may be called from any thread. Archiving stops early if the calling thread is interrupted, so callers
+     *     must check the interrupt status of the calling thread before using the archive.
+     * </p>
+     *
+     * @param outputStream The stream to write the archive to. It is not closed by this method.
      *
-     * @param file Path to the file.
      * @throws IOException If an I/O exception occurs.
      */
-    protected void padFile(final @NonNull Path file) throws IOException {
-        if (Files.notExists(file)) {
-            throw new IOException("File does not exist.");
-        }
+    public void writeArchive(final @NonNull OutputStream outputStream) throws IOException {
+        final var entries = ArchiveEntry.collect(paths);
+        updateProgress.accept("\tTotal Paths to Add: " + entries.size() + "\n\n");
 
-        if (!Files.isRegularFile(file)) {
-            throw new IOException("File is not a regular file.");
-        }
-
-        final SettingsTabModel settings = new SettingsTabModel();
-        final var bytesPerFrame = (settings.getResolution().pixelCount / settings.getBlockSize().pixelCount) / 8;
-        long padding = bytesPerFrame - (Files.size(file) % bytesPerFrame);
-
-        if (padding == 0) {
-            return;
-        }
+        codec.writeArchive(entries, outputStream, updateProgress);
+    }
 
-        try (final var outputStream = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
-            while (!this.isInterrupted() && padding > 0) {
-                int temp = (int) Math.min(padding, Integer.MAX_VALUE);
-                outputStream.write(new byte[temp]);
-                padding -= temp;
+    /**
+     * Estimates the size of the archive, before it has been written, as the total size of the files to archive. Any
+     * compression makes the archive smaller than this, so the estimate is usually an upper bound.
+     *
+     * <p>
+     *     The files are listed as they are archived, so a file which is selected more than once is only counted once.
+     * </p>
+     *
+     * @return The estimated size, in bytes.
+     *
+     * @throws IOException If an I/O exception occurs while walking the paths.
+     */
+    public long estimateArchiveSize() throws IOException {
+        long size = 0;
+        for (final var entry : ArchiveEntry.collect(paths)) {
+            if (!entry.isDirectory()) {
+                size += Files.size(entry.path());
             }
         }
-
-        if (this.isInterrupted()) {
-            onError.accept(new IOException("Padding process was interrupted."));
-        }
+        return size;
     }
 }
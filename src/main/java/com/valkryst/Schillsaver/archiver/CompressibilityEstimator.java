@@ -0,0 +1,161 @@
+package com.valkryst.Schillsaver.archiver;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+/**
+ * <p>Estimates how well a file will compress, so that the archiver does not waste time deflating data that is
+ * already compressed.</p>
+ *
+ * <p>
+ *     A file is first checked for the magic bytes of common compressed formats. If none match, then a few samples
+ *     are read from throughout the file and the Shannon entropy of their bytes is used to choose a compression level.
+ * </p>
+ */
+public class CompressibilityEstimator {
+    /** Files smaller than this are always deflated at the default level, as sampling them costs more than it saves. */
+    private static final long MIN_SAMPLED_FILE_SIZE = 64 * 1024;
+
+    /** Number of samples to read from each file. */
+    private static final int SAMPLE_COUNT = 4;
+
+    /** Number of bytes in each sample. */
+    private static final int SAMPLE_SIZE = 16 * 1024;
+
+    /** Entropy, in bits per byte, above which data is considered incompressible. */
+    private static final double STORE_THRESHOLD = 7.9;
+
+    /** Entropy, in bits per byte, above which data is only worth compressing at the fastest level. */
+    private static final double BEST_SPEED_THRESHOLD = 7.5;
+
+    /**
+     * Magic bytes of formats whose data is already compressed. A {@code -1} matches any byte, and each signature is
+     * matched from the start of the file.
+     */
+    private static final int[][] COMPRESSED_SIGNATURES = {
+        { 0x50, 0x4B, 0x03, 0x04 }, // zip, jar, docx, epub, ...
+        { 0x1F, 0x8B }, // gzip
+        { 0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C }, // 7z
+        { 0x52, 0x61, 0x72, 0x21, 0x1A, 0x07 }, // rar
+        { 0x42, 0x5A, 0x68 }, // bzip2
+        { 0xFD, 0x37, 0x7A, 0x58, 0x5A, 0x00 }, // xz
+        { 0x28, 0xB5, 0x2F, 0xFD }, // zstd
+        { 0x04, 0x22, 0x4D, 0x18 }, // lz4
+        { 0xFF, 0xD8, 0xFF }, // jpeg
+        { 0x89, 0x50, 0x4E, 0x47 }, // png
+        { 0x47, 0x49, 0x46, 0x38 }, // gif
+        { 0x52, 0x49, 0x46, 0x46, -1, -1, -1, -1, 0x57, 0x45, 0x42, 0x50 }, // webp
+        { -1, -1, -1, -1, 0x66, 0x74, 0x79, 0x70 }, // mp4, mov, m4a, heic, ...
+        { 0x1A, 0x45, 0xDF, 0xA3 }, // mkv, webm
+        { 0x49, 0x44, 0x33 }, // mp3 with an ID3 tag
+        { 0x4F, 0x67, 0x67, 0x53 }, // ogg, opus
+        { 0x66, 0x4C, 0x61, 0x43 } // flac
+    };
+
+    /** Prevent instantiation. */
+    private CompressibilityEstimator() {}
+
+    /**
+     * Estimates the compression level that should be used for a file.
+     *
+     * @param path Path to the file.
+     * @return {@link Deflater#NO_COMPRESSION} if the file should be stored, or the deflate level to use.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public static int estimateLevel(final @NonNull Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var size = channel.size();
+            if (size < MIN_SAMPLED_FILE_SIZE) {
+                return Deflater.DEFAULT_COMPRESSION;
+            }
+
+            final var buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+            final var histogram = new long[256];
+            long sampledBytes = 0;
+
+            for (int i = 0 ; i < SAMPLE_COUNT ; i++) {
+                // Samples are evenly spaced, with the first at the start of the file and the last at its end.
+                final var position = ((size - SAMPLE_SIZE) / (SAMPLE_COUNT - 1)) * i;
+
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer, position + buffer.position());
+                } while (read != -1 && buffer.hasRemaining());
+                buffer.flip();
+
+                if (i == 0 && isCompressedFormat(buffer)) {
+                    return Deflater.NO_COMPRESSION;
+                }
+
+                while (buffer.hasRemaining()) {
+                    histogram[buffer.get() & 0xFF]++;
+                }
+                sampledBytes += buffer.limit();
+            }
+
+            final var entropy = calculateEntropy(histogram, sampledBytes);
+            if (entropy >= STORE_THRESHOLD) {
+                return Deflater.NO_COMPRESSION;
+            }
+
+            if (entropy >= BEST_SPEED_THRESHOLD) {
+                return Deflater.BEST_SPEED;
+            }
+
+            return Deflater.DEFAULT_COMPRESSION;
+        }
+    }
+
+    /**
+     * Determines whether the specified data begins with the magic bytes of a compressed format.
+     *
+     * @param buffer The data.
+     * @return Whether the data begins with the magic bytes of a compressed format.
+     */
+    private static boolean isCompressedFormat(final ByteBuffer buffer) {
+        for (final var signature : COMPRESSED_SIGNATURES) {
+            if (signature.length > buffer.limit()) {
+                continue;
+            }
+
+            var matches = true;
+            for (int i = 0 ; i < signature.length && matches ; i++) {
+                matches = signature[i] == -1 || signature[i] == (buffer.get(i) & 0xFF);
+            }
+
+            if (matches) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Calculates the Shannon entropy of a byte histogram.
+     *
+     * @param histogram Number of occurrences of each byte value.
+     * @param total Total number of bytes.
+     * @return The entropy, in bits per byte.
+     */
+    private static double calculateEntropy(final long[] histogram, final long total) {
+        double entropy = 0;
+        for (final var count : histogram) {
+            if (count == 0) {
+                continue;
+            }
+
+            final var probability = (double) count / total;
+            entropy -= probability * (Math.log(probability) / Math.log(2));
+        }
+        return entropy;
+    }
+}
@@ -0,0 +1,198 @@
+package com.valkryst.Schillsaver.archiver;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <p>Deflates data on a pool of worker threads, in the same manner as {@code pigz}.</p>
+ *
+ * <p>
+ *     The input is split into fixed-size blocks, each of which is deflated independently and ended with a sync flush,
+ *     so that its output is byte-aligned and can be concatenated with the output of the next block. Each block is
+ *     primed with the last 32 KiB of the previous block, so the compression ratio is close to that of a single
+ *     {@link Deflater}. The concatenated blocks are terminated with an empty final block, which results in a standard
+ *     raw deflate stream.
+ * </p>
+ */
+public class ParallelDeflater implements AutoCloseable {
+    /** Number of uncompressed bytes in each block. */
+    private static final int BLOCK_SIZE = 128 * 1024;
+
+    /** Size of the deflate window, and thus the maximum useful dictionary size. */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    /** An empty, fixed Huffman, deflate block with the final block bit set. */
+    private static final byte[] FINAL_BLOCK = { 0x03, 0x00 };
+
+    /** Pool of threads used to deflate blocks. */
+    private final ExecutorService executorService;
+
+    /** Maximum number of blocks which may be in-flight at once. This bounds memory usage. */
+    private final int maxPendingBlocks;
+
+    /** Deflater of each worker thread. */
+    private final ThreadLocal<Deflater> deflaters;
+
+    /**
+     * Constructs a new {@code ParallelDeflater}.
+     *
+     * @param threadCount Number of worker threads.
+     *
+     * @throws IllegalArgumentException If {@code threadCount} is less than one.
+     */
+    public ParallelDeflater(final int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count cannot be < 1.");
+        }
+
+        final var threadNumber = new AtomicInteger(0);
+        executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+            final var thread = new Thread(runnable, "Deflater-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        maxPendingBlocks = threadCount * 2;
+        deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    }
+
+    /**
+     * Deflates all data from the specified stream into the current entry of the specified {@link ZipWriter}.
+     *
+     * @param inputStream Stream to read uncompressed data from.
+     * @param zipWriter Writer to write the deflated data to.
+     * @param level Compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, or
+     *              {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return CRC-32 and size of the uncompressed data.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs.
+     */
+    public Result deflate(final @NonNull InputStream inputStream, final @NonNull ZipWriter zipWriter, final int level) throws IOException {
+        final var crc = new CRC32();
+        final var pendingBlocks = new ArrayDeque<Future<byte[]>>(maxPendingBlocks);
+        long size = 0;
+
+        try {
+            byte[] previousBlock = null;
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Deflating was interrupted.");
+                }
+
+                final var block = new byte[BLOCK_SIZE];
+                final var length = inputStream.readNBytes(block, 0, BLOCK_SIZE);
+                if (length == 0) {
+                    break;
+                }
+
+                crc.update(block, 0, length);
+                size += length;
+
+                final var dictionary = previousBlock;
+                pendingBlocks.add(executorService.submit(() -> deflateBlock(dictionary, block, length, level)));
+                previousBlock = block;
+
+                if (pendingBlocks.size() >= maxPendingBlocks) {
+                    writeBlock(pendingBlocks.remove(), zipWriter);
+                }
+
+                if (length < BLOCK_SIZE) {
+                    break;
+                }
+            }
+
+            while (!pendingBlocks.isEmpty()) {
+                writeBlock(pendingBlocks.remove(), zipWriter);
+            }
+        } finally {
+            pendingBlocks.forEach(future -> future.cancel(true));
+        }
+
+        zipWriter.writeEntryData(FINAL_BLOCK, 0, FINAL_BLOCK.length);
+        return new Result(crc.getValue(), size);
+    }
+
+    /**
+     * Waits for a block to be deflated, then writes it to the current entry of the {@link ZipWriter}.
+     *
+     * @param future The block.
+     * @param zipWriter Writer to write the block to.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs, or if the block could not be deflated.
+     */
+    private void writeBlock(final Future<byte[]> future, final ZipWriter zipWriter) throws IOException {
+        try {
+            final var deflated = future.get();
+            zipWriter.writeEntryData(deflated, 0, deflated.length);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Deflating was interrupted.");
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to deflate a block.", e.getCause());
+        }
+    }
+
+    /**
+     * Deflates a single block, ending it with a sync flush.
+     *
+     * @param dictionary The previous block, whose end is used as the dictionary, or {@code null} if this is the first
+     *                   block.
+     * @param block The block.
+     * @param length Number of bytes in the block.
+     * @param level Compression level.
+     * @return The deflated block.
+     */
+    private byte[] deflateBlock(final byte[] dictionary, final byte[] block, final int length, final int level) {
+        final var deflater = deflaters.get();
+        deflater.reset();
+        deflater.setLevel(level);
+
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary, BLOCK_SIZE - DICTIONARY_SIZE, DICTIONARY_SIZE);
+        }
+
+        deflater.setInput(block, 0, length);
+
+        // Incompressible data grows by a few bytes per 16 KiB, so this is rarely resized.
+        var output = new byte[length + (length >> 6) + 64];
+        var outputLength = 0;
+        while (true) {
+            outputLength += deflater.deflate(output, outputLength, output.length - outputLength, Deflater.SYNC_FLUSH);
+
+            if (outputLength < output.length) {
+                break;
+            }
+
+            output = Arrays.copyOf(output, output.length * 2);
+        }
+
+        return Arrays.copyOf(output, outputLength);
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Result of deflating a stream.
+     *
+     * @param crc CRC-32 of the uncompressed data.
+     * @param size Size of the uncompressed data.
+     */
+    public record Result(long crc, long size) {}
+}
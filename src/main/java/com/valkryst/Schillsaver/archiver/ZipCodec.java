@@ -0,0 +1,115 @@
+package com.valkryst.Schillsaver.archiver;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/** Writes zip archives, either storing every file or deflating each file at a level chosen for its contents. */
+public class ZipCodec implements ArchiveCodec {
+    /** Whether files may be deflated. If not, every file is stored. */
+    private final boolean deflate;
+
+    /**
+     * Constructs a new {@code ZipCodec}.
+     *
+     * @param deflate Whether files may be deflated. If not, every file is stored.
+     */
+    public ZipCodec(final boolean deflate) {
+        this.deflate = deflate;
+    }
+
+    @Override
+    public void writeArchive(final @NonNull List<ArchiveEntry> entries, final @NonNull OutputStream outputStream, final @NonNull Consumer<String> updateProgress) throws IOException {
+        final var zipWriter = new ZipWriter(outputStream);
+
+        try (final var deflater = new ParallelDeflater(Runtime.getRuntime().availableProcessors())) {
+            for (final var entry : entries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+
+                final var path = entry.path();
+                final var lastModifiedTime = Files.getLastModifiedTime(path);
+
+                if (entry.isDirectory()) {
+                    updateProgress.accept("\tAdding Directory: " + path.toAbsolutePath() + "\n");
+                    zipWriter.putDirectoryEntry(entry.name() + "/", lastModifiedTime);
+                    continue;
+                }
+
+                // Already-compressed files are stored, as deflating them wastes time without reducing their size.
+                final var level = deflate ? CompressibilityEstimator.estimateLevel(path) : Deflater.NO_COMPRESSION;
+                final var method = level == Deflater.NO_COMPRESSION ? ZipEntry.STORED : ZipEntry.DEFLATED;
+
+                updateProgress.accept("\tAdding File: " + path.toAbsolutePath() + (method == ZipEntry.STORED ? " (Stored)" : "") + "\n");
+                zipWriter.putNextEntry(entry.name(), lastModifiedTime, method);
+
+                try (final var fileInputStream = Files.newInputStream(path)) {
+                    final var result = method == ZipEntry.STORED ? store(fileInputStream, zipWriter) : deflater.deflate(fileInputStream, zipWriter, level);
+                    zipWriter.closeEntry(result.crc(), result.size());
+                } catch (final InterruptedIOException e) {
+                    // The interrupt status is checked by the caller, so the partial archive is simply abandoned.
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        // Writes the central directory without closing the underlying stream.
+        if (!Thread.currentThread().isInterrupted()) {
+            zipWriter.finish();
+        }
+    }
+
+    /**
+     * Writes all data from the specified stream, uncompressed, into the current entry of the specified
+     * {@link ZipWriter}.
+     *
+     * @param inputStream Stream to read data from.
+     * @param zipWriter Writer to write the data to.
+     * @return CRC-32 and size of the data.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs.
+     */
+    private ParallelDeflater.Result store(final @NonNull InputStream inputStream, final @NonNull ZipWriter zipWriter) throws IOException {
+        final var crc = new CRC32();
+        final var buffer = new byte[128 * 1024];
+        long size = 0;
+
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Archiving process was interrupted.");
+            }
+
+            crc.update(buffer, 0, read);
+            zipWriter.writeEntryData(buffer, 0, read);
+            size += read;
+        }
+
+        return new ParallelDeflater.Result(crc.getValue(), size);
+    }
+
+    @Override
+    public boolean matches(final byte @NonNull [] header) {
+        // Local file header, or the end of central directory record of an empty archive.
+        return header.length >= 4
+            && header[0] == 0x50 && header[1] == 0x4B
+            && ((header[2] == 0x03 && header[3] == 0x04) || (header[2] == 0x05 && header[3] == 0x06));
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "zip";
+    }
+}
@@ -0,0 +1,343 @@
+package com.valkryst.Schillsaver.archiver;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * <p>A minimal, forward-only, zip writer which accepts entry data that has already been compressed.</p>
+ *
+ * <p>
+ *     {@link java.util.zip.ZipOutputStream} compresses entry data itself, on the calling thread, so it cannot be used
+ *     to write data which was deflated elsewhere. This writer produces the same layout as {@code ZipOutputStream}
+ *     (local headers followed by data descriptors, a central directory, and Zip64 records when required) so the
+ *     resulting archives can be read by any standard zip tool.
+ * </p>
+ */
+public class ZipWriter {
+    /** Maximum value of a 16-bit zip field. Larger values require Zip64 records. */
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    /** Maximum value of a 32-bit zip field. Larger values require Zip64 records. */
+    private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+
+    /** General purpose flag indicating that the sizes and CRC are written in a data descriptor. */
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+
+    /** General purpose flag indicating that the entry name is UTF-8 encoded. */
+    private static final int FLAG_UTF8 = 0x0800;
+
+    /** Stream to write the archive to. */
+    private final OutputStream outputStream;
+
+    /** Central directory records of all entries which have been written. */
+    private final List<EntryRecord> entries = new ArrayList<>();
+
+    /** Scratch buffer used to encode little-endian values. */
+    private final byte[] scratch = new byte[8];
+
+    /** Number of bytes written to the stream. */
+    private long bytesWritten = 0;
+
+    /** Entry which is currently being written, or {@code null} if there is none. */
+    private EntryRecord currentEntry;
+
+    /**
+     * Constructs a new {@code ZipWriter}.
+     *
+     * @param outputStream Stream to write the archive to. It is not closed by this writer.
+     */
+    public ZipWriter(final @NonNull OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Begins writing a new entry, whose CRC and sizes will be written in a data descriptor once the entry is closed.
+     *
+     * @param name Name of the entry.
+     * @param lastModifiedTime Last modified time of the entry.
+     * @param method Compression method of the entry's data, either {@link ZipEntry#DEFLATED} or
+     *               {@link ZipEntry#STORED}.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void putNextEntry(final @NonNull String name, final @NonNull FileTime lastModifiedTime, final int method) throws IOException {
+        if (currentEntry != null) {
+            throw new IllegalStateException("The previous entry has not been closed.");
+        }
+
+        currentEntry = new EntryRecord(name.getBytes(StandardCharsets.UTF_8), toDosTime(lastModifiedTime), method, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR, bytesWritten);
+        writeLocalHeader(currentEntry);
+    }
+
+    /**
+     * Writes an empty directory entry.
+     *
+     * @param name Name of the entry. It should end with a {@code /}.
+     * @param lastModifiedTime Last modified time of the entry.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void putDirectoryEntry(final @NonNull String name, final @NonNull FileTime lastModifiedTime) throws IOException {
+        if (currentEntry != null) {
+            throw new IllegalStateException("The previous entry has not been closed.");
+        }
+
+        // The sizes and CRC of an empty entry are known up front, so no data descriptor is required.
+        final var entry = new EntryRecord(name.getBytes(StandardCharsets.UTF_8), toDosTime(lastModifiedTime), ZipEntry.STORED, FLAG_UTF8, bytesWritten);
+        writeLocalHeader(entry);
+        entries.add(entry);
+    }
+
+    /**
+     * Writes data, which has already been compressed with the current entry's method, to the current entry.
+     *
+     * @param data The data.
+     * @param offset Offset of the data within the array.
+     * @param length Number of bytes to write.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void writeEntryData(final byte @NonNull [] data, final int offset, final int length) throws IOException {
+        if (currentEntry == null) {
+            throw new IllegalStateException("There is no entry to write to.");
+        }
+
+        write(data, offset, length);
+        currentEntry.compressedSize += length;
+    }
+
+    /**
+     * Closes the current entry and writes its data descriptor.
+     *
+     * @param crc CRC-32 of the entry's uncompressed data.
+     * @param size Size of the entry's uncompressed data.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void closeEntry(final long crc, final long size) throws IOException {
+        if (currentEntry == null) {
+            throw new IllegalStateException("There is no entry to close.");
+        }
+
+        currentEntry.crc = crc;
+        currentEntry.size = size;
+
+        writeInt(0x08074b50L);
+        writeInt(crc);
+        if (currentEntry.compressedSize >= ZIP64_MAGIC_VALUE || size >= ZIP64_MAGIC_VALUE) {
+            writeLong(currentEntry.compressedSize);
+            writeLong(size);
+        } else {
+            writeInt(currentEntry.compressedSize);
+            writeInt(size);
+        }
+
+        entries.add(currentEntry);
+        currentEntry = null;
+    }
+
+    /**
+     * Writes the central directory, and end of central directory records, without closing the underlying stream.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void finish() throws IOException {
+        if (currentEntry != null) {
+            throw new IllegalStateException("The last entry has not been closed.");
+        }
+
+        final var centralDirectoryOffset = bytesWritten;
+        for (final var entry : entries) {
+            writeCentralDirectoryHeader(entry);
+        }
+        final var centralDirectorySize = bytesWritten - centralDirectoryOffset;
+
+        final var requiresZip64 = entries.size() >= ZIP64_MAGIC_COUNT
+                               || centralDirectoryOffset >= ZIP64_MAGIC_VALUE
+                               || centralDirectorySize >= ZIP64_MAGIC_VALUE;
+
+        if (requiresZip64) {
+            final var zip64EndOffset = bytesWritten;
+
+            // Zip64 end of central directory record.
+            writeInt(0x06064b50L);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(entries.size());
+            writeLong(entries.size());
+            writeLong(centralDirectorySize);
+            writeLong(centralDirectoryOffset);
+
+            // Zip64 end of central directory locator.
+            writeInt(0x07064b50L);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+
+        // End of central directory record.
+        writeInt(0x06054b50L);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        writeShort(Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        writeInt(Math.min(centralDirectorySize, ZIP64_MAGIC_VALUE));
+        writeInt(Math.min(centralDirectoryOffset, ZIP64_MAGIC_VALUE));
+        writeShort(0);
+
+        outputStream.flush();
+    }
+
+    /**
+     * Writes the local file header of an entry.
+     *
+     * @param entry The entry.
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void writeLocalHeader(final EntryRecord entry) throws IOException {
+        writeInt(0x04034b50L);
+        writeShort(20);
+        writeShort(entry.flags);
+        writeShort(entry.method);
+        writeInt(entry.dosTime);
+        writeInt(0); // CRC, written in the data descriptor.
+        writeInt(0); // Compressed size, written in the data descriptor.
+        writeInt(0); // Uncompressed size, written in the data descriptor.
+        writeShort(entry.name.length);
+        writeShort(0);
+        write(entry.name, 0, entry.name.length);
+    }
+
+    /**
+     * Writes the central directory header of an entry.
+     *
+     * @param entry The entry.
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void writeCentralDirectoryHeader(final EntryRecord entry) throws IOException {
+        final var isSizeZip64 = entry.size >= ZIP64_MAGIC_VALUE;
+        final var isCompressedSizeZip64 = entry.compressedSize >= ZIP64_MAGIC_VALUE;
+        final var isOffsetZip64 = entry.localHeaderOffset >= ZIP64_MAGIC_VALUE;
+
+        var extraLength = 0;
+        if (isSizeZip64 || isCompressedSizeZip64 || isOffsetZip64) {
+            extraLength = 4 + (isSizeZip64 ? 8 : 0) + (isCompressedSizeZip64 ? 8 : 0) + (isOffsetZip64 ? 8 : 0);
+        }
+
+        final var version = extraLength == 0 ? 20 : 45;
+
+        writeInt(0x02014b50L);
+        writeShort(version);
+        writeShort(version);
+        writeShort(entry.flags);
+        writeShort(entry.method);
+        writeInt(entry.dosTime);
+        writeInt(entry.crc);
+        writeInt(isCompressedSizeZip64 ? ZIP64_MAGIC_VALUE : entry.compressedSize);
+        writeInt(isSizeZip64 ? ZIP64_MAGIC_VALUE : entry.size);
+        writeShort(entry.name.length);
+        writeShort(extraLength);
+        writeShort(0); // Comment length.
+        writeShort(0); // Disk number.
+        writeShort(0); // Internal attributes.
+        writeInt(0); // External attributes.
+        writeInt(isOffsetZip64 ? ZIP64_MAGIC_VALUE : entry.localHeaderOffset);
+        write(entry.name, 0, entry.name.length);
+
+        if (extraLength != 0) {
+            writeShort(0x0001);
+            writeShort(extraLength - 4);
+
+            if (isSizeZip64) {
+                writeLong(entry.size);
+            }
+
+            if (isCompressedSizeZip64) {
+                writeLong(entry.compressedSize);
+            }
+
+            if (isOffsetZip64) {
+                writeLong(entry.localHeaderOffset);
+            }
+        }
+    }
+
+    /**
+     * Converts a {@link FileTime} to an MS-DOS date and time.
+     *
+     * @param fileTime The time.
+     * @return The MS-DOS date, in the upper 16 bits, and time, in the lower 16 bits.
+     */
+    private static long toDosTime(final FileTime fileTime) {
+        final var time = LocalDateTime.ofInstant(fileTime.toInstant(), ZoneId.systemDefault());
+
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+
+        return ((long) (time.getYear() - 1980) << 25)
+             | ((long) time.getMonthValue() << 21)
+             | ((long) time.getDayOfMonth() << 16)
+             | ((long) time.getHour() << 11)
+             | ((long) time.getMinute() << 5)
+             | ((long) time.getSecond() >> 1);
+    }
+
+    private void write(final byte[] data, final int offset, final int length) throws IOException {
+        outputStream.write(data, offset, length);
+        bytesWritten += length;
+    }
+
+    private void writeShort(final int value) throws IOException {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >>> 8);
+        write(scratch, 0, 2);
+    }
+
+    private void writeInt(final long value) throws IOException {
+        for (int i = 0 ; i < 4 ; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        write(scratch, 0, 4);
+    }
+
+    private void writeLong(final long value) throws IOException {
+        for (int i = 0 ; i < 8 ; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        write(scratch, 0, 8);
+    }
+
+    /** Information about a written entry, which is required to write its central directory header. */
+    private static class EntryRecord {
+        private final byte[] name;
+        private final long dosTime;
+        private final int method;
+        private final int flags;
+        private final long localHeaderOffset;
+
+        private long crc = 0;
+        private long compressedSize = 0;
+        private long size = 0;
+
+        private EntryRecord(final byte[] name, final long dosTime, final int method, final int flags, final long localHeaderOffset) {
+            this.name = name;
+            this.dosTime = dosTime;
+            this.method = method;
+            this.flags = flags;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.valkryst.Schillsaver.archiver;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import lombok.NonNull;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes tar archives compressed with Zstandard, which compresses far faster than deflate at a similar ratio, and
+ * compresses on all cores.
+ */
+public class ZstdCodec implements ArchiveCodec {
+    /** Zstandard compression level. Level 3 is the library default, and favours speed. */
+    private static final int LEVEL = 3;
+
+    @Override
+    public void writeArchive(final @NonNull List<ArchiveEntry> entries, final @NonNull OutputStream outputStream, final @NonNull Consumer<String> updateProgress) throws IOException {
+        final var buffer = new byte[128 * 1024];
+
+        try (
+            final var zstdOutputStream = new ZstdOutputStream(CloseShieldOutputStream.wrap(outputStream), LEVEL);
+            final var tarOutputStream = new TarArchiveOutputStream(zstdOutputStream)
+        ) {
+            zstdOutputStream.setWorkers(Runtime.getRuntime().availableProcessors());
+            tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+            for (final var entry : entries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                final var path = entry.path();
+                tarOutputStream.putArchiveEntry(new TarArchiveEntry(path, entry.name()));
+
+                if (entry.isDirectory()) {
+                    updateProgress.accept("\tAdding Directory: " + path.toAbsolutePath() + "\n");
+                    tarOutputStream.closeArchiveEntry();
+                    continue;
+                }
+
+                updateProgress.accept("\tAdding File: " + path.toAbsolutePath() + "\n");
+
+                try (final var fileInputStream = Files.newInputStream(path)) {
+                    int read;
+                    while ((read = fileInputStream.read(buffer)) != -1) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+
+                        tarOutputStream.write(buffer, 0, read);
+                    }
+                }
+                tarOutputStream.closeArchiveEntry();
+            }
+
+            tarOutputStream.finish();
+        }
+    }
+
+    @Override
+    public boolean matches(final byte @NonNull [] header) {
+        return header.length >= 4
+            && header[0] == (byte) 0x28 && header[1] == (byte) 0xB5
+            && header[2] == (byte) 0x2F && header[3] == (byte) 0xFD;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "tar.zst";
+    }
+}
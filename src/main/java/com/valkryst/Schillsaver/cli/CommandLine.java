@@ -0,0 +1,394 @@
+package com.valkryst.Schillsaver.cli;
+
+import com.valkryst.Schillsaver.io.FileIO;
+import com.valkryst.Schillsaver.io.FolderIO;
+import com.valkryst.Schillsaver.job.DecodeQueue;
+import com.valkryst.Schillsaver.job.EncodeJob;
+import com.valkryst.Schillsaver.job.EncodeScheduler;
+import com.valkryst.Schillsaver.job.JobStatus;
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.FrameRate;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import com.valkryst.Schillsaver.server.JobServer;
+import com.valkryst.Schillsaver.setting.Settings;
+import com.valkryst.Schillsaver.watch.InboxType;
+import com.valkryst.Schillsaver.watch.WatchDaemon;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <p>Encodes and decodes files from the command line, without loading any part of the UI.</p>
+ *
+ * <p>
+ *     Settings are taken from the command-line flags, rather than from the settings file, so that a script always
+ *     produces the same result regardless of how the UI was last configured.
+ * </p>
+ */
+public class CommandLine {
+    /** Exit code when every job completes. */
+    public static final int EXIT_SUCCESS = 0;
+
+    /** Exit code when any job fails or is cancelled. */
+    public static final int EXIT_FAILURE = 1;
+
+    /** Exit code when the arguments are invalid. */
+    public static final int EXIT_USAGE = 2;
+
+    /** Default path to the file in which the state of the watch command is saved. */
+    private static final Path DEFAULT_STATE_FILE_PATH = FileIO.getFilePath(FolderIO.getFolderPath("Watch"), "state.json");
+
+    private static final String USAGE = """
+        Usage:
+          Schillsaver encode [options] <path>...
+          Schillsaver decode [options] <video>...
+          Schillsaver watch [options] --encode-inbox <folder> --decode-inbox <folder>
+          Schillsaver serve [options] [--port <port>]
+
+        Options:
+          -o, --output <folder>       Folder to write the videos, or decoded archives, to. Defaults to the current folder.
+          --scratch <folder>          Folder for intermediate files, such as a fast disk or tmpfs. Defaults to the system's
+                                      temporary folder.
+          --resolution <resolution>   One of: %s. Defaults to P1080. Detected from the video when decoding.
+          --framerate <fps>           One of: 30, 60, 120. Defaults to 30.
+          --block-size <pixels>       One of: 6, 8, 10. Defaults to 6. Detected from the video when decoding.
+          --codec <codec>             FFMPEG video codec. Defaults to libx264.
+          --compression <codec>       One of: store, deflate, zstd. Defaults to deflate.
+          --error-correction <level>  One of: none, low, medium, high. Defaults to none. Detected from the video when
+                                      decoding.
+          --no-streaming              Write the archive to a temporary file before encoding it.
+          --segments <count>          Number of FFMPEG processes to encode each video with. Requires --no-streaming.
+          --ffmpeg-threads <count>    Number of threads each FFMPEG process may use. Defaults to 0, which lets FFMPEG decide.
+          --video-per-folder          Encode the files in each folder into their own video.
+          --encode-inbox <folder>     Folder whose files, and folders, are each encoded into a video. May be repeated.
+          --decode-inbox <folder>     Folder whose videos are each decoded into an archive. May be repeated.
+          --state <file>              File in which the state of the watch command is saved. Defaults to %s.
+          --settle <seconds>          Time a file must remain unchanged before it is picked up. Defaults to 10.
+          --port <port>               Port on which the serve command listens, on the loopback address. Defaults to 8080.
+          -h, --help                  Show this message.
+        """;
+
+    /** Stream to write results to. */
+    private final PrintStream out;
+
+    /** Stream to write progress and errors to. */
+    private final PrintStream err;
+
+    /**
+     * Constructs a new {@code CommandLine}.
+     *
+     * @param out Stream to write results to.
+     * @param err Stream to write progress and errors to.
+     */
+    public CommandLine(final @NonNull PrintStream out, final @NonNull PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Runs the command described by the specified arguments.
+     *
+     * @param args The arguments.
+     * @return The exit code.
+     */
+    public int run(final @NonNull String[] args) {
+        if (args.length == 0 || args[0].equals("-h") || args[0].equals("--help")) {
+            printUsage(out);
+            return args.length == 0 ? EXIT_USAGE : EXIT_SUCCESS;
+        }
+
+        final var command = args[0];
+        if (!command.equals("encode") && !command.equals("decode") && !command.equals("watch") && !command.equals("serve")) {
+            err.println("Unknown command: " + command);
+            printUsage(err);
+            return EXIT_USAGE;
+        }
+
+        var outputFolderPath = Path.of("").toAbsolutePath();
+        var scratchFolderPath = Path.of("");
+        var resolution = FrameResolution.P1080;
+        var framerate = FrameRate.FPS_30;
+        var blockSize = BlockSize.S6;
+        var codec = "libx264";
+        var compressionCodec = CompressionCodec.DEFLATE;
+        var errorCorrection = ErrorCorrection.NONE;
+        var streamingEncode = true;
+        var encodeSegments = 1;
+        var ffmpegThreads = 0;
+        var videoPerFolder = false;
+        final var paths = new ArrayList<Path>();
+        final var inboxes = new LinkedHashMap<Path, InboxType>();
+        var stateFilePath = DEFAULT_STATE_FILE_PATH;
+        var settleTime = Duration.ofSeconds(10);
+        var port = 8080;
+
+        try {
+            for (int i = 1 ; i < args.length ; i++) {
+                switch (args[i]) {
+                    case "-h", "--help" -> {
+                        printUsage(out);
+                        return EXIT_SUCCESS;
+                    }
+                    case "-o", "--output" -> outputFolderPath = Path.of(value(args, ++i));
+                    case "--scratch" -> scratchFolderPath = Path.of(value(args, ++i));
+                    case "--resolution" -> resolution = FrameResolution.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    case "--framerate" -> framerate = FrameRate.valueOf("FPS_" + Integer.parseInt(value(args, ++i)));
+                    case "--block-size" -> blockSize = BlockSize.valueOf("S" + Integer.parseInt(value(args, ++i)));
+                    case "--codec" -> codec = value(args, ++i);
+                    case "--compression" -> compressionCodec = CompressionCodec.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    case "--error-correction" -> errorCorrection = ErrorCorrection.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    case "--no-streaming" -> streamingEncode = false;
+                    case "--segments" -> encodeSegments = Integer.parseInt(value(args, ++i));
+                    case "--ffmpeg-threads" -> ffmpegThreads = Integer.parseInt(value(args, ++i));
+                    case "--video-per-folder" -> videoPerFolder = true;
+                    case "--encode-inbox" -> inboxes.put(Path.of(value(args, ++i)), InboxType.ENCODE);
+                    case "--decode-inbox" -> inboxes.put(Path.of(value(args, ++i)), InboxType.DECODE);
+                    case "--state" -> stateFilePath = Path.of(value(args, ++i));
+                    case "--settle" -> settleTime = Duration.ofSeconds(Long.parseLong(value(args, ++i)));
+                    case "--port" -> port = Integer.parseInt(value(args, ++i));
+                    default -> {
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+
+                        paths.add(Path.of(args[i]));
+                    }
+                }
+            }
+
+            if (command.equals("watch")) {
+                if (!paths.isEmpty()) {
+                    throw new IllegalArgumentException("The watch command does not accept paths. Use --encode-inbox or --decode-inbox.");
+                }
+
+                if (inboxes.isEmpty()) {
+                    throw new IllegalArgumentException("No inboxes were specified.");
+                }
+            } else if (command.equals("serve")) {
+                if (!paths.isEmpty()) {
+                    throw new IllegalArgumentException("The serve command does not accept paths. Submit them to the server instead.");
+                }
+            } else if (paths.isEmpty()) {
+                throw new IllegalArgumentException("No paths were specified.");
+            }
+
+            for (final var path : paths) {
+                if (Files.notExists(path)) {
+                    throw new IllegalArgumentException("Path does not exist: " + path);
+                }
+            }
+
+            final var settings = new Settings(outputFolderPath, scratchFolderPath, codec, resolution, framerate, blockSize, compressionCodec, errorCorrection, streamingEncode, encodeSegments, ffmpegThreads);
+            return switch (command) {
+                case "encode" -> encode(paths, settings, videoPerFolder);
+                case "decode" -> decode(paths, settings);
+                case "watch" -> watch(inboxes, settings, stateFilePath, settleTime);
+                default -> serve(settings, port);
+            };
+        } catch (final IllegalArgumentException e) {
+            err.println(e.getMessage());
+            printUsage(err);
+            return EXIT_USAGE;
+        }
+    }
+
+    /**
+     * Encodes the specified paths, and waits for every video to finish.
+     *
+     * @param paths The paths to encode.
+     * @param settings The settings to encode with.
+     * @param videoPerFolder Whether to encode the paths in each folder into their own video.
+     * @return The exit code.
+     */
+    private int encode(final List<Path> paths, final Settings settings, final boolean videoPerFolder) {
+        final var jobs = EncodeJob.createJobs(paths, videoPerFolder);
+        final var scheduler = new EncodeScheduler(jobs, settings, Runtime.getRuntime().availableProcessors());
+        final var finished = new CountDownLatch(1);
+        scheduler.setUpdateProgress(err::print);
+        scheduler.setOnJobProgress(job -> err.println("[" + job.getName() + "] " + job.getProgress().describe()));
+        scheduler.setOnFinished(finished::countDown);
+
+        final var shutdownHook = new Thread(scheduler::cancel);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        scheduler.start();
+        await(finished, scheduler::cancel);
+        removeShutdownHook(shutdownHook);
+
+        var exitCode = EXIT_SUCCESS;
+        for (final var job : jobs) {
+            if (job.getStatus() == JobStatus.COMPLETED) {
+                out.println(job.getOutputPath());
+            } else {
+                exitCode = EXIT_FAILURE;
+            }
+        }
+        return exitCode;
+    }
+
+    /**
+     * Decodes the specified videos, and waits for every archive to finish.
+     *
+     * @param paths The videos to decode.
+     * @param settings The settings to decode with.
+     * @return The exit code.
+     */
+    private int decode(final List<Path> paths, final Settings settings) {
+        final var queue = new DecodeQueue(paths, settings);
+        final var finished = new CountDownLatch(1);
+        queue.setUpdateProgress(err::print);
+        queue.setOnJobProgress(job -> err.println("[" + job.getInputPath().getFileName() + "] " + job.getProgress().describe()));
+        queue.setOnFinished(finished::countDown);
+
+        final var shutdownHook = new Thread(queue::cancel);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        queue.start();
+        await(finished, queue::cancel);
+        removeShutdownHook(shutdownHook);
+
+        var exitCode = EXIT_SUCCESS;
+        for (final var job : queue.getJobs()) {
+            if (job.getStatus() == JobStatus.COMPLETED) {
+                out.println(job.getOutputPath());
+            } else {
+                exitCode = EXIT_FAILURE;
+            }
+        }
+        return exitCode;
+    }
+
+    /**
+     * Watches the specified inboxes until the process is stopped.
+     *
+     * @param inboxes Type of each inbox, by its path.
+     * @param settings The settings to encode and decode with.
+     * @param stateFilePath Path to the file in which the daemon's state is saved.
+     * @param settleTime How long a file must remain unchanged before it is picked up.
+     * @return The exit code.
+     */
+    private int watch(final Map<Path, InboxType> inboxes, final Settings settings, final Path stateFilePath, final Duration settleTime) {
+        final WatchDaemon daemon;
+        try {
+            daemon = new WatchDaemon(inboxes, settings, stateFilePath, settleTime);
+            daemon.setUpdateProgress(err::print);
+            daemon.start();
+        } catch (final IOException e) {
+            err.println(e.getMessage());
+            return EXIT_FAILURE;
+        }
+
+        // The daemon only stops when the process is asked to exit, so its current job is cancelled to be resumed on
+        // the next run.
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+        err.println("Watching " + inboxes.size() + " inbox(es). Press Ctrl+C to stop.");
+        daemon.awaitStop();
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Serves the job-submission API until the process is stopped.
+     *
+     * @param settings The settings to encode and decode with.
+     * @param port Port to listen on.
+     * @return The exit code.
+     */
+    private int serve(final Settings settings, final int port) {
+        final JobServer server;
+        try {
+            server = new JobServer(settings, port);
+        } catch (final IOException e) {
+            err.println("Unable to listen on port " + port + ": " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+
+        final var stopped = new CountDownLatch(1);
+        server.setUpdateProgress(err::print);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+
+        server.start();
+        err.println("Listening on http://localhost:" + server.getPort() + "/. Press Ctrl+C to stop.");
+        await(stopped, server::stop);
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Waits for a latch to be released. If the calling thread is interrupted, then the work is cancelled and the
+     * latch is waited for again, so that no temporary files are left behind.
+     *
+     * @param latch The latch.
+     * @param cancel Cancels the work.
+     */
+    private void await(final CountDownLatch latch, final Runnable cancel) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            cancel.run();
+
+            try {
+                latch.await();
+            } catch (final InterruptedException ignored) {
+                // Give up on waiting, as the thread was interrupted twice.
+            }
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes a shutdown hook, ignoring the error thrown if the JVM is already shutting down.
+     *
+     * @param hook The hook.
+     */
+    private void removeShutdownHook(final Thread hook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (final IllegalStateException ignored) {
+            // The JVM is shutting down, and the hook has already run.
+        }
+    }
+
+    /**
+     * Retrieves the value of an option.
+     *
+     * @param args The arguments.
+     * @param index Index of the value.
+     * @return The value.
+     *
+     * @throws IllegalArgumentException If there is no value at the index.
+     */
+    private static String value(final String[] args, final int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for option: " + args[index - 1]);
+        }
+
+        return args[index];
+    }
+
+    /**
+     * Prints the usage message.
+     *
+     * @param stream Stream to print to.
+     */
+    private static void printUsage(final PrintStream stream) {
+        final var resolutions = new ArrayList<String>();
+        for (final var resolution : FrameResolution.values()) {
+            resolutions.add(resolution.name());
+        }
+
+        stream.print(USAGE.formatted(String.join(", ", resolutions), DEFAULT_STATE_FILE_PATH));
+    }
+}
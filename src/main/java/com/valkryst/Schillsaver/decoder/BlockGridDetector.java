@@ -0,0 +1,91 @@
+package com.valkryst.Schillsaver.decoder;
+
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import lombok.NonNull;
+
+import java.util.Optional;
+
+/**
+ * <p>Detects the block size of a frame drawn by the {@link com.valkryst.Schillsaver.encoder.FrameRenderer}.</p>
+ *
+ * <p>
+ *     Blocks are aligned to a grid which starts at the frame's top-left corner, so the brightness of a frame only
+ *     changes sharply along the grid's lines. The change in brightness between each pair of neighbouring pixels is
+ *     summed by its position modulo {@link #PERIOD}, which is a multiple of every block size, and the block size whose
+ *     grid lines have the largest average change, relative to the positions between them, is chosen.
+ * </p>
+ *
+ * <p>
+ *     This is only needed for videos without a header frame, which were encoded before headers were added.
+ * </p>
+ */
+public class BlockGridDetector {
+    /** Least common multiple of the block sizes. */
+    private static final int PERIOD = 120;
+
+    /** Minimum ratio between the average change along the grid lines, and between them, of a detected grid. */
+    private static final double MIN_CONTRAST = 2;
+
+    /** Number of pixel rows, or columns, skipped between each one which is analyzed. */
+    private static final int STRIDE = 3;
+
+    /**
+     * Detects the block size of a frame.
+     *
+     * @param framePixels Pixels of the frame, as 8-bit grayscale.
+     * @param resolution Resolution of the frame.
+     * @return The block size, or an empty optional if the frame has no clear block grid, such as a blank frame.
+     */
+    public static Optional<BlockSize> detect(final byte @NonNull [] framePixels, final @NonNull FrameResolution resolution) {
+        if (framePixels.length < resolution.pixelCount) {
+            return Optional.empty();
+        }
+
+        final var width = resolution.width;
+        final var height = resolution.height;
+        final var changes = new long[PERIOD];
+
+        // Changes between horizontal neighbours lie on the vertical grid lines.
+        for (int y = 0 ; y < height ; y += STRIDE) {
+            final var offset = y * width;
+            for (int x = 1 ; x < width ; x++) {
+                changes[x % PERIOD] += Math.abs((framePixels[offset + x] & 0xFF) - (framePixels[offset + x - 1] & 0xFF));
+            }
+        }
+
+        // Changes between vertical neighbours lie on the horizontal grid lines.
+        for (int y = 1 ; y < height ; y++) {
+            final var offset = y * width;
+            for (int x = 0 ; x < width ; x += STRIDE) {
+                changes[y % PERIOD] += Math.abs((framePixels[offset + x] & 0xFF) - (framePixels[offset - width + x] & 0xFF));
+            }
+        }
+
+        BlockSize detected = null;
+        double bestContrast = MIN_CONTRAST;
+        for (final var blockSize : BlockSize.values()) {
+            final var size = blockSize.blockSize;
+
+            long onGrid = 0;
+            long offGrid = 0;
+            for (int i = 0 ; i < PERIOD ; i++) {
+                if (i % size == 0) {
+                    onGrid += changes[i];
+                } else {
+                    offGrid += changes[i];
+                }
+            }
+
+            final var onGridAverage = (double) onGrid / (PERIOD / size);
+            final var offGridAverage = (double) offGrid / (PERIOD - (PERIOD / size));
+            final var contrast = onGridAverage / Math.max(1, offGridAverage);
+            if (onGrid > 0 && contrast > bestContrast) {
+                detected = blockSize;
+                bestContrast = contrast;
+            }
+        }
+
+        return Optional.ofNullable(detected);
+    }
+}
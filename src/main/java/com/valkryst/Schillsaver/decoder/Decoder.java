@@ -1,21 +1,45 @@
 package com.valkryst.Schillsaver.decoder;
 
-import com.valkryst.Schillsaver.display.model.SettingsTabModel;
+import com.valkryst.Schillsaver.ffmpeg.ProcessSupervisor;
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import com.valkryst.Schillsaver.ffmpeg.ProgressReceiver;
+import com.valkryst.Schillsaver.ffmpeg.ProgressTracker;
+import com.valkryst.Schillsaver.io.ScratchSpace;
+import com.valkryst.Schillsaver.io.VideoHeader;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import com.valkryst.Schillsaver.setting.Settings;
 import lombok.NonNull;
 import lombok.Setter;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 public class Decoder extends Thread {
+    /** Number of cores assumed to be used by an FFMPEG process, when its thread count is left to FFMPEG. */
+    private static final int DEFAULT_FFMPEG_THREADS = 4;
+
+    /** Maximum time FFMPEG may take to read the first frame, before it is assumed to have hung and is killed. */
+    private static final Duration FIRST_FRAME_TIMEOUT = Duration.ofMinutes(1);
+
     /** Consumer to call when decoding is complete. */
     @Setter private Consumer<Path> onCompletion = (final Path path) -> {};
 
@@ -25,48 +49,540 @@ public class Decoder extends Thread {
     /** Consumer to call when the progress needs to be updated. */
     @Setter private Consumer<String> updateProgress = (final String progress) -> {};
 
+    /** Consumer to call with FFMPEG's progress, while decoding. */
+    @Setter private Consumer<ProgressEvent> onProgress = (final ProgressEvent event) -> {};
+
     /** Path of the file to decode. */
     private final Path inputFilePath;
 
-    public Decoder(final @NonNull Path inputFilePath) {
+    /**
+     * Settings to decode with. Once decoding begins, its resolution and block size are replaced by those detected from
+     * the video.
+     */
+    private Settings settings;
+
+    /** Number of cores the decoder may use. */
+    private final int coreBudget;
+
+    /** Threads which each decode a range of the video's frames. */
+    private final List<Thread> rangeDecoders = new CopyOnWriteArrayList<>();
+
+    /** FFMPEG processes started by the {@code rangeDecoders}. */
+    private final List<Process> ffmpegProcesses = new CopyOnWriteArrayList<>();
+
+    /** First exception thrown by the {@code rangeDecoders}, if any. */
+    private volatile IOException rangeDecoderException;
+
+    /**
+     * Constructs a new {@code Decoder} which may use every core.
+     *
+     * @param inputFilePath Path of the file to decode.
+     * @param settings Settings to decode with.
+     */
+    public Decoder(final @NonNull Path inputFilePath, final @NonNull Settings settings) {
+        this(inputFilePath, settings, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new {@code Decoder} which uses at most the specified number of cores.
+     *
+     * @param inputFilePath Path of the file to decode.
+     * @param settings Settings to decode with.
+     * @param coreBudget Number of cores the decoder may use.
+     *
+     * @throws IllegalArgumentException If {@code coreBudget} is less than one.
+     */
+    public Decoder(final @NonNull Path inputFilePath, final @NonNull Settings settings, final int coreBudget) {
+        if (coreBudget < 1) {
+            throw new IllegalArgumentException("The core budget cannot be < 1.");
+        }
+
         this.inputFilePath = inputFilePath;
+        this.settings = settings;
+        this.coreBudget = coreBudget;
     }
 
-    // todo Handle interruption and delete temp files.
+    /**
+     * Decodes the video into an archive, within a staging folder on the output folder's file system, so that the
+     * archive can be moved into the output folder without being copied.
+     *
+     * <p>
+     *     The resolution and block size are detected from the video, rather than taken from the settings, which are
+     *     only used for whatever cannot be detected. See {@link #detectFrameFormat}.
+     * </p>
+     *
+     * <p>
+     *     If the video begins with a header frame, then the header frame is not decoded, only the frames which hold the
+     *     archive are decoded, and the archive is cut to its exact length. Videos encoded before headers were added are
+     *     decoded in full, including the padding at their end.
+     * </p>
+     *
+     * <p>
+     *     If the header records that error correction was added to the archive, then the errors of each group of
+     *     codewords are corrected, and its error correction is removed, as soon as its frames have been decoded, so
+     *     that only the corrected archive is written. See {@link ErrorCorrector}.
+     * </p>
+     *
+     * <p>
+     *     If there is not enough free space for the archive, or decoding fails, or the thread is interrupted, then
+     *     FFMPEG is killed and the staging folder is deleted along with everything in it.
+     * </p>
+     *
+     * @throws IOException If an I/O exception occurs while creating the staging folder, or renaming the archive.
+     */
     public void decode() throws IOException {
-        final var outputDirectory = Files.createTempDirectory(UUID.randomUUID().toString());
-        final var outputFilePath = outputDirectory.resolve(FilenameUtils.getBaseName(inputFilePath.toString()) + ".zip");
+        final var outputDirectory = ScratchSpace.createStagingFolder(settings);
+        final var outputFilePath = outputDirectory.resolve(FilenameUtils.getBaseName(inputFilePath.toString()) + ".bin");
         updateProgress.accept("Created temporary directory: " + outputDirectory + "\n");
 
-        final var process = getFfmpegProcess(outputFilePath);
+        final var videoProbe = probeVideo();
+        final var header = detectFrameFormat(videoProbe);
+        // Videos without a header were drawn from monob frames, whose rows of blocks are padded to whole bytes.
+        final var paddedRows = header.isEmpty();
+        final var bytesPerFrame = paddedRows ? settings.resolution().getPaddedBytesPerFrame(settings.blockSize()) : settings.getBytesPerFrame();
+
+        // The header and trailer frames surround the payload's frames, and any frames after them are not decoded.
+        final var headerFrames = header.isPresent() ? 1 : 0;
+        final var payloadLength = header.map(VideoHeader::payloadLength).orElse(-1L);
+        final var errorCorrection = header.map(VideoHeader::errorCorrection).orElse(ErrorCorrection.NONE);
+        final var frameLimit = payloadLength < 0 ? -1 : Math.ceilDiv(errorCorrection.getEncodedLength(payloadLength, bytesPerFrame), bytesPerFrame) + 2;
+        final var frameRanges = planFrameRanges(videoProbe, frameLimit);
+
+        // The number of frames is only known if the video could be probed.
+        long totalFrames = 0;
+        for (final var frameRange : frameRanges) {
+            totalFrames = frameRange.frameCount() == -1 ? -1 : totalFrames + frameRange.frameCount();
+        }
+        final var progressTracker = new ProgressTracker(totalFrames, bytesPerFrame, onProgress);
+
+        if (totalFrames > 0) {
+            try {
+                ScratchSpace.requireSpace(Map.of(outputDirectory, totalFrames * bytesPerFrame));
+            } catch (final IOException e) {
+                updateProgress.accept(e.getMessage() + "\n");
+                onError.accept(e);
+                deleteScratchDirectory(outputDirectory);
+                return;
+            }
+        }
+
+        if (errorCorrection != ErrorCorrection.NONE) {
+            updateProgress.accept("Correcting errors with " + errorCorrection + " error correction.\n");
+        }
 
+        ErrorCorrector.Result correction = null;
         try (
-            final var inputStream = process.getInputStream();
-            final var inputStreamReader = new InputStreamReader(inputStream);
-            final var bufferedReader = new BufferedReader(inputStreamReader);
+            final var outputChannel = FileChannel.open(outputFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            final var frameDecoder = new ParallelFrameDecoder(settings.resolution(), settings.blockSize(), paddedRows, coreBudget)
         ) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                updateProgress.accept(line + "\n");
+            // Errors are corrected as the frames are decoded, so only the corrected data is written.
+            final var errorCorrector = errorCorrection == ErrorCorrection.NONE ? null : new ErrorCorrector(errorCorrection, bytesPerFrame, header.get(), outputChannel);
+
+            for (int i = 0 ; i < frameRanges.size() ; i++) {
+                final var frameRange = frameRanges.get(i);
+                final var progressParser = progressTracker.createParser();
+                final var rangeDecoder = new Thread(() -> {
+                    try {
+                        final var skipHeaderFrame = headerFrames == 1 && frameRange.firstFrame() == 0;
+                        final var firstPayloadFrame = Math.max(0, frameRange.firstFrame() - headerFrames);
+
+                        final ParallelFrameDecoder.FrameConsumer frameConsumer;
+                        if (errorCorrector == null) {
+                            frameConsumer = ParallelFrameDecoder.writeTo(outputChannel, firstPayloadFrame * bytesPerFrame);
+                        } else {
+                            frameConsumer = (frameIndex, frameData) -> errorCorrector.accept(firstPayloadFrame + frameIndex, frameData);
+                        }
+
+                        decodeFrameRange(frameRange, frameDecoder, frameConsumer, skipHeaderFrame, progressParser);
+                    } catch (final IOException e) {
+                        if (rangeDecoderException == null) {
+                            rangeDecoderException = e;
+                        }
+
+                        // Stop the other ranges, as the output is unusable.
+                        stopRangeDecoders();
+                    }
+                }, "Range Decoder-" + i);
+                rangeDecoders.add(rangeDecoder);
+                rangeDecoder.start();
+            }
+
+            for (final var rangeDecoder : rangeDecoders) {
+                rangeDecoder.join();
             }
+
+            if (errorCorrector != null && rangeDecoderException == null) {
+                correction = errorCorrector.finish();
+            }
+        } catch (final InterruptedException e) {
+            stopRangeDecoders();
+            rangeDecoderException = new InterruptedIOException("Decoding was interrupted.");
         } catch (final IOException e) {
-            updateProgress.accept("An error occurred while encoding the file:\n");
-            updateProgress.accept("\t" + e.getMessage() + "\n");
-            onError.accept(e);
+            rangeDecoderException = e;
+        }
 
-            Files.deleteIfExists(outputDirectory);
+        if (rangeDecoderException == null && Thread.currentThread().isInterrupted()) {
+            rangeDecoderException = new InterruptedIOException("Decoding was interrupted.");
+        }
+
+        if (rangeDecoderException != null || !Files.exists(outputFilePath)) {
+            final var exception = rangeDecoderException == null ? new IOException("An error occurred while decoding the file.") : rangeDecoderException;
+            updateProgress.accept("An error occurred while decoding the file:\n");
+            updateProgress.accept("\t" + exception.getMessage() + "\n");
+            onError.accept(exception);
+            deleteScratchDirectory(outputDirectory);
             return;
+        }
+
+        if (header.isPresent()) {
+            try {
+                if (correction == null) {
+                    trimToPayload(outputFilePath, header.get(), bytesPerFrame);
+                } else {
+                    verifyCorrection(outputFilePath, correction);
+                }
+            } catch (final IOException e) {
+                updateProgress.accept("An error occurred while decoding the file:\n");
+                updateProgress.accept("\t" + e.getMessage() + "\n");
+                onError.accept(e);
+                deleteScratchDirectory(outputDirectory);
+                return;
+            }
+        }
+
+        onCompletion.accept(renameForCodec(outputFilePath));
+    }
+
+    /**
+     * Probes the video.
+     *
+     * @return The probe's results, or {@code null} if the video could not be probed.
+     */
+    private VideoProbe probeVideo() {
+        try {
+            return VideoProbe.probe(inputFilePath);
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to probe the video, so it will be decoded by a single process: " + e.getMessage() + "\n");
+            return null;
+        }
+    }
+
+    /**
+     * <p>Detects the resolution and block size of the video, and replaces those of the settings with them.</p>
+     *
+     * <p>
+     *     The resolution is taken from the probe, and the block size from the header frame. The header also records
+     *     the resolution at which the video was encoded, which is used if the video has since been resized. Videos
+     *     without a header have their block size detected from the grid of blocks in their first frame.
+     * </p>
+     *
+     * <p>Anything which cannot be detected is taken from the settings.</p>
+     *
+     * @param videoProbe The probe's results, or {@code null} if the video could not be probed.
+     * @return The header, or an empty optional if the video has no header frame, or it cannot be read.
+     */
+    private Optional<VideoHeader> detectFrameFormat(final VideoProbe videoProbe) {
+        var resolution = settings.resolution();
+        if (videoProbe != null) {
+            final var probedResolution = VideoHeader.findResolution(videoProbe.width(), videoProbe.height());
+            if (probedResolution.isPresent()) {
+                resolution = probedResolution.get();
+            } else {
+                updateProgress.accept("The video's resolution, " + videoProbe.width() + "x" + videoProbe.height() + ", is not supported, so it will be decoded at " + resolution + ".\n");
+            }
+        }
+
+        final var framePixels = readFirstFrame(resolution);
+        final var header = VideoHeader.readHeaderFrame(framePixels, resolution);
+
+        var blockSize = settings.blockSize();
+        if (header.isPresent()) {
+            updateProgress.accept("Read Header: " + header.get() + "\n");
+            resolution = header.get().resolution();
+            blockSize = header.get().blockSize();
+        } else {
+            updateProgress.accept("The video has no header, so it will be decoded in full.\n");
+
+            final var detectedBlockSize = BlockGridDetector.detect(framePixels, resolution);
+            if (detectedBlockSize.isPresent()) {
+                blockSize = detectedBlockSize.get();
+            } else {
+                updateProgress.accept("Unable to detect the video's block size, so a block size of " + blockSize.blockSize + " will be used.\n");
+            }
+        }
+
+        if (resolution != settings.resolution() || blockSize != settings.blockSize()) {
+            updateProgress.accept("Decoding with the video's own settings, rather than the selected settings.\n");
+        }
+        updateProgress.accept("Detected Resolution: " + resolution + "\n");
+        updateProgress.accept("Detected Block Size: " + blockSize.blockSize + "\n");
+
+        settings = settings.withFrameFormat(resolution, blockSize);
+        return header;
+    }
+
+    /**
+     * Reads the first frame of the video.
+     *
+     * @param resolution Resolution at which to read the frame.
+     * @return The frame's pixels, which are incomplete if the frame could not be read.
+     */
+    private byte[] readFirstFrame(final @NonNull FrameResolution resolution) {
+        final var command = List.of(
+            "ffmpeg",
+            "-i", inputFilePath.toString(),
+            "-frames:v", "1",
+            "-f", "rawvideo",
+            "-pix_fmt", "gray",
+            "-s", resolution.width + "x" + resolution.height,
+            "-loglevel", "error",
+            "pipe:1"
+        );
+
+        try {
+            final var process = ProcessSupervisor.getInstance().start(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD), FIRST_FRAME_TIMEOUT);
+            try (final var inputStream = process.getInputStream()) {
+                return inputStream.readNBytes(Math.toIntExact(resolution.pixelCount));
+            } finally {
+                ProcessSupervisor.getInstance().kill(process);
+            }
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to read the first frame of the video: " + e.getMessage() + "\n");
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Cuts the decoded file to the exact length of the payload, removing the trailer frame and the padding before it,
+     * and then verifies the payload's checksum. The length and checksum are taken from the trailer frame, or from the
+     * header if the trailer cannot be read.
+     *
+     * @param filePath Path to the decoded file.
+     * @param header Header of the video.
+     * @param bytesPerFrame Number of bytes of data held by each frame.
+     *
+     * @throws IOException If an I/O exception occurs, if the decoded file is shorter than the payload, or if the
+     *                     payload does not match its checksum.
+     */
+    private void trimToPayload(final @NonNull Path filePath, final @NonNull VideoHeader header, final int bytesPerFrame) throws IOException {
+        var payloadLength = header.payloadLength();
+        var checksum = header.checksum();
+
+        try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final var size = channel.size();
+            if (size >= bytesPerFrame) {
+                final var trailerData = ByteBuffer.allocate(VideoHeader.LENGTH);
+                while (trailerData.hasRemaining()) {
+                    if (channel.read(trailerData, size - bytesPerFrame + trailerData.position()) < 0) {
+                        break;
+                    }
+                }
+
+                final var trailer = VideoHeader.readTrailer(trailerData.array());
+                if (trailer.isPresent()) {
+                    payloadLength = trailer.get().payloadLength();
+                    checksum = trailer.get().checksum();
+                } else {
+                    updateProgress.accept("Unable to read the video's trailer.\n");
+                }
+            }
+
+            if (payloadLength < 0) {
+                updateProgress.accept("The length of the archive is unknown, so the decoded file may end with padding.\n");
+                return;
+            }
+
+            if (payloadLength > size) {
+                throw new IOException("The video holds " + size + " bytes, but the archive is " + payloadLength + " bytes long.");
+            }
+
+            channel.truncate(payloadLength);
+        }
+
+        verifyChecksum(filePath, payloadLength, checksum);
+    }
+
+    /**
+     * Reports the errors which were corrected in an error-corrected payload, and then verifies the payload's checksum.
+     * The corrected payload was written at its exact length, so it needs no trimming.
+     *
+     * @param filePath Path to the decoded file.
+     * @param correction The results of correcting the payload.
+     *
+     * @throws IOException If an I/O exception occurs, or if the payload does not match its checksum.
+     */
+    private void verifyCorrection(final @NonNull Path filePath, final ErrorCorrector.@NonNull Result correction) throws IOException {
+        updateProgress.accept("Corrected " + correction.correctedBytes() + " bytes.\n");
+        verifyChecksum(filePath, correction.dataLength(), correction.checksum());
+    }
+
+    /**
+     * Verifies the checksum of a decoded payload.
+     *
+     * @param filePath Path to the decoded file.
+     * @param payloadLength Number of bytes in the payload.
+     * @param checksum CRC32 of the payload, or {@code -1} if it is not known, in which case nothing is verified.
+     *
+     * @throws IOException If an I/O exception occurs, or if the payload does not match its checksum.
+     */
+    private void verifyChecksum(final @NonNull Path filePath, final long payloadLength, final long checksum) throws IOException {
+        if (checksum >= 0 && VideoHeader.computeChecksum(filePath, payloadLength) != checksum) {
+            throw new IOException("The decoded archive does not match its checksum, so it is corrupt.");
+        }
+    }
+
+    /**
+     * Deletes a temporary folder, and everything in it, reporting any file which could not be deleted.
+     *
+     * @param directory Path to the folder.
+     */
+    private void deleteScratchDirectory(final @NonNull Path directory) {
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to delete the temporary directory " + directory + ": " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * <p>Splits the video into ranges of frames, each of which can be decoded by its own FFMPEG process.</p>
+     *
+     * <p>
+     *     Each range begins at a keyframe, so that FFMPEG can seek directly to it. If the video cannot be probed, or
+     *     there are too few keyframes, then the whole video is decoded as a single range.
+     * </p>
+     *
+     * @param videoProbe The probe's results, or {@code null} if the video could not be probed.
+     * @param frameLimit Number of frames to decode, from the start of the video, or {@code -1} to decode every frame.
+     * @return The ranges, in order.
+     */
+    private List<FrameRange> planFrameRanges(final VideoProbe videoProbe, final long frameLimit) {
+        if (videoProbe == null) {
+            return List.of(new FrameRange(0, frameLimit, 0));
+        }
+
+        // FFMPEG's decoder uses several threads, so one range per core would oversubscribe the CPU.
+        final var threadsPerRange = settings.ffmpegThreads() > 0 ? settings.ffmpegThreads() : DEFAULT_FFMPEG_THREADS;
+        final var rangeCount = Math.max(1, coreBudget / threadsPerRange);
+        final var frameCount = frameLimit < 0 ? videoProbe.frameCount() : Math.min(videoProbe.frameCount(), frameLimit);
+        final var keyframes = videoProbe.keyframes();
+
+        final var frameRanges = new ArrayList<FrameRange>(rangeCount);
+        long firstFrame = 0;
+        var keyframeIndex = 0;
+        for (int i = 1 ; i < rangeCount ; i++) {
+            // Split at the first keyframe at or after the ideal split point.
+            final var target = (frameCount * i) / rangeCount;
+            while (keyframeIndex < keyframes.size() && keyframes.get(keyframeIndex) < target) {
+                keyframeIndex++;
+            }
+
+            if (keyframeIndex == keyframes.size()) {
+                break;
+            }
+
+            final long nextFrame = keyframes.get(keyframeIndex);
+            if (nextFrame > firstFrame && nextFrame < frameCount) {
+                frameRanges.add(new FrameRange(firstFrame, nextFrame - firstFrame, videoProbe.frameRate()));
+                firstFrame = nextFrame;
+            }
+        }
+        frameRanges.add(new FrameRange(firstFrame, frameCount - firstFrame, videoProbe.frameRate()));
+
+        updateProgress.accept("Decoding " + frameCount + " frames in " + frameRanges.size() + " ranges.\n");
+        return frameRanges;
+    }
+
+    /**
+     * Decodes a range of frames with its own FFMPEG process.
+     *
+     * @param frameRange The range.
+     * @param frameDecoder Decoder used to convert the frames into data.
+     * @param frameConsumer Consumer of the data of the range's frames, where the range's first decoded frame is zero.
+     * @param skipHeaderFrame Whether the range's first frame is the header frame, which is not decoded.
+     * @param progressParser Parser of the FFMPEG process' progress.
+     *
+     * @throws IOException If an I/O exception occurs, if FFMPEG fails, or if the wrong number of frames is decoded.
+     */
+    private void decodeFrameRange(final @NonNull FrameRange frameRange, final @NonNull ParallelFrameDecoder frameDecoder, final ParallelFrameDecoder.@NonNull FrameConsumer frameConsumer, final boolean skipHeaderFrame, final @NonNull ProgressTracker.Parser progressParser) throws IOException {
+        final var progressReceiver = new ProgressReceiver(progressParser);
+
+        final Process process;
+        try {
+            process = getFfmpegProcess(frameRange, progressReceiver);
+        } catch (final IOException e) {
+            progressReceiver.close();
+            throw e;
+        }
+        ffmpegProcesses.add(process);
+        final var logReader = startLogReader(process);
+
+        try (final var inputStream = process.getInputStream()) {
+            if (skipHeaderFrame) {
+                inputStream.skipNBytes(settings.resolution().pixelCount);
+            }
+
+            final var framesDecoded = frameDecoder.decode(inputStream, frameConsumer) + (skipHeaderFrame ? 1 : 0);
+
+            final var exitCode = process.waitFor();
+            logReader.join();
+
+            if (exitCode != 0) {
+                throw new IOException("FFMPEG exited with code " + exitCode + ".");
+            }
+
+            if (frameRange.frameCount() != -1 && framesDecoded != frameRange.frameCount()) {
+                throw new IOException("Expected " + frameRange.frameCount() + " frames from frame " + frameRange.firstFrame() + ", but decoded " + framesDecoded + ".");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decoding was interrupted.");
         } finally {
-            process.destroy();
+            ProcessSupervisor.getInstance().kill(process);
+            ffmpegProcesses.remove(process);
+            progressReceiver.close();
         }
+    }
 
-        if (!Files.exists(outputFilePath)) {
-            onError.accept(new IOException("An error occurred while decoding the file."));
-            Files.deleteIfExists(outputDirectory);
-            return;
+    /**
+     * Detects the codec which wrote the decoded archive, and renames the archive to use the codec's file extension.
+     *
+     * @param filePath Path to the decoded archive.
+     * @return Path to the renamed archive, or the original path if the codec could not be detected.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Path renameForCodec(final @NonNull Path filePath) throws IOException {
+        final byte[] header;
+        try (final var inputStream = Files.newInputStream(filePath)) {
+            header = inputStream.readNBytes(8);
+        }
+
+        final var codec = CompressionCodec.detect(header);
+        if (codec.isEmpty()) {
+            updateProgress.accept("Unable to detect the archive's codec. The decoded file may be corrupt.\n");
+            return filePath;
         }
 
-        onCompletion.accept(outputFilePath);
+        updateProgress.accept("Detected Codec: " + codec.get() + "\n");
+
+        final var fileName = FilenameUtils.getBaseName(filePath.toString()) + "." + codec.get().codec.getFileExtension();
+        return Files.move(filePath, filePath.resolveSibling(fileName));
+    }
+
+    @Override
+    public void interrupt() {
+        super.interrupt();
+        stopRangeDecoders();
+    }
+
+    /**
+     * Interrupts the range decoders, and kills their FFMPEG processes so that they are not left blocked while
+     * reading from FFMPEG.
+     */
+    private void stopRangeDecoders() {
+        rangeDecoders.forEach(Thread::interrupt);
+        ffmpegProcesses.forEach(ProcessSupervisor.getInstance()::kill);
     }
 
     @Override
@@ -78,41 +594,88 @@ public class Decoder extends Thread {
         }
     }
 
-    private List<String> getFfmpegCommand(final @NonNull Path outputFilePath) throws IOException {
-        final var settings = new SettingsTabModel();
-        final var blockSize = settings.getBlockSize();
+    /**
+     * Starts a thread which forwards FFMPEG's log messages, from its stderr, to {@code updateProgress}.
+     *
+     * @param process The FFMPEG process.
+     * @return The thread.
+     */
+    private Thread startLogReader(final @NonNull Process process) {
+        final var thread = new Thread(() -> {
+            try (
+                final var errorStream = process.getErrorStream();
+                final var inputStreamReader = new InputStreamReader(errorStream);
+                final var bufferedReader = new BufferedReader(inputStreamReader)
+            ) {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    updateProgress.accept(line + "\n");
+                }
+            } catch (final IOException ignored) {
+                // The stream is closed when the process is destroyed.
+            }
+        }, "FFMPEG Log Reader");
+        thread.start();
+        return thread;
+    }
+
+    private List<String> getFfmpegCommand(final @NonNull FrameRange frameRange, final @NonNull ProgressReceiver progressReceiver) {
+        final var resolution = settings.resolution();
 
         final var command = new ArrayList<String>();
         command.add("ffmpeg");
         command.add("-hwaccel");
         command.add("auto");
+
+        if (frameRange.firstFrame() > 0) {
+            // Seeking to half a frame before the keyframe ensures that rounding never skips the keyframe itself.
+            command.add("-ss");
+            command.add(String.format(Locale.ROOT, "%.6f", (frameRange.firstFrame() - 0.5) / frameRange.frameRate()));
+        }
+
         command.add("-i");
         command.add(inputFilePath.toString());
-        command.add("-vf");
-        command.add("format=pix_fmts=monob,scale=iw*" + (1.0 / blockSize.blockSize) + ":-1");
-        command.add("-sws_flags");
-        command.add("area");
+
+        if (frameRange.frameCount() != -1) {
+            command.add("-frames:v");
+            command.add(String.valueOf(frameRange.frameCount()));
+        }
+
+        if (settings.ffmpegThreads() > 0) {
+            command.add("-threads");
+            command.add(String.valueOf(settings.ffmpegThreads()));
+        }
+
         command.add("-f");
         command.add("rawvideo");
+        command.add("-pix_fmt");
+        command.add("gray");
+        command.add("-s");
+        command.add(resolution.width + "x" + resolution.height);
+
+        ProgressTracker.addProgressArguments(command, progressReceiver);
         command.add("-loglevel");
         command.add("verbose");
-        command.add("-preset");
-        command.add("ultrafast");
-        command.add("-y");
-        command.add(outputFilePath.toString());
+        command.add("pipe:1");
         return command;
     }
 
-    private Process getFfmpegProcess(final @NonNull Path outputFilePath) throws IOException {
-        final var ffmpegCommand = getFfmpegCommand(outputFilePath);
+    private Process getFfmpegProcess(final @NonNull FrameRange frameRange, final @NonNull ProgressReceiver progressReceiver) throws IOException {
+        final var ffmpegCommand = getFfmpegCommand(frameRange, progressReceiver);
         updateProgress.accept("FFMPEG Command: " + String.join(" ", ffmpegCommand) + "\n");
 
+        // The decoded frames are read from stdout, so the log messages must be read separately from stderr.
         final var processBuilder = new ProcessBuilder(ffmpegCommand);
-        processBuilder.redirectErrorStream(true);
 
-        final var process = processBuilder.start();
-        Runtime.getRuntime().addShutdownHook(new Thread(process::destroy)); // todo We should remove the hook when the process is finished.
-
-        return process;
+        return ProcessSupervisor.getInstance().start(processBuilder);
     }
+
+    /**
+     * A range of a video's frames.
+     *
+     * @param firstFrame Index of the first frame. This must be a keyframe.
+     * @param frameCount Number of frames in the range, or {@code -1} if the range ends at the end of the video.
+     * @param frameRate Frame rate of the video, in frames per second. Only used if {@code firstFrame} is not zero.
+     */
+    private record FrameRange(long firstFrame, long frameCount, double frameRate) {}
 }
@@ -0,0 +1,379 @@
+package com.valkryst.Schillsaver.decoder;
+
+import com.valkryst.Schillsaver.io.ErrorCorrectingOutputStream;
+import com.valkryst.Schillsaver.io.ReedSolomon;
+import com.valkryst.Schillsaver.io.VideoHeader;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>
+ *     Corrects the errors in the frames of a video, and removes the error correction written by an
+ *     {@link ErrorCorrectingOutputStream}, while the frames are being decoded.
+ * </p>
+ *
+ * <p>
+ *     Each group of interleaved codewords fills {@link ErrorCorrection#CODEWORD_LENGTH} consecutive frames. The data of
+ *     each frame is gathered into its group's buffer as soon as the frame has been decoded, and the group is corrected,
+ *     by the worker thread which delivered its last frame, as soon as every one of its frames has arrived. Only the
+ *     corrected data is written to the output, at its final position, so the frames are never written to disk and
+ *     never read back. Groups may complete in any order, as the frames of a video are decoded by several ranges at
+ *     once.
+ * </p>
+ *
+ * <p>
+ *     The final group is shorter than the others, as its codewords are shortened, and how much shorter depends on the
+ *     payload's length. Each of its frames still holds one byte of every codeword. If the length is not in the
+ *     header, such as for a video whose archive was streamed into FFMPEG, then it is read from the trailer frame when
+ *     that arrives, and until then a group is only known to be full once a frame after it has arrived.
+ * </p>
+ *
+ * <p>
+ *     Only the buffers of the groups which are being decoded are held at once, so memory usage does not depend on the
+ *     length of the video.
+ * </p>
+ */
+public class ErrorCorrector {
+    /** Number of frames filled by a full group. */
+    private static final int FRAMES_PER_GROUP = ErrorCorrection.CODEWORD_LENGTH;
+
+    /** Code used to correct the codewords. */
+    private final ReedSolomon reedSolomon;
+
+    /** Level of error correction. */
+    private final ErrorCorrection errorCorrection;
+
+    /** Number of bytes of data held by each frame, which is also the number of codewords in a full group. */
+    private final int bytesPerFrame;
+
+    /** Channel to write the corrected data to. */
+    private final FileChannel outputChannel;
+
+    /** Groups which are waiting for frames, or to be corrected, by their index. */
+    private final Map<Long, Group> groups = new HashMap<>();
+
+    /** Buffers of groups which have been corrected, which may be reused. */
+    private final ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>();
+
+    /** Number of bytes of data in the payload, or {@code -1} if it is not yet known. */
+    private long dataLength;
+
+    /** CRC32 of the payload, or {@code -1} if it is not known. */
+    private long checksum;
+
+    /** Index of the last frame of the payload which has arrived, or {@code -1} if none has. */
+    private long lastFrameIndex = -1;
+
+    /** Number of groups which have been corrected. */
+    private long correctedGroups = 0;
+
+    /** Number of bytes which were corrected. */
+    private long correctedBytes = 0;
+
+    /** Number of codewords which had too many errors to be corrected. */
+    private long uncorrectableCodewords = 0;
+
+    /**
+     * The results of correcting a video.
+     *
+     * @param dataLength Number of bytes of data in the payload.
+     * @param checksum CRC32 of the payload, or {@code -1} if it is not known.
+     * @param correctedBytes Number of bytes which were corrected.
+     */
+    public record Result(long dataLength, long checksum, long correctedBytes) {}
+
+    /**
+     * A group of interleaved codewords, whose frames are being gathered.
+     *
+     * @param buffer Data of the group's frames, frame after frame.
+     * @param receivedFrames Offsets, within the group, of the frames which have arrived.
+     */
+    private record Group(byte[] buffer, BitSet receivedFrames) {}
+
+    /**
+     * Constructs a new {@code ErrorCorrector}.
+     *
+     * @param errorCorrection Level of error correction, which must not be {@link ErrorCorrection#NONE}.
+     * @param bytesPerFrame Number of bytes of data held by each frame.
+     * @param header Header of the video, whose payload length and checksum are used until the trailer frame arrives.
+     * @param outputChannel Channel to write the corrected data to, starting at position zero.
+     *
+     * @throws IllegalArgumentException If {@code errorCorrection} is {@code NONE}, or if {@code bytesPerFrame} is less
+     *                                  than one.
+     */
+    public ErrorCorrector(final @NonNull ErrorCorrection errorCorrection, final int bytesPerFrame, final @NonNull VideoHeader header, final @NonNull FileChannel outputChannel) {
+        if (errorCorrection == ErrorCorrection.NONE) {
+            throw new IllegalArgumentException("There is no error correction to remove.");
+        }
+
+        if (bytesPerFrame < 1) {
+            throw new IllegalArgumentException("The number of bytes per frame cannot be < 1.");
+        }
+
+        this.reedSolomon = new ReedSolomon(errorCorrection.paritySymbols);
+        this.errorCorrection = errorCorrection;
+        this.bytesPerFrame = bytesPerFrame;
+        this.outputChannel = outputChannel;
+        this.dataLength = header.payloadLength();
+        this.checksum = header.checksum();
+    }
+
+    /**
+     * Receives the data of a decoded frame, and corrects any groups which it completes. This may be called by several
+     * threads at once.
+     *
+     * @param frameIndex Index of the frame, where the first frame of the payload is zero.
+     * @param frameData Data of the frame, which is copied before this returns.
+     *
+     * @throws IOException If an I/O exception occurs while writing the corrected data.
+     */
+    public void accept(final long frameIndex, final byte @NonNull [] frameData) throws IOException {
+        final List<Map.Entry<Long, Group>> completedGroups;
+        synchronized (this) {
+            if (dataLength >= 0 && frameIndex >= getPayloadFrames()) {
+                // The header of a video whose archive was encoded from a file only holds its length, so the checksum
+                // is always taken from the trailer frame. Any frames after it are ignored.
+                if (frameIndex == getPayloadFrames()) {
+                    VideoHeader.readTrailer(frameData)
+                               .filter(trailer -> trailer.payloadLength() == dataLength)
+                               .ifPresent(trailer -> checksum = trailer.checksum());
+                }
+                return;
+            }
+
+            final var trailer = dataLength < 0 ? VideoHeader.readTrailer(frameData) : Optional.<VideoHeader>empty();
+            if (trailer.isPresent() && trailer.get().payloadLength() >= 0) {
+                dataLength = trailer.get().payloadLength();
+                checksum = trailer.get().checksum();
+            } else {
+                final var groupIndex = frameIndex / FRAMES_PER_GROUP;
+                final var frameOffset = (int) (frameIndex % FRAMES_PER_GROUP);
+                final var group = groups.computeIfAbsent(groupIndex, index -> new Group(allocateBuffer(), new BitSet(FRAMES_PER_GROUP)));
+                System.arraycopy(frameData, 0, group.buffer(), frameOffset * bytesPerFrame, bytesPerFrame);
+                group.receivedFrames().set(frameOffset);
+                lastFrameIndex = Math.max(lastFrameIndex, frameIndex);
+            }
+
+            completedGroups = takeCompletedGroups();
+        }
+
+        // The groups are corrected without holding the lock, so that the other workers can continue.
+        correctGroups(completedGroups);
+    }
+
+    /**
+     * Corrects any groups which remain, once every frame has been decoded, and ensures that every codeword of every
+     * group was corrected.
+     *
+     * @return The results.
+     *
+     * @throws IOException If an I/O exception occurs, if the payload's length is unknown, if any of the payload's
+     *                     frames did not arrive, or if any codeword had too many errors to be corrected.
+     */
+    public Result finish() throws IOException {
+        final List<Map.Entry<Long, Group>> completedGroups;
+        synchronized (this) {
+            if (dataLength < 0) {
+                throw new IOException("The length of the archive is unknown, so its error correction cannot be removed.");
+            }
+
+            completedGroups = takeCompletedGroups();
+        }
+
+        correctGroups(completedGroups);
+
+        synchronized (this) {
+            final var expectedGroups = Math.ceilDiv(dataLength, (long) errorCorrection.getDataSymbols() * bytesPerFrame);
+            if (correctedGroups != expectedGroups) {
+                throw new IOException("Only " + correctedGroups + " of the archive's " + expectedGroups + " groups of codewords were decoded. The video may be missing frames.");
+            }
+
+            if (uncorrectableCodewords > 0) {
+                throw new IOException(uncorrectableCodewords + " codewords had too many errors to be corrected, so the decoded archive is corrupt.");
+            }
+
+            return new Result(dataLength, checksum, correctedBytes);
+        }
+    }
+
+    /**
+     * Removes every group which has all of its frames, and is known to be complete, from {@code groups}. Once the
+     * payload's length is known, groups which only hold frames after the payload are discarded. The caller must hold
+     * the lock.
+     *
+     * @return The completed groups, with their indices.
+     */
+    private List<Map.Entry<Long, Group>> takeCompletedGroups() {
+        final var completedGroups = new ArrayList<Map.Entry<Long, Group>>();
+        for (final var iterator = groups.entrySet().iterator() ; iterator.hasNext() ; ) {
+            final var entry = iterator.next();
+            final var groupIndex = entry.getKey();
+            final var receivedFrames = entry.getValue().receivedFrames();
+
+            // Without the payload's length, a group is only known to be full once a frame after it has arrived.
+            final boolean complete;
+            if (dataLength >= 0) {
+                if (groupIndex * FRAMES_PER_GROUP >= getPayloadFrames()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                complete = receivedFrames.nextClearBit(0) >= getFrameCount(groupIndex);
+            } else {
+                complete = receivedFrames.cardinality() == FRAMES_PER_GROUP && lastFrameIndex >= (groupIndex + 1) * FRAMES_PER_GROUP;
+            }
+
+            if (complete) {
+                completedGroups.add(Map.entry(groupIndex, entry.getValue()));
+                iterator.remove();
+            }
+        }
+        return completedGroups;
+    }
+
+    /**
+     * Corrects groups, and writes their data to its final position.
+     *
+     * @param completedGroups The groups, with their indices.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void correctGroups(final List<Map.Entry<Long, Group>> completedGroups) throws IOException {
+        for (final var entry : completedGroups) {
+            correctGroup(entry.getKey(), entry.getValue().buffer());
+        }
+    }
+
+    /**
+     * Corrects a group, and writes its data to its final position.
+     *
+     * @param groupIndex Index of the group.
+     * @param buffer Data of the group's frames.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void correctGroup(final long groupIndex, final byte[] buffer) throws IOException {
+        final var dataSymbols = errorCorrection.getDataSymbols();
+        final long groupDataLength = (long) dataSymbols * bytesPerFrame;
+        final var position = groupIndex * groupDataLength;
+
+        // A group is only corrected before the payload's length is known if it is full.
+        final int groupDataSymbols;
+        final long dataLength;
+        synchronized (this) {
+            dataLength = this.dataLength;
+            groupDataSymbols = dataLength < 0 ? dataSymbols : getDataSymbols(groupIndex);
+        }
+
+        // The removed bytes of a shortened codeword are zero, and were not written.
+        final var shortening = dataSymbols - groupDataSymbols;
+        final var rows = groupDataSymbols + errorCorrection.paritySymbols;
+
+        final var data = new byte[groupDataSymbols * bytesPerFrame];
+        final var codeword = new byte[ErrorCorrection.CODEWORD_LENGTH];
+        long corrected = 0;
+        long uncorrectable = 0;
+        for (int i = 0 ; i < bytesPerFrame ; i++) {
+            Arrays.fill(codeword, 0, shortening, (byte) 0);
+            for (int j = 0 ; j < rows ; j++) {
+                codeword[shortening + j] = buffer[(j * bytesPerFrame) + i];
+            }
+
+            final var result = reedSolomon.decode(codeword);
+            if (result < 0 || !isZero(codeword, shortening)) {
+                // A correction of one of the removed bytes means that the codeword had too many errors.
+                uncorrectable++;
+            } else {
+                corrected += result;
+            }
+
+            System.arraycopy(codeword, shortening, data, i * groupDataSymbols, groupDataSymbols);
+        }
+
+        final var length = dataLength < 0 ? data.length : (int) Math.min(data.length, dataLength - position);
+        final var dataBuffer = ByteBuffer.wrap(data, 0, length);
+        while (dataBuffer.hasRemaining()) {
+            outputChannel.write(dataBuffer, position + dataBuffer.position());
+        }
+
+        synchronized (this) {
+            correctedGroups++;
+            correctedBytes += corrected;
+            uncorrectableCodewords += uncorrectable;
+            freeBuffers.add(buffer);
+        }
+    }
+
+    /**
+     * Calculates the number of frames which hold the payload and its error correction. The payload's length must be
+     * known, and the caller must hold the lock.
+     *
+     * @return The number of frames.
+     */
+    private long getPayloadFrames() {
+        return Math.ceilDiv(errorCorrection.getEncodedLength(dataLength, bytesPerFrame), bytesPerFrame);
+    }
+
+    /**
+     * Calculates the number of data bytes in each codeword of a group, which is less than the usual number if the
+     * group is the final one and its codewords were shortened. The payload's length must be known, and the caller must
+     * hold the lock.
+     *
+     * @param groupIndex Index of the group.
+     * @return The number of data bytes.
+     */
+    private int getDataSymbols(final long groupIndex) {
+        final var dataSymbols = errorCorrection.getDataSymbols();
+        final var remaining = dataLength - (groupIndex * dataSymbols * (long) bytesPerFrame);
+        return (int) Math.min(dataSymbols, Math.ceilDiv(remaining, bytesPerFrame));
+    }
+
+    /**
+     * Calculates the number of frames filled by a group. The payload's length must be known, and the caller must hold
+     * the lock.
+     *
+     * @param groupIndex Index of the group.
+     * @return The number of frames.
+     */
+    private long getFrameCount(final long groupIndex) {
+        return getDataSymbols(groupIndex) + errorCorrection.paritySymbols;
+    }
+
+    /**
+     * Determines whether the start of a codeword is zero.
+     *
+     * @param codeword The codeword.
+     * @param length Number of bytes, from the start of the codeword, to check.
+     * @return Whether every byte is zero.
+     */
+    private static boolean isZero(final byte[] codeword, final int length) {
+        for (int i = 0 ; i < length ; i++) {
+            if (codeword[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves a free group buffer, or allocates a new one. The caller must hold the lock.
+     *
+     * @return The buffer.
+     */
+    private byte[] allocateBuffer() {
+        final var buffer = freeBuffers.poll();
+        return buffer == null ? new byte[FRAMES_PER_GROUP * bytesPerFrame] : buffer;
+    }
+}
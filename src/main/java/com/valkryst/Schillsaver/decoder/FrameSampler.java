@@ -0,0 +1,139 @@
+package com.valkryst.Schillsaver.decoder;
+
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ *     Recovers the bits from full-resolution, 8-bit grayscale, frames which were drawn by the
+ *     {@link com.valkryst.Schillsaver.encoder.FrameRenderer}.
+ * </p>
+ *
+ * <p>
+ *     Lossy video codecs smear the edges of each block into its neighbours, so only the interior of each block is
+ *     sampled. The interior pixels are averaged and thresholded at mid-gray, which is far more tolerant of compression
+ *     artifacts than scaling the frame down and dithering it to 1 bit per pixel.
+ * </p>
+ *
+ * <p>
+ *     The interior rows of each block row are first summed into a per-pixel-column accumulator, with a simple loop
+ *     over the whole row that the JIT compiles to SIMD instructions, and each block's sum is then read from the
+ *     accumulator.
+ * </p>
+ *
+ * <p>Instances are not thread-safe, as they reuse an internal accumulator.</p>
+ */
+public class FrameSampler {
+    /** Frame width, in pixels. */
+    private final int width;
+
+    /** Block width and height, in pixels. */
+    private final int blockSize;
+
+    /** Number of blocks in each row of a frame. */
+    private final int columns;
+
+    /** Number of rows of blocks in a frame. */
+    private final int rows;
+
+    /** Whether each row of blocks begins at a whole byte of the frame's data. */
+    private final boolean paddedRows;
+
+    /** Number of pixels, along each edge of a block, which are not sampled. */
+    private final int margin;
+
+    /** Sum of the interior pixels of a block, at or above which the block is a {@code 1}. */
+    private final int threshold;
+
+    /** Number of pixels in a frame. */
+    @Getter private final int frameSize;
+
+    /** Number of bytes of data stored in a frame. */
+    @Getter private final int bytesPerFrame;
+
+    /** Sum of the sampled pixels in each pixel column of the current block row. */
+    private final int[] columnSums;
+
+    /**
+     * Constructs a new {@code FrameSampler}, whose bits are packed continuously across rows of blocks.
+     *
+     * @param resolution Resolution of the frames.
+     * @param blockSize Size of the block used to draw each bit.
+     */
+    public FrameSampler(final @NonNull FrameResolution resolution, final @NonNull BlockSize blockSize) {
+        this(resolution, blockSize, false);
+    }
+
+    /**
+     * Constructs a new {@code FrameSampler}.
+     *
+     * @param resolution Resolution of the frames.
+     * @param blockSize Size of the block used to draw each bit.
+     * @param paddedRows Whether each row of blocks is padded to a whole number of bytes, as in videos encoded before
+     *                   headers were added. See {@link FrameResolution#getPaddedBytesPerFrame}.
+     */
+    public FrameSampler(final @NonNull FrameResolution resolution, final @NonNull BlockSize blockSize, final boolean paddedRows) {
+        this.width = resolution.width;
+        this.blockSize = blockSize.blockSize;
+        this.columns = resolution.width / blockSize.blockSize;
+        this.rows = resolution.height / blockSize.blockSize;
+        this.paddedRows = paddedRows;
+        this.margin = blockSize.blockSize / 4;
+
+        final var sampledEdge = this.blockSize - (2 * margin);
+        this.threshold = (sampledEdge * sampledEdge * 256) / 2;
+
+        this.frameSize = Math.toIntExact(resolution.pixelCount);
+        this.bytesPerFrame = paddedRows ? resolution.getPaddedBytesPerFrame(blockSize) : resolution.getBytesPerFrame(blockSize);
+        this.columnSums = new int[width];
+    }
+
+    /**
+     * Samples every block of a frame, and packs the resulting bits into the frame's data.
+     *
+     * @param framePixels Pixels of the frame, at least {@link #getFrameSize()} bytes long.
+     * @param frameData Array to write the frame's data to, at least {@link #getBytesPerFrame()} bytes long.
+     */
+    public void sample(final byte @NonNull [] framePixels, final byte @NonNull [] frameData) {
+        Arrays.fill(frameData, 0, bytesPerFrame, (byte) 0);
+
+        final var capacity = (long) bytesPerFrame * 8;
+        final var sampledWidth = columns * blockSize;
+
+        long bitIndex = 0;
+        for (int row = 0 ; row < rows && bitIndex < capacity ; row++) {
+            if (paddedRows) {
+                bitIndex = (long) row * ((columns + 7) / 8) * 8;
+            }
+
+            Arrays.fill(columnSums, 0);
+
+            final var firstPixelRow = (row * blockSize) + margin;
+            final var lastPixelRow = ((row + 1) * blockSize) - margin;
+            for (int y = firstPixelRow ; y < lastPixelRow ; y++) {
+                final var offset = y * width;
+                for (int x = 0 ; x < sampledWidth ; x++) {
+                    columnSums[x] += framePixels[offset + x] & 0xFF;
+                }
+            }
+
+            for (int column = 0 ; column < columns && bitIndex < capacity ; column++, bitIndex++) {
+                final var firstPixelColumn = (column * blockSize) + margin;
+                final var lastPixelColumn = ((column + 1) * blockSize) - margin;
+
+                var sum = 0;
+                for (int x = firstPixelColumn ; x < lastPixelColumn ; x++) {
+                    sum += columnSums[x];
+                }
+
+                if (sum >= threshold) {
+                    frameData[(int) (bitIndex >>> 3)] |= (byte) (0x80 >>> (bitIndex & 7));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.valkryst.Schillsaver.decoder;
+
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Converts raw frames to data on a pool of worker threads.</p>
+ *
+ * <p>
+ *     Frames are read on the calling thread and handed to the workers, each of which samples its frame with its own
+ *     {@link FrameSampler} and writes the frame's data directly to its position in the output file. As every frame
+ *     holds the same number of bytes, the position of a frame's data is known before it has been sampled, so frames
+ *     may finish in any order without any further reassembly.
+ * </p>
+ *
+ * <p>
+ *     Alternatively, the data of each frame can be passed to a {@link FrameConsumer}, on the worker which sampled it,
+ *     so that it can be processed further before it is written.
+ * </p>
+ *
+ * <p>
+ *     At most two frames per worker are in-flight at once, across every range being decoded, and their buffers are
+ *     shared and reused, so memory usage depends on neither the length of the video nor the number of ranges.
+ * </p>
+ */
+public class ParallelFrameDecoder implements AutoCloseable {
+    /** Pool of threads used to sample frames. */
+    private final ExecutorService executorService;
+
+    /** Places for the frames which may be in-flight at once, shared by every range. This bounds memory usage. */
+    private final Semaphore pendingFramePermits;
+
+    /** Pixel buffers of frames which have been decoded, which may be reused. */
+    private final Queue<byte[]> freeFrames = new ConcurrentLinkedQueue<>();
+
+    /** Number of pixels in a frame. */
+    private final int frameSize;
+
+    /** Number of bytes of data stored in a frame. */
+    private final int bytesPerFrame;
+
+    /** Sampler of each worker thread. */
+    private final ThreadLocal<FrameSampler> samplers;
+
+    /** Data buffer of each worker thread. */
+    private final ThreadLocal<byte[]> dataBuffers;
+
+    /** Receives the data of each decoded frame, on the worker threads. */
+    @FunctionalInterface
+    public interface FrameConsumer {
+        /**
+         * Receives the data of a decoded frame. This may be called by several worker threads at once.
+         *
+         * @param frameIndex Index of the frame, where the first frame of the stream is zero.
+         * @param frameData Data of the frame, which is reused once this returns.
+         *
+         * @throws IOException If an I/O exception occurs.
+         */
+        void accept(long frameIndex, byte[] frameData) throws IOException;
+    }
+
+    /**
+     * Constructs a new {@code ParallelFrameDecoder}.
+     *
+     * @param resolution Resolution of the frames.
+     * @param blockSize Size of the block used to draw each bit.
+     * @param paddedRows Whether each row of blocks is padded to a whole number of bytes. See {@link FrameSampler}.
+     * @param threadCount Number of worker threads.
+     *
+     * @throws IllegalArgumentException If {@code threadCount} is less than one.
+     */
+    public ParallelFrameDecoder(final @NonNull FrameResolution resolution, final @NonNull BlockSize blockSize, final boolean paddedRows, final int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count cannot be < 1.");
+        }
+
+        final var threadNumber = new AtomicInteger(0);
+        executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+            final var thread = new Thread(runnable, "Frame Decoder-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        pendingFramePermits = new Semaphore(threadCount * 2);
+        frameSize = Math.toIntExact(resolution.pixelCount);
+        samplers = ThreadLocal.withInitial(() -> new FrameSampler(resolution, blockSize, paddedRows));
+        bytesPerFrame = paddedRows ? resolution.getPaddedBytesPerFrame(blockSize) : resolution.getBytesPerFrame(blockSize);
+        dataBuffers = ThreadLocal.withInitial(() -> new byte[bytesPerFrame]);
+    }
+
+    /**
+     * Decodes all frames from the specified stream, and writes their data to the specified channel.
+     *
+     * <p>A partial frame at the end of the stream is ignored.</p>
+     *
+     * @param inputStream Stream to read raw, 8-bit grayscale, frames from.
+     * @param outputChannel Channel to write the data to, starting at position zero.
+     * @return Number of frames which were decoded.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs.
+     */
+    public long decode(final @NonNull InputStream inputStream, final @NonNull FileChannel outputChannel) throws IOException {
+        return decode(inputStream, outputChannel, 0);
+    }
+
+    /**
+     * Decodes all frames from the specified stream, and writes their data to the specified channel.
+     *
+     * <p>
+     *     This may be called by multiple threads at once, each decoding a different range of a video into a different
+     *     range of the same channel, in which case the worker threads are shared by all of the ranges.
+     * </p>
+     *
+     * <p>A partial frame at the end of the stream is ignored.</p>
+     *
+     * @param inputStream Stream to read raw, 8-bit grayscale, frames from.
+     * @param outputChannel Channel to write the data to.
+     * @param startPosition Position, within the channel, at which to write the data of the first frame.
+     * @return Number of frames which were decoded.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs.
+     */
+    public long decode(final @NonNull InputStream inputStream, final @NonNull FileChannel outputChannel, final long startPosition) throws IOException {
+        return decode(inputStream, writeTo(outputChannel, startPosition));
+    }
+
+    /**
+     * Creates a consumer which writes the data of each frame to its position in a file.
+     *
+     * @param outputChannel Channel to write the data to.
+     * @param startPosition Position, within the channel, at which to write the data of the first frame.
+     * @return The consumer.
+     */
+    public static FrameConsumer writeTo(final @NonNull FileChannel outputChannel, final long startPosition) {
+        return (frameIndex, frameData) -> {
+            final var dataBuffer = ByteBuffer.wrap(frameData);
+            final var position = startPosition + (frameIndex * frameData.length);
+            while (dataBuffer.hasRemaining()) {
+                outputChannel.write(dataBuffer, position + dataBuffer.position());
+            }
+        };
+    }
+
+    /**
+     * Decodes all frames from the specified stream, and passes their data to the specified consumer, which may
+     * receive the frames in any order.
+     *
+     * <p>
+     *     This may be called by multiple threads at once, each decoding a different range of a video, in which case
+     *     the worker threads are shared by all of the ranges.
+     * </p>
+     *
+     * <p>A partial frame at the end of the stream is ignored.</p>
+     *
+     * @param inputStream Stream to read raw, 8-bit grayscale, frames from.
+     * @param frameConsumer Consumer to pass the data of each frame to, on the worker threads.
+     * @return Number of frames which were decoded.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs.
+     */
+    public long decode(final @NonNull InputStream inputStream, final @NonNull FrameConsumer frameConsumer) throws IOException {
+        final var pendingFrames = new ArrayDeque<Future<?>>();
+        final var failed = new AtomicBoolean(false);
+        long frameIndex = 0;
+
+        try {
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Decoding was interrupted.");
+                }
+
+                // Frames which have finished are removed, so that their errors are reported.
+                while (!pendingFrames.isEmpty() && pendingFrames.peek().isDone()) {
+                    awaitFrame(pendingFrames.remove());
+                }
+
+                acquireFrame();
+                final var framePixels = takeFreeFrame();
+                if (inputStream.readNBytes(framePixels, 0, frameSize) < frameSize) {
+                    releaseFrame(framePixels);
+                    break;
+                }
+
+                final var index = frameIndex;
+                pendingFrames.add(executorService.submit(() -> {
+                    try {
+                        // Once a range has failed, its remaining frames are skipped, as its output is unusable.
+                        if (!failed.get()) {
+                            decodeFrame(framePixels, frameConsumer, index);
+                        }
+                    } finally {
+                        releaseFrame(framePixels);
+                    }
+                    return null;
+                }));
+                frameIndex++;
+            }
+
+            while (!pendingFrames.isEmpty()) {
+                awaitFrame(pendingFrames.remove());
+            }
+        } catch (final IOException | RuntimeException e) {
+            failed.set(true);
+
+            // The frames must finish before their buffers can be reused, so they are not cancelled.
+            for (final var future : pendingFrames) {
+                awaitQuietly(future);
+            }
+
+            throw e;
+        }
+
+        return frameIndex;
+    }
+
+    /**
+     * Waits until fewer than the maximum number of frames are in-flight, across every range, and claims a place for
+     * another frame.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     */
+    private void acquireFrame() throws InterruptedIOException {
+        try {
+            pendingFramePermits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decoding was interrupted.");
+        }
+    }
+
+    /**
+     * Retrieves a free pixel buffer, or allocates a new one.
+     *
+     * @return The buffer.
+     */
+    private byte[] takeFreeFrame() {
+        final var framePixels = freeFrames.poll();
+        return framePixels == null ? new byte[frameSize] : framePixels;
+    }
+
+    /**
+     * Returns a frame's pixel buffer to be reused, and releases its place, so that another frame may be read.
+     *
+     * @param framePixels The buffer.
+     */
+    private void releaseFrame(final byte[] framePixels) {
+        freeFrames.add(framePixels);
+        pendingFramePermits.release();
+    }
+
+    /**
+     * Waits for a frame to be decoded.
+     *
+     * @param future The frame.
+     *
+     * @throws InterruptedIOException If the calling thread is interrupted.
+     * @throws IOException If an I/O exception occurs, or if the frame could not be decoded.
+     */
+    private void awaitFrame(final Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decoding was interrupted.");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+
+            throw new IOException("Failed to decode a frame.", e.getCause());
+        }
+    }
+
+    /**
+     * Waits for a frame to finish, even if the calling thread is interrupted, ignoring whether it failed.
+     *
+     * @param future The frame.
+     */
+    private static void awaitQuietly(final Future<?> future) {
+        var interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            } catch (final ExecutionException | CancellationException e) {
+                break;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Samples a single frame, and passes its data to the consumer.
+     *
+     * @param framePixels Pixels of the frame.
+     * @param frameConsumer Consumer to pass the data to.
+     * @param frameIndex Index of the frame within its stream.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void decodeFrame(final byte[] framePixels, final FrameConsumer frameConsumer, final long frameIndex) throws IOException {
+        final var dataBuffer = dataBuffers.get();
+        samplers.get().sample(framePixels, dataBuffer);
+        frameConsumer.accept(frameIndex, dataBuffer);
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,159 @@
+package com.valkryst.Schillsaver.decoder;
+
+import com.valkryst.Schillsaver.ffmpeg.ProcessSupervisor;
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     Uses FFPROBE to find the dimensions of a video, the number of frames in it, and the positions of its
+ *     keyframes.
+ * </p>
+ *
+ * <p>
+ *     Only the video stream's packets are read, without decoding them, so probing is fast even for long videos. The
+ *     encoder writes exactly one frame per packet, at a constant frame rate, so the index of each keyframe can be
+ *     calculated from its timestamp.
+ * </p>
+ *
+ * @param width Width of the video, in pixels.
+ * @param height Height of the video, in pixels.
+ * @param frameRate Frame rate of the video, in frames per second.
+ * @param frameCount Number of frames in the video.
+ * @param keyframes Indices of the video's keyframes, in ascending order.
+ */
+public record VideoProbe(int width, int height, double frameRate, long frameCount, List<Long> keyframes) {
+    /** Maximum time FFPROBE may run for, before it is assumed to have hung and is killed. */
+    private static final Duration PROBE_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * Probes a video.
+     *
+     * @param inputFilePath Path to the video.
+     * @return The probe's results.
+     *
+     * @throws IOException If an I/O exception occurs, or if FFPROBE fails or its output cannot be parsed.
+     */
+    public static VideoProbe probe(final @NonNull Path inputFilePath) throws IOException {
+        final var command = List.of(
+            "ffprobe",
+            "-v", "error",
+            "-select_streams", "v:0",
+            "-show_entries", "stream=width,height,r_frame_rate,start_time:packet=pts_time,flags",
+            "-of", "compact",
+            inputFilePath.toString()
+        );
+
+        final var process = ProcessSupervisor.getInstance().start(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD), PROBE_TIMEOUT);
+
+        int width = 0;
+        int height = 0;
+        double frameRate = 0;
+        double startTime = 0;
+        final var keyframeTimes = new ArrayList<Double>();
+        long frameCount = 0;
+
+        try (
+            final var inputStream = process.getInputStream();
+            final var inputStreamReader = new InputStreamReader(inputStream);
+            final var bufferedReader = new BufferedReader(inputStreamReader)
+        ) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                final var fields = parseFields(line);
+
+                if (line.startsWith("packet|")) {
+                    frameCount++;
+
+                    final var ptsTime = fields.getOrDefault("pts_time", "N/A");
+                    if (fields.getOrDefault("flags", "").startsWith("K") && !ptsTime.equals("N/A")) {
+                        keyframeTimes.add(Double.parseDouble(ptsTime));
+                    }
+                } else if (line.startsWith("stream|")) {
+                    width = Integer.parseInt(fields.getOrDefault("width", "0"));
+                    height = Integer.parseInt(fields.getOrDefault("height", "0"));
+                    frameRate = parseFrameRate(fields.getOrDefault("r_frame_rate", "0/0"));
+
+                    final var startTimeValue = fields.getOrDefault("start_time", "N/A");
+                    startTime = startTimeValue.equals("N/A") ? 0 : Double.parseDouble(startTimeValue);
+                }
+            }
+        } catch (final NumberFormatException e) {
+            ProcessSupervisor.getInstance().kill(process);
+            throw new IOException("Unable to parse the output of FFPROBE.", e);
+        }
+
+        try {
+            final var exitCode = process.waitFor();
+            if (ProcessSupervisor.getInstance().isTimedOut(process)) {
+                throw new IOException("FFPROBE did not finish within " + PROBE_TIMEOUT.toMinutes() + " minutes.");
+            }
+
+            if (exitCode != 0) {
+                throw new IOException("FFPROBE exited with code " + exitCode + ".");
+            }
+        } catch (final InterruptedException e) {
+            ProcessSupervisor.getInstance().kill(process);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for FFPROBE.", e);
+        }
+
+        if (frameRate <= 0 || frameCount == 0) {
+            throw new IOException("Unable to determine the frame rate or frame count of the video.");
+        }
+
+        final var keyframes = new ArrayList<Long>(keyframeTimes.size());
+        for (final var keyframeTime : keyframeTimes) {
+            keyframes.add(Math.round((keyframeTime - startTime) * frameRate));
+        }
+        keyframes.sort(Long::compare);
+
+        return new VideoProbe(width, height, frameRate, frameCount, List.copyOf(keyframes));
+    }
+
+    /**
+     * Parses the {@code key=value} fields of a line of FFPROBE's compact output.
+     *
+     * @param line The line.
+     * @return The fields.
+     */
+    private static Map<String, String> parseFields(final String line) {
+        final var fields = new HashMap<String, String>();
+        for (final var field : line.split("\\|")) {
+            final var separatorIndex = field.indexOf('=');
+            if (separatorIndex > 0) {
+                fields.put(field.substring(0, separatorIndex), field.substring(separatorIndex + 1));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Parses a frame rate, in FFPROBE's {@code numerator/denominator} format.
+     *
+     * @param value The frame rate.
+     * @return The frame rate, in frames per second, or {@code 0} if it is unknown.
+     */
+    private static double parseFrameRate(final String value) {
+        final var separatorIndex = value.indexOf('/');
+        if (separatorIndex == -1) {
+            return Double.parseDouble(value);
+        }
+
+        final var denominator = Double.parseDouble(value.substring(separatorIndex + 1));
+        if (denominator == 0) {
+            return 0;
+        }
+
+        return Double.parseDouble(value.substring(0, separatorIndex)) / denominator;
+    }
+}
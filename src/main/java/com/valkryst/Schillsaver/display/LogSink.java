@@ -0,0 +1,203 @@
+package com.valkryst.Schillsaver.display;
+
+import lombok.NonNull;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * <p>Appends log messages to a {@link JTextArea}, without flooding the Event Dispatch Thread.</p>
+ *
+ * <p>
+ *     Messages are coalesced on the threads which produce them, and appended to the text area in a single batch at
+ *     most {@link #FLUSHES_PER_SECOND} times per second. Only the most recent {@link #MAX_LINES} lines are kept in the
+ *     text area, so that its memory use is bounded over long jobs. Every message is also spilled to a temporary file,
+ *     which holds the full log for {@link #saveTo(Path)}.
+ * </p>
+ */
+public class LogSink implements Consumer<String> {
+    /** Maximum number of times per second that the pending messages are appended to the text area. */
+    private final static int FLUSHES_PER_SECOND = 30;
+
+    /** Maximum number of lines kept in the text area. */
+    private final static int MAX_LINES = 10_000;
+
+    /**
+     * Maximum number of characters held while waiting for the next flush. If the Event Dispatch Thread falls this far
+     * behind, then the oldest pending characters are dropped, as they would be trimmed from the text area anyway.
+     */
+    private final static int MAX_PENDING_CHARACTERS = 1_000_000;
+
+    /** Text area to append to. */
+    private final JTextArea textArea;
+
+    /** Timer which appends the pending messages to the text area. */
+    private final Timer flushTimer;
+
+    /** Whether the {@code flushTimer} has been started, and has not yet run. */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    /** Messages which have not yet been appended to the text area. Guarded by {@code this}. */
+    private StringBuilder pending = new StringBuilder();
+
+    /** Temporary file which holds the full log, or {@code null} if it could not be created. */
+    private final Path spillFilePath;
+
+    /** Writer for the {@code spillFilePath}, or {@code null} if the file could not be opened. Guarded by {@code this}. */
+    private BufferedWriter spillWriter;
+
+    /**
+     * Constructs a new {@code LogSink}.
+     *
+     * @param textArea Text area to append to.
+     */
+    public LogSink(final @NonNull JTextArea textArea) {
+        this.textArea = textArea;
+
+        flushTimer = new Timer(1000 / FLUSHES_PER_SECOND, e -> flush());
+        flushTimer.setRepeats(false);
+
+        Path path = null;
+        try {
+            path = Files.createTempFile("schillsaver-log-", ".txt");
+            path.toFile().deleteOnExit();
+            spillWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            // The log is still shown, but only the lines in the text area can be saved.
+            spillWriter = null;
+        }
+        spillFilePath = path;
+    }
+
+    /**
+     * Queues a message to be appended to the text area, and spills it to the log file.
+     *
+     * <p>This may be called from any thread.</p>
+     *
+     * @param message The message.
+     */
+    @Override
+    public void accept(final String message) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            pending.append(message);
+
+            if (pending.length() > MAX_PENDING_CHARACTERS) {
+                pending.delete(0, pending.length() - MAX_PENDING_CHARACTERS);
+            }
+
+            if (spillWriter != null) {
+                try {
+                    spillWriter.write(message);
+                } catch (final IOException e) {
+                    closeSpillWriter();
+                }
+            }
+        }
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(flushTimer::restart);
+        }
+    }
+
+    /**
+     * Removes all messages from the text area and the log file.
+     *
+     * <p>This must be called from the Event Dispatch Thread.</p>
+     */
+    public void clear() {
+        synchronized (this) {
+            pending = new StringBuilder();
+
+            if (spillFilePath != null) {
+                closeSpillWriter();
+
+                try {
+                    spillWriter = Files.newBufferedWriter(spillFilePath, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+                } catch (final IOException ignored) {
+                    // The log is still shown, but only the lines in the text area can be saved.
+                }
+            }
+        }
+
+        textArea.setText("");
+    }
+
+    /**
+     * Saves the full log to a file. If the log could not be spilled to disk, then only the lines in the text area are
+     * saved.
+     *
+     * <p>This must be called from the Event Dispatch Thread.</p>
+     *
+     * @param path Path of the file to save to.
+     *
+     * @throws IOException If an I/O error occurs while saving the log.
+     */
+    public void saveTo(final @NonNull Path path) throws IOException {
+        synchronized (this) {
+            if (spillWriter != null) {
+                spillWriter.flush();
+                Files.copy(spillFilePath, path, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+        }
+
+        try (final var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            textArea.write(writer);
+        }
+    }
+
+    /** Appends the pending messages to the text area, and trims the oldest lines from it. */
+    private void flush() {
+        // Cleared before the messages are taken, so that a message queued after they are taken schedules a new flush.
+        flushScheduled.set(false);
+
+        final StringBuilder batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            batch = pending;
+            pending = new StringBuilder();
+        }
+
+        textArea.append(batch.toString());
+
+        final var excessLines = textArea.getLineCount() - MAX_LINES;
+        if (excessLines > 0) {
+            try {
+                textArea.replaceRange("", 0, textArea.getLineEndOffset(excessLines - 1));
+            } catch (final BadLocationException ignored) {
+                // Not possible, as the line is known to exist.
+            }
+        }
+    }
+
+    /** Closes the {@code spillWriter}, if it is open. Must be called while holding the lock on {@code this}. */
+    private void closeSpillWriter() {
+        if (spillWriter == null) {
+            return;
+        }
+
+        try {
+            spillWriter.close();
+        } catch (final IOException ignored) {
+            // The file is only ever read by saveTo, which checks that the writer is still open.
+        }
+
+        spillWriter = null;
+    }
+}
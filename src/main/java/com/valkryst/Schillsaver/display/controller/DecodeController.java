@@ -1,20 +1,26 @@
 package com.valkryst.Schillsaver.display.controller;
 
-import com.valkryst.Schillsaver.decoder.Decoder;
 import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.model.DecodeModel;
-import com.valkryst.Schillsaver.display.model.SettingsTabModel;
+import com.valkryst.Schillsaver.ffmpeg.FfmpegCapabilities;
+import com.valkryst.Schillsaver.job.DecodeJob;
+import com.valkryst.Schillsaver.job.DecodeQueue;
+import com.valkryst.Schillsaver.job.JobStatus;
+import com.valkryst.Schillsaver.setting.Settings;
+import com.valkryst.Schillsaver.setting.SettingsService;
 import com.valkryst.VMVC.controller.Controller;
 import lombok.NonNull;
 
+import javax.swing.*;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.function.Consumer;
 
 public class DecodeController extends Controller<DecodeModel> {
+    /** Queue of files which are being decoded. */
+    private DecodeQueue decodeQueue;
+
     /**
      * Constructs a new {@code DecodeController}.
      *
@@ -24,12 +30,36 @@ public class DecodeController extends Controller<DecodeModel> {
         super(model);
     }
 
-    public void startDecoding(final List<Path> inputPaths, final Runnable enableUi, final Runnable disableUi, final Consumer<String> updateProgress) {
+    /**
+     * Runs a task on the event dispatch thread once FFMPEG has been found. As FFMPEG is found in the background while
+     * the UI is shown, this is used to keep the UI from starting jobs before then.
+     *
+     * @param task The task.
+     */
+    public void whenFfmpegAvailable(final @NonNull Runnable task) {
+        FfmpegCapabilities.checkAvailabilityAsync().thenAccept(available -> {
+            if (available) {
+                SwingUtilities.invokeLater(task);
+            }
+        });
+    }
+
+    /**
+     * Decodes the specified files, several at a time.
+     *
+     * @param inputPaths The files to decode.
+     * @param enableUi Function to enable the UI.
+     * @param disableUi Function to disable the UI.
+     * @param updateProgress Function to display progress update messages.
+     * @param onJobUpdate Function to call whenever the status, or progress, of a file's job changes.
+     */
+    public void startDecoding(final List<Path> inputPaths, final Runnable enableUi, final Runnable disableUi, final Consumer<String> updateProgress, final Consumer<DecodeJob> onJobUpdate) {
         disableUi.run();
 
+        final Settings settings;
         try {
-            final var settings = new SettingsTabModel();
-            settings.validateSettings();
+            settings = SettingsService.getInstance().getSettings();
+            settings.validate();
         } catch (final IllegalStateException e) {
             Display.displayWarning(null, e.getMessage());
             enableUi.run();
@@ -40,50 +70,37 @@ public class DecodeController extends Controller<DecodeModel> {
             return;
         }
 
-        final var listIterator = inputPaths.listIterator();
-        decodeNextFile(listIterator, enableUi, updateProgress);
+        final var queue = new DecodeQueue(inputPaths, settings);
+        queue.setUpdateProgress(updateProgress);
+        queue.setOnJobUpdate(onJobUpdate);
+        queue.setOnJobProgress(onJobUpdate);
+        queue.setOnFinished(() -> {
+            final var jobs = queue.getJobs();
+            final var completed = jobs.stream().filter(job -> job.getStatus() == JobStatus.COMPLETED).count();
+            final var failed = jobs.stream().filter(job -> job.getStatus() == JobStatus.FAILED).count();
+            final var cancelled = jobs.stream().filter(job -> job.getStatus() == JobStatus.CANCELLED).count();
+            updateProgress.accept("Decoded " + completed + " of " + jobs.size() + " files. " + failed + " failed and " + cancelled + " were cancelled.\n");
+
+            enableUi.run();
+        });
+
+        updateProgress.accept("Decoding " + inputPaths.size() + " files, " + queue.getConcurrency() + " at a time.\n");
+        decodeQueue = queue;
+        queue.start();
     }
 
     /**
-     * Decodes the next file in the specified {@link ListIterator}.
+     * Cancels the files which are being decoded, or are waiting to be decoded.
      *
-     * @param listIterator The {@link ListIterator} of files to decode.
      * @param enableUi Function to enable the UI.
-     * @param updateProgress Function to display progress update messages.
      */
-    private void decodeNextFile(final ListIterator<Path> listIterator, final Runnable enableUi, final Consumer<String> updateProgress) {
-        if (!listIterator.hasNext()) {
+    public void stopDecoding(final Runnable enableUi) {
+        if (decodeQueue == null || decodeQueue.isFinished()) {
             enableUi.run();
             return;
         }
 
-        final var inputPath = listIterator.next();
-        final var decoder = new Decoder(inputPath);
-        decoder.setOnCompletion((final Path videoPath) -> {
-            if (decoder.isInterrupted()) {
-                updateProgress.accept("Decoding cancelled.\n");
-            } else {
-                updateProgress.accept("Decoding complete.\n");
-
-                try {
-                    // Move video file to output folder
-                    final var settings = new SettingsTabModel();
-                    Files.createDirectories(settings.getOutputFolderPath());
-                    Files.move(videoPath, settings.getOutputFolderPath().resolve(videoPath.getFileName()));
-                } catch (final IOException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            // Decode the next file in the list
-            decodeNextFile(listIterator, enableUi, updateProgress);
-        });
-        decoder.setOnError((final Exception e) -> updateProgress.accept(e.getMessage() + "\n"));
-        decoder.setUpdateProgress(updateProgress);
-        decoder.start();
-    }
-
-    public void stopDecoding(final Runnable enableUi) {
-        enableUi.run();
+        // The UI is enabled by the queue, once every running job has stopped.
+        decodeQueue.cancel();
     }
 }
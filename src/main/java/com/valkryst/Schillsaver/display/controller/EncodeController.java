@@ -1,21 +1,25 @@
 package com.valkryst.Schillsaver.display.controller;
 
-import com.valkryst.Schillsaver.archiver.Archiver;
-import com.valkryst.Schillsaver.encoder.Encoder;
 import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.model.EncodeModel;
-import com.valkryst.Schillsaver.display.model.SettingsTabModel;
+import com.valkryst.Schillsaver.ffmpeg.FfmpegCapabilities;
+import com.valkryst.Schillsaver.job.EncodeJob;
+import com.valkryst.Schillsaver.job.EncodeScheduler;
+import com.valkryst.Schillsaver.job.JobStatus;
+import com.valkryst.Schillsaver.setting.Settings;
+import com.valkryst.Schillsaver.setting.SettingsService;
 import com.valkryst.VMVC.controller.Controller;
 import lombok.NonNull;
 
+import javax.swing.*;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Consumer;
 
 public class EncodeController extends Controller<EncodeModel> {
-    private Archiver archiver;
+    /** Scheduler of the jobs which are being encoded. */
+    private EncodeScheduler encodeScheduler;
 
     /**
      * Constructs a new {@code EncodeController}.
@@ -26,12 +30,37 @@ public class EncodeController extends Controller<EncodeModel> {
         super(model);
     }
 
-    public void startEncoding(final List<Path> paths, final Runnable enableUi, final Runnable disableUi, final Consumer<String> updateProgress) {
+    /**
+     * Runs a task on the event dispatch thread once FFMPEG has been found. As FFMPEG is found in the background while
+     * the UI is shown, this is used to keep the UI from starting jobs before then.
+     *
+     * @param task The task.
+     */
+    public void whenFfmpegAvailable(final @NonNull Runnable task) {
+        FfmpegCapabilities.checkAvailabilityAsync().thenAccept(available -> {
+            if (available) {
+                SwingUtilities.invokeLater(task);
+            }
+        });
+    }
+
+    /**
+     * Encodes the specified paths, either into a single video or into one video per folder.
+     *
+     * @param paths The paths to encode.
+     * @param videoPerFolder Whether to encode the paths in each folder into their own video.
+     * @param enableUi Function to enable the UI.
+     * @param disableUi Function to disable the UI.
+     * @param updateProgress Function to display progress update messages.
+     * @param onJobUpdate Function to call whenever the status, or progress, of a job changes.
+     */
+    public void startEncoding(final List<Path> paths, final boolean videoPerFolder, final Runnable enableUi, final Runnable disableUi, final Consumer<String> updateProgress, final Consumer<EncodeJob> onJobUpdate) {
         disableUi.run();
 
+        final Settings settings;
         try {
-            final var settings = new SettingsTabModel();
-            settings.validateSettings();
+            settings = SettingsService.getInstance().getSettings();
+            settings.validate();
         } catch (final IllegalStateException e) {
             Display.displayWarning(null, e.getMessage());
             enableUi.run();
@@ -42,54 +71,37 @@ public class EncodeController extends Controller<EncodeModel> {
             return;
         }
 
-        new Thread(() -> {
-            archiver = new Archiver(paths);
-            archiver.setOnCompletion((final Path archivePath) -> {
-                if (archiver.isInterrupted()) {
-                    updateProgress.accept("Encoding cancelled.\n");
-                } else {
-                    updateProgress.accept("Encoding complete.\n\n");
+        final var jobs = EncodeJob.createJobs(paths, videoPerFolder);
+        final var scheduler = new EncodeScheduler(jobs, settings, Runtime.getRuntime().availableProcessors());
+        scheduler.setUpdateProgress(updateProgress);
+        scheduler.setOnJobUpdate(onJobUpdate);
+        scheduler.setOnJobProgress(onJobUpdate);
+        scheduler.setOnFinished(() -> {
+            final var completed = jobs.stream().filter(job -> job.getStatus() == JobStatus.COMPLETED).count();
+            final var failed = jobs.stream().filter(job -> job.getStatus() == JobStatus.FAILED).count();
+            final var cancelled = jobs.stream().filter(job -> job.getStatus() == JobStatus.CANCELLED).count();
+            updateProgress.accept("Encoded " + completed + " of " + jobs.size() + " videos. " + failed + " failed and " + cancelled + " were cancelled.\n");
 
-                    final var encoder = new Encoder(archivePath);
-                    encoder.setOnCompletion((final Path videoPath) -> {
-                        if (encoder.isInterrupted()) {
-                            updateProgress.accept("Encoding cancelled.\n");
-                        } else {
-                            updateProgress.accept("Encoding complete.\n");
-
-                            try {
-                                Files.deleteIfExists(archivePath);
-
-                                // Move video file to output folder
-                                final var settings = new SettingsTabModel();
-                                Files.createDirectories(settings.getOutputFolderPath());
-                                Files.move(videoPath, settings.getOutputFolderPath().resolve(videoPath.getFileName()));
-                            } catch (final IOException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-
-                        enableUi.run();
-                    });
-                    encoder.setOnError((final Exception e) -> updateProgress.accept(e.getMessage() + "\n"));
-                    encoder.setUpdateProgress(updateProgress);
-                    encoder.start();
-                }
+            enableUi.run();
+        });
 
-                enableUi.run();
-            });
-            archiver.setOnError((final Exception e) -> updateProgress.accept(e.getMessage() + "\n"));
-            archiver.setUpdateProgress(updateProgress);
-            archiver.start();
-        }).start();
+        updateProgress.accept("Encoding " + jobs.size() + " videos, " + scheduler.getEncodeSlots() + " at a time.\n");
+        encodeScheduler = scheduler;
+        scheduler.start();
     }
 
+    /**
+     * Cancels the jobs which are being encoded, or are waiting to be encoded.
+     *
+     * @param enableUi Function to enable the UI.
+     */
     public void stopEncoding(final Runnable enableUi) {
-        if (archiver == null) {
+        if (encodeScheduler == null || encodeScheduler.isFinished()) {
             enableUi.run();
             return;
         }
 
-        archiver.interrupt();
+        // The UI is enabled by the scheduler, once every running job has stopped.
+        encodeScheduler.cancel();
     }
 }
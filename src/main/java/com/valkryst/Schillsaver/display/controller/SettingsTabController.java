@@ -4,6 +4,8 @@ import com.valkryst.Schillsaver.setting.FrameRate;
 import com.valkryst.Schillsaver.setting.FrameResolution;
 import com.valkryst.Schillsaver.display.model.SettingsTabModel;
 import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
 import com.valkryst.Schillsaver.setting.SwingTheme;
 import com.valkryst.VMVC.controller.Controller;
 import lombok.NonNull;
@@ -30,6 +32,15 @@ public class SettingsTabController extends Controller<SettingsTabModel> {
         return model.getOutputFolderPath();
     }
 
+    /**
+     * Retrieves the path to the scratch folder.
+     *
+     * @return The path to the scratch folder, or an empty path if the system's temporary folder is used.
+     */
+    public Path getScratchFolderPath() {
+        return model.getScratchFolderPath();
+    }
+
     /**
      * Retrieves the block size.
      *
@@ -66,6 +77,51 @@ public class SettingsTabController extends Controller<SettingsTabModel> {
         return model.getFramerate();
     }
 
+    /**
+     * Retrieves the compression codec.
+     *
+     * @return The compression codec.
+     */
+    public CompressionCodec getCompressionCodec() {
+        return model.getCompressionCodec();
+    }
+
+    /**
+     * Retrieves the level of error correction.
+     *
+     * @return The level of error correction.
+     */
+    public ErrorCorrection getErrorCorrection() {
+        return model.getErrorCorrection();
+    }
+
+    /**
+     * Retrieves whether the archive is streamed directly into FFMPEG.
+     *
+     * @return Whether the archive is streamed directly into FFMPEG.
+     */
+    public boolean isStreamingEncode() {
+        return model.isStreamingEncode();
+    }
+
+    /**
+     * Retrieves the number of segments the archive is split into when encoding.
+     *
+     * @return The number of segments.
+     */
+    public int getEncodeSegments() {
+        return model.getEncodeSegments();
+    }
+
+    /**
+     * Retrieves the number of threads each FFMPEG process may use.
+     *
+     * @return The number of threads, or {@code 0} if FFMPEG decides.
+     */
+    public int getFfmpegThreads() {
+        return model.getFfmpegThreads();
+    }
+
     /**
      * Retrieves the Swing theme.
      *
@@ -87,6 +143,17 @@ public class SettingsTabController extends Controller<SettingsTabModel> {
         model.save();
     }
 
+    /**
+     * Sets the path to the scratch folder.
+     *
+     * @param path The new path, or an empty path to use the system's temporary folder.
+     * @throws IOException If an IO error occurs.
+     */
+    public void setScratchFolderPath(final @NonNull Path path) throws IOException {
+        model.setScratchFolderPath(path);
+        model.save();
+    }
+
     /**
      * Sets the block size.
      *
@@ -131,6 +198,61 @@ public class SettingsTabController extends Controller<SettingsTabModel> {
         model.save();
     }
 
+    /**
+     * Sets the compression codec.
+     *
+     * @param compressionCodec The new compression codec.
+     * @throws IOException If an IO error occurs.
+     */
+    public void setCompressionCodec(final @NonNull CompressionCodec compressionCodec) throws IOException {
+        model.setCompressionCodec(compressionCodec);
+        model.save();
+    }
+
+    /**
+     * Sets the level of error correction.
+     *
+     * @param errorCorrection The new level of error correction.
+     * @throws IOException If an IO error occurs.
+     */
+    public void setErrorCorrection(final @NonNull ErrorCorrection errorCorrection) throws IOException {
+        model.setErrorCorrection(errorCorrection);
+        model.save();
+    }
+
+    /**
+     * Sets whether the archive is streamed directly into FFMPEG.
+     *
+     * @param streamingEncode Whether to stream the archive directly into FFMPEG.
+     * @throws IOException If an IO error occurs.
+     */
+    public void setStreamingEncode(final boolean streamingEncode) throws IOException {
+        model.setStreamingEncode(streamingEncode);
+        model.save();
+    }
+
+    /**
+     * Sets the number of segments the archive is split into when encoding.
+     *
+     * @param encodeSegments The new number of segments.
+     * @throws IOException If an IO error occurs.
+     */
+    public void setEncodeSegments(final int encodeSegments) throws IOException {
+        model.setEncodeSegments(encodeSegments);
+        model.save();
+    }
+
+    /**
+     * Sets the number of threads each FFMPEG process may use.
+     *
+     * @param ffmpegThreads The new number of threads, or {@code 0} to let FFMPEG decide.
+     * @throws IOException If an IO error occurs.
+     */
+    public void setFfmpegThreads(final int ffmpegThreads) throws IOException {
+        model.setFfmpegThreads(ffmpegThreads);
+        model.save();
+    }
+
     /**
      * Sets the Swing theme.
      *
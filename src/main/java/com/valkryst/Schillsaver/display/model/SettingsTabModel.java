@@ -1,14 +1,16 @@
 package com.valkryst.Schillsaver.display.model;
 
 import com.google.gson.JsonObject;
-import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.controller.SettingsTabController;
 import com.valkryst.Schillsaver.display.view.SettingsTabView;
 import com.valkryst.Schillsaver.io.FileIO;
-import com.valkryst.Schillsaver.io.FolderIO;
 import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
 import com.valkryst.Schillsaver.setting.FrameRate;
 import com.valkryst.Schillsaver.setting.FrameResolution;
+import com.valkryst.Schillsaver.setting.Settings;
+import com.valkryst.Schillsaver.setting.SettingsService;
 import com.valkryst.Schillsaver.setting.SwingTheme;
 import com.valkryst.VMVC.model.Model;
 import lombok.Getter;
@@ -21,12 +23,12 @@ import java.nio.file.Path;
 
 @Getter
 public class SettingsTabModel extends Model<SettingsTabController, SettingsTabView> {
-    /** The path to the settings file. */
-    private static final Path FILE_PATH = FileIO.getFilePath(FolderIO.getFolderPath("Settings"), "settings.json");
-
     /** Path to output folder. */
     @Setter private Path outputFolderPath = Path.of("");
 
+    /** Path to the folder for intermediate files, or an empty path to use the system's temporary folder. */
+    @Setter private Path scratchFolderPath = Path.of("");
+
     /** Encoding codec. */
     @Setter private String codec = "libx264";
 
@@ -39,6 +41,21 @@ public class SettingsTabModel extends Model<SettingsTabController, SettingsTabVi
     /** Video block size. */
     @Setter private BlockSize blockSize = BlockSize.S6;
 
+    /** Codec used to compress the archive. */
+    @Setter private CompressionCodec compressionCodec = CompressionCodec.DEFLATE;
+
+    /** Level of error correction to add to the archive before it is encoded. */
+    @Setter private ErrorCorrection errorCorrection = ErrorCorrection.NONE;
+
+    /** Whether to stream the archive directly into FFMPEG, rather than writing it to a temporary file first. */
+    @Setter private boolean streamingEncode = true;
+
+    /** Number of segments to split the archive into, each of which is encoded by its own FFMPEG process. */
+    @Setter private int encodeSegments = 1;
+
+    /** Number of threads each FFMPEG process may use, or {@code 0} to let FFMPEG decide. */
+    @Setter private int ffmpegThreads = 0;
+
     /** Swing theme to use. */
     @Setter private SwingTheme swingTheme = SwingTheme.DARK;
 
@@ -69,65 +86,62 @@ public class SettingsTabModel extends Model<SettingsTabController, SettingsTabVi
     public void save() throws IOException {
         final var json = new JsonObject();
         json.addProperty("outputFolderPath", outputFolderPath.toString());
+        json.addProperty("scratchFolderPath", scratchFolderPath.toString());
         json.addProperty("codec", codec);
         json.addProperty("resolution", resolution.name());
         json.addProperty("framerate", framerate.name());
         json.addProperty("blockSize", blockSize.name());
+        json.addProperty("compressionCodec", compressionCodec.name());
+        json.addProperty("errorCorrection", errorCorrection.name());
+        json.addProperty("streamingEncode", streamingEncode);
+        json.addProperty("encodeSegments", encodeSegments);
+        json.addProperty("ffmpegThreads", ffmpegThreads);
         json.addProperty("theme", swingTheme.name());
 
-        FileIO.saveJsonToDisk(FILE_PATH, json);
+        FileIO.saveJsonToDisk(SettingsService.FILE_PATH, json);
+        SettingsService.getInstance().publish(toSettings());
     }
 
+    /**
+     * Loads the settings from disk, or saves the default settings if there is no settings file.
+     *
+     * @throws IOException If an I/O exception occurs while loading the settings, or if a setting is invalid.
+     */
     public void load() throws IOException {
-        if (Files.notExists(FILE_PATH)) {
+        if (Files.notExists(SettingsService.FILE_PATH)) {
             save();
-        }
-
-        if (!this.isFfmpegAvailable()) {
-            Display.displayWarning(null, "FFmpeg is not installed or not available in the PATH. Please install FFmpeg to use this application.");
             return;
         }
 
-        final var json = FileIO.loadJsonFromDisk(FILE_PATH);
+        final var json = FileIO.loadJsonFromDisk(SettingsService.FILE_PATH);
+        final var settings = SettingsService.parse(json);
+
+        outputFolderPath = settings.outputFolderPath();
+        scratchFolderPath = settings.scratchFolderPath();
+        codec = settings.codec();
+        resolution = settings.resolution();
+        framerate = settings.framerate();
+        blockSize = settings.blockSize();
+        compressionCodec = settings.compressionCodec();
+        errorCorrection = settings.errorCorrection();
+        streamingEncode = settings.streamingEncode();
+        encodeSegments = settings.encodeSegments();
+        ffmpegThreads = settings.ffmpegThreads();
 
-        outputFolderPath = Path.of(loadSetting(json, "outputFolderPath", ""));
-        codec = loadSetting(json, "codec", "libx264");
-        resolution = FrameResolution.valueOf(loadSetting(json, "resolution", FrameResolution.P1080.name()));
-        framerate = FrameRate.valueOf(loadSetting(json, "framerate", FrameRate.FPS_30.name()));
-        blockSize = BlockSize.valueOf(loadSetting(json, "blockSize", BlockSize.S6.name()));
-        swingTheme = SwingTheme.valueOf(loadSetting(json, "theme", SwingTheme.DARK.name()));
-
-        save();
-    }
-
-    private String loadSetting(final @NonNull JsonObject json, final @NonNull String key, final @NonNull String defaultValue) {
-        final var element = json.get(key);
-        final var value = element == null ? "" : element.getAsString();
-        return value.isEmpty() ? defaultValue : value;
-    }
-
-    /**
-     * Attempts to validate the settings and throws an exception, with a descriptive message, if a setting is invalid.
-     *
-     * @throws IllegalStateException If a setting is invalid.
-     */
-    public void validateSettings() throws IllegalStateException {
-        if (outputFolderPath == null || outputFolderPath.toString().isBlank()) {
-            throw new IllegalStateException("The path to the output folder is blank. Please select it in the Settings menu.");
+        try {
+            swingTheme = SwingTheme.valueOf(SettingsService.getString(json, "theme", SwingTheme.DARK.name()));
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("The settings file contains an invalid value: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Attempts to determine whether FFmpeg is available in the system PATH.
+     * Creates an immutable snapshot of the settings used to archive, encode, and decode.
      *
-     * @return Whether FFmpeg is available in the system PATH.
+     * @return The snapshot.
      */
-    private boolean isFfmpegAvailable() {
-        try {
-            final var process = new ProcessBuilder("ffmpeg", "-version").start();
-            return process.waitFor() == 0;
-        } catch (final IOException | InterruptedException e) {
-            return false;
-        }
+    public Settings toSettings() {
+        return new Settings(outputFolderPath, scratchFolderPath, codec, resolution, framerate, blockSize, compressionCodec, errorCorrection, streamingEncode, encodeSegments, ffmpegThreads);
     }
+
 }
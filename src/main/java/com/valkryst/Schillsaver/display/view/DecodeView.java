@@ -3,6 +3,9 @@ package com.valkryst.Schillsaver.display.view;
 import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.controller.DecodeController;
 import com.valkryst.Schillsaver.display.model.TextOutputModel;
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import com.valkryst.Schillsaver.job.DecodeJob;
+import com.valkryst.Schillsaver.job.JobStatus;
 import com.valkryst.JPathList.JPathList;
 import com.valkryst.VMVC.view.View;
 import lombok.NonNull;
@@ -13,13 +16,28 @@ import javax.swing.event.ListDataListener;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DecodeView extends View<DecodeController> {
     private final JPathList pathList = new JPathList();
 
     private final TextOutputView outputView = new TextOutputModel().createView();
 
+    /** Status of each file which is being decoded. */
+    private final Map<Path, JobStatus> jobStatuses = new ConcurrentHashMap<>();
+
+    /** Whether FFMPEG has been found. Jobs cannot be started until it has. */
+    private boolean ffmpegAvailable = false;
+
+    /** Shows how many of the files have finished decoding. */
+    private final JProgressBar progressBar = new JProgressBar();
+
+    /** Latest progress of each running job, by the path of its file. */
+    private final Map<Path, ProgressEvent> jobProgress = new ConcurrentHashMap<>();
+
     /**
      * Constructs a new {@code DecodeView}.
      *
@@ -35,9 +53,13 @@ public class DecodeView extends View<DecodeController> {
         splitPane.setTopComponent(getPathListPanel());
         splitPane.setBottomComponent(outputView);
 
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
         this.setLayout(new BorderLayout());
         super.add(getButtonsPanel(), BorderLayout.NORTH);
         super.add(splitPane, BorderLayout.CENTER);
+        super.add(progressBar, BorderLayout.SOUTH);
     }
 
     public JPanel getButtonsPanel() {
@@ -46,7 +68,8 @@ public class DecodeView extends View<DecodeController> {
         final var removeAllFilesButton = getRemoveAllFilesButton();
 
         final var decodeButton = new JToggleButton("Start Decoding");
-        decodeButton.setEnabled(false); // Disabled until a path is added.
+        decodeButton.setEnabled(false); // Disabled until a path is added, and FFMPEG has been found.
+        decodeButton.setToolTipText("Waiting for FFmpeg to be found.");
         decodeButton.addActionListener(e -> {
             final var enableUi = new Runnable() {
                 @Override
@@ -79,7 +102,15 @@ public class DecodeView extends View<DecodeController> {
 
             if (decodeButton.isSelected()) {
                 outputView.clearText();
-                controller.startDecoding(pathList.getPaths(), enableUi, disableUi, outputView.getAppendTextConsumer());
+                jobStatuses.clear();
+                jobProgress.clear();
+
+                final var paths = pathList.getPaths();
+                progressBar.setMaximum(paths.size() * 100);
+                progressBar.setValue(0);
+                progressBar.setString("0 of " + paths.size() + " files decoded");
+
+                controller.startDecoding(paths, enableUi, disableUi, outputView.getAppendTextConsumer(), this::updateJobStatus);
             } else {
                 controller.stopDecoding(enableUi);
             }
@@ -89,20 +120,26 @@ public class DecodeView extends View<DecodeController> {
         pathList.getModel().addListDataListener(new ListDataListener() {
             @Override
             public void intervalAdded(final ListDataEvent e) {
-                decodeButton.setEnabled(true);
+                decodeButton.setEnabled(ffmpegAvailable);
             }
 
             @Override
             public void intervalRemoved(final ListDataEvent e) {
-                decodeButton.setEnabled(pathList.getModel().getSize() > 0);
+                decodeButton.setEnabled(ffmpegAvailable && pathList.getModel().getSize() > 0);
             }
 
             @Override
             public void contentsChanged(final ListDataEvent e) {
-                decodeButton.setEnabled(pathList.getModel().getSize() > 0);
+                decodeButton.setEnabled(ffmpegAvailable && pathList.getModel().getSize() > 0);
             }
         });
 
+        controller.whenFfmpegAvailable(() -> {
+            ffmpegAvailable = true;
+            decodeButton.setEnabled(pathList.getModel().getSize() > 0);
+            decodeButton.setToolTipText(null);
+        });
+
         final var leftPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         leftPanel.add(addFilesButton);
         leftPanel.add(removeSelectedFilesButton);
@@ -117,6 +154,40 @@ public class DecodeView extends View<DecodeController> {
         return panel;
     }
 
+    /**
+     * Displays the current status of a file's job, and updates the overall progress.
+     *
+     * <p>Each file fills an equal share of the progress bar, so a running job's share is filled as it is decoded.</p>
+     *
+     * @param job The job.
+     */
+    private void updateJobStatus(final @NonNull DecodeJob job) {
+        final var status = job.getStatus();
+        final var progress = job.getProgress();
+
+        SwingUtilities.invokeLater(() -> {
+            jobStatuses.put(job.getInputPath(), status);
+            pathList.repaint();
+
+            if (progress == null || status.isFinished()) {
+                jobProgress.remove(job.getInputPath());
+            } else {
+                jobProgress.put(job.getInputPath(), progress);
+            }
+
+            final var finished = jobStatuses.values().stream().filter(JobStatus::isFinished).count();
+            final var failed = jobStatuses.values().stream().filter(s -> s == JobStatus.FAILED).count();
+            final var runningProgress = jobProgress.values().stream().mapToDouble(p -> p.percentComplete().orElse(0)).sum();
+            progressBar.setValue((int) (finished * 100 + runningProgress));
+
+            var text = finished + " of " + (progressBar.getMaximum() / 100) + " files decoded" + (failed > 0 ? ", " + failed + " failed" : "");
+            if (jobProgress.containsKey(job.getInputPath())) {
+                text += " | " + job.getInputPath().getFileName() + ": " + progress.describe();
+            }
+            progressBar.setString(text);
+        });
+    }
+
     private JButton getAddFilesButton() {
         final var button = new JButton("Add Files");
         button.addActionListener(e -> {
@@ -189,6 +260,12 @@ public class DecodeView extends View<DecodeController> {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
                 Component c = super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+
+                final var status = value == null ? null : jobStatuses.get(value);
+                if (status != null) {
+                    setText(status + " - " + value);
+                }
+
                 if (index % 2 == 0) {
                     c.setBackground(UIManager.getColor("List.background").darker());
                 } else {
@@ -3,6 +3,9 @@ package com.valkryst.Schillsaver.display.view;
 import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.controller.EncodeController;
 import com.valkryst.Schillsaver.display.model.TextOutputModel;
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import com.valkryst.Schillsaver.job.EncodeJob;
+import com.valkryst.Schillsaver.job.JobStatus;
 import com.valkryst.JPathList.JPathList;
 import com.valkryst.VMVC.view.View;
 import lombok.NonNull;
@@ -13,13 +16,34 @@ import javax.swing.event.ListDataListener;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EncodeView extends View<EncodeController> {
     private final JPathList pathList = new JPathList();
 
     private final TextOutputView outputView = new TextOutputModel().createView();
 
+    /** Status of each path which is being encoded. */
+    private final Map<Path, JobStatus> jobStatuses = new ConcurrentHashMap<>();
+
+    /** Status of each job, by name. */
+    private final Map<String, JobStatus> jobStatusesByName = new ConcurrentHashMap<>();
+
+    /** Latest progress of each running job, by name. */
+    private final Map<String, ProgressEvent> jobProgress = new ConcurrentHashMap<>();
+
+    /** Shows how many of the videos have finished encoding, and the progress of the running jobs. */
+    private final JProgressBar progressBar = new JProgressBar();
+
+    /** Whether FFMPEG has been found. Jobs cannot be started until it has. */
+    private boolean ffmpegAvailable = false;
+
+    /** Whether to encode the paths in each folder into their own video. */
+    private final JCheckBox videoPerFolderCheckBox = new JCheckBox("One video per folder");
+
     /**
      * Constructs a new {@code EncodeView}.
      *
@@ -35,9 +59,13 @@ public class EncodeView extends View<EncodeController> {
         splitPane.setTopComponent(getPathListPanel());
         splitPane.setBottomComponent(outputView);
 
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
         this.setLayout(new BorderLayout());
         super.add(getButtonsPanel(), BorderLayout.NORTH);
         super.add(splitPane, BorderLayout.CENTER);
+        super.add(progressBar, BorderLayout.SOUTH);
     }
 
     public JPanel getButtonsPanel() {
@@ -46,7 +74,8 @@ public class EncodeView extends View<EncodeController> {
         final var removeAllFilesButton = getRemoveAllFilesButton();
 
         final var encodeButton = new JToggleButton("Start Encoding");
-        encodeButton.setEnabled(false); // Disabled until a path is added.
+        encodeButton.setEnabled(false); // Disabled until a path is added, and FFMPEG has been found.
+        encodeButton.setToolTipText("Waiting for FFmpeg to be found.");
         encodeButton.addActionListener(e -> {
             final var enableUi = new Runnable() {
                 @Override
@@ -56,6 +85,7 @@ public class EncodeView extends View<EncodeController> {
                         removeSelectedFilesButton.setEnabled(!pathList.isSelectionEmpty());
                         removeAllFilesButton.setEnabled(pathList.getModel().getSize() > 0);
                         pathList.setEnabled(true);
+                        videoPerFolderCheckBox.setEnabled(true);
 
                         encodeButton.setSelected(false);
                         encodeButton.setText("Start Encoding");
@@ -71,6 +101,7 @@ public class EncodeView extends View<EncodeController> {
                         removeSelectedFilesButton.setEnabled(false);
                         removeAllFilesButton.setEnabled(false);
                         pathList.setEnabled(false);
+                        videoPerFolderCheckBox.setEnabled(false);
 
                         encodeButton.setText("Stop Encoding");
                     });
@@ -79,7 +110,13 @@ public class EncodeView extends View<EncodeController> {
 
             if (encodeButton.isSelected()) {
                 outputView.clearText();
-                controller.startEncoding(pathList.getPaths(), enableUi, disableUi, outputView.getAppendTextConsumer());
+                jobStatuses.clear();
+                jobStatusesByName.clear();
+                jobProgress.clear();
+                progressBar.setValue(0);
+                progressBar.setString("");
+
+                controller.startEncoding(pathList.getPaths(), videoPerFolderCheckBox.isSelected(), enableUi, disableUi, outputView.getAppendTextConsumer(), this::updateJobStatus);
             } else {
                 controller.stopEncoding(enableUi);
             }
@@ -89,26 +126,35 @@ public class EncodeView extends View<EncodeController> {
         pathList.getModel().addListDataListener(new ListDataListener() {
             @Override
             public void intervalAdded(final ListDataEvent e) {
-                encodeButton.setEnabled(true);
+                encodeButton.setEnabled(ffmpegAvailable);
             }
 
             @Override
             public void intervalRemoved(final ListDataEvent e) {
-                encodeButton.setEnabled(pathList.getModel().getSize() > 0);
+                encodeButton.setEnabled(ffmpegAvailable && pathList.getModel().getSize() > 0);
             }
 
             @Override
             public void contentsChanged(final ListDataEvent e) {
-                encodeButton.setEnabled(pathList.getModel().getSize() > 0);
+                encodeButton.setEnabled(ffmpegAvailable && pathList.getModel().getSize() > 0);
             }
         });
 
+        controller.whenFfmpegAvailable(() -> {
+            ffmpegAvailable = true;
+            encodeButton.setEnabled(pathList.getModel().getSize() > 0);
+            encodeButton.setToolTipText(null);
+        });
+
         final var leftPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         leftPanel.add(addFilesButton);
         leftPanel.add(removeSelectedFilesButton);
         leftPanel.add(removeAllFilesButton);
 
+        videoPerFolderCheckBox.setToolTipText("When enabled, the files in each folder are encoded into their own video, and several videos are encoded at once.");
+
         final var rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        rightPanel.add(videoPerFolderCheckBox);
         rightPanel.add(encodeButton);
 
         final var panel = new JPanel(new BorderLayout());
@@ -117,6 +163,42 @@ public class EncodeView extends View<EncodeController> {
         return panel;
     }
 
+    /**
+     * Displays the current status of a job's paths, and updates the overall progress.
+     *
+     * <p>Each job fills an equal share of the progress bar, so a running job's share is filled as it is encoded.</p>
+     *
+     * @param job The job.
+     */
+    private void updateJobStatus(final @NonNull EncodeJob job) {
+        final var status = job.getStatus();
+        final var progress = job.getProgress();
+
+        SwingUtilities.invokeLater(() -> {
+            job.getPaths().forEach(path -> jobStatuses.put(path, status));
+            jobStatusesByName.put(job.getName(), status);
+            pathList.repaint();
+
+            if (progress == null || status.isFinished()) {
+                jobProgress.remove(job.getName());
+            } else {
+                jobProgress.put(job.getName(), progress);
+            }
+
+            final var finished = jobStatusesByName.values().stream().filter(JobStatus::isFinished).count();
+            final var failed = jobStatusesByName.values().stream().filter(s -> s == JobStatus.FAILED).count();
+            final var runningProgress = jobProgress.values().stream().mapToDouble(p -> p.percentComplete().orElse(0)).sum();
+            progressBar.setMaximum(jobStatusesByName.size() * 100);
+            progressBar.setValue((int) (finished * 100 + runningProgress));
+
+            var text = finished + " of " + jobStatusesByName.size() + " videos encoded" + (failed > 0 ? ", " + failed + " failed" : "");
+            if (jobProgress.containsKey(job.getName())) {
+                text += " | " + job.getName() + ": " + progress.describe();
+            }
+            progressBar.setString(text);
+        });
+    }
+
     private JButton getAddFilesButton() {
         final var button = new JButton("Add Files");
         button.addActionListener(e -> {
@@ -189,6 +271,12 @@ public class EncodeView extends View<EncodeController> {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
                 Component c = super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+
+                final var status = value == null ? null : jobStatuses.get(value);
+                if (status != null) {
+                    setText(status + " - " + value);
+                }
+
                 if (index % 2 == 0) {
                     c.setBackground(UIManager.getColor("List.background").darker());
                 } else {
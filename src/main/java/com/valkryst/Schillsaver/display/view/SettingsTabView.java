@@ -5,6 +5,8 @@ import com.valkryst.Schillsaver.setting.FrameResolution;
 import com.valkryst.Schillsaver.display.Display;
 import com.valkryst.Schillsaver.display.controller.SettingsTabController;
 import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
 import com.valkryst.Schillsaver.setting.SwingTheme;
 import com.valkryst.VMVC.view.View;
 import lombok.NonNull;
@@ -57,6 +59,24 @@ public class SettingsTabView extends View<SettingsTabController> {
         c.gridx++;
         add(createOutputFolderSelectionButton(controller, outputFolderField), c);
 
+        // Scratch folder path label and buttons
+        final var scratchFolderLabel = new JLabel("Scratch folder path:");
+        c.gridx = 0;
+        c.gridy++;
+        add(scratchFolderLabel, c);
+
+        final var scratchFolderField = new JTextField();
+        scratchFolderField.setEditable(false);
+        setScratchFolderText(scratchFolderField, controller.getScratchFolderPath());
+        c.gridx++;
+        add(scratchFolderField, c);
+
+        c.gridx++;
+        add(createScratchFolderSelectionButton(controller, scratchFolderField), c);
+
+        c.gridx++;
+        add(createScratchFolderResetButton(controller, scratchFolderField), c);
+
         // Block size label and combo box.
         final var blockSizeLabel = new JLabel("Block size:");
         c.gridx = 0;
@@ -123,6 +143,56 @@ public class SettingsTabView extends View<SettingsTabController> {
         c.gridx = 1;
         panel.add(resolutionComboBox, c);
 
+        // Compression codec label and combo box.
+        final var compressionCodecLabel = new JLabel("Compression:");
+        c.gridx = 0;
+        c.gridy++;
+        panel.add(compressionCodecLabel, c);
+
+        final var compressionCodecComboBox = createCompressionCodecComboBox(controller);
+        c.gridx = 1;
+        panel.add(compressionCodecComboBox, c);
+
+        // Error correction label and combo box.
+        final var errorCorrectionLabel = new JLabel("Error correction:");
+        c.gridx = 0;
+        c.gridy++;
+        panel.add(errorCorrectionLabel, c);
+
+        final var errorCorrectionComboBox = createErrorCorrectionComboBox(controller);
+        c.gridx = 1;
+        panel.add(errorCorrectionComboBox, c);
+
+        // Streaming encode check box.
+        final var streamingEncodeLabel = new JLabel("Streaming encode:");
+        c.gridx = 0;
+        c.gridy++;
+        panel.add(streamingEncodeLabel, c);
+
+        final var streamingEncodeCheckBox = createStreamingEncodeCheckBox(controller);
+        c.gridx = 1;
+        panel.add(streamingEncodeCheckBox, c);
+
+        // Encode segments label and spinner.
+        final var encodeSegmentsLabel = new JLabel("Encode segments:");
+        c.gridx = 0;
+        c.gridy++;
+        panel.add(encodeSegmentsLabel, c);
+
+        final var encodeSegmentsSpinner = createEncodeSegmentsSpinner(controller);
+        c.gridx = 1;
+        panel.add(encodeSegmentsSpinner, c);
+
+        // FFMPEG threads label and spinner.
+        final var ffmpegThreadsLabel = new JLabel("FFMPEG threads:");
+        c.gridx = 0;
+        c.gridy++;
+        panel.add(ffmpegThreadsLabel, c);
+
+        final var ffmpegThreadsSpinner = createFfmpegThreadsSpinner(controller);
+        c.gridx = 1;
+        panel.add(ffmpegThreadsSpinner, c);
+
         return panel;
     }
 
@@ -152,6 +222,70 @@ public class SettingsTabView extends View<SettingsTabController> {
         return button;
     }
 
+    /**
+     * Creates a button for selecting the scratch folder.
+     *
+     * @param controller The controller.
+     * @param textField Field displaying the scratch folder.
+     * @return The button.
+     */
+    private JButton createScratchFolderSelectionButton(final @NonNull SettingsTabController controller, final @NonNull JTextField textField) {
+        final var button = new JButton("Browse");
+        button.addActionListener(e -> {
+            final var currentPath = controller.getScratchFolderPath();
+            final var path = showFolderChooser(currentPath.toString().isBlank() ? Path.of(System.getProperty("java.io.tmpdir")) : currentPath);
+
+            if (path != null) {
+                try {
+                    setScratchFolderText(textField, path);
+                    controller.setScratchFolderPath(path);
+                } catch (final IOException ex) {
+                    Display.displayError(button.getParent(), ex);
+                }
+            }
+        });
+
+        return button;
+    }
+
+    /**
+     * Creates a button for resetting the scratch folder to the system's temporary folder.
+     *
+     * @param controller The controller.
+     * @param textField Field displaying the scratch folder.
+     * @return The button.
+     */
+    private JButton createScratchFolderResetButton(final @NonNull SettingsTabController controller, final @NonNull JTextField textField) {
+        final var button = new JButton("Default");
+        button.setToolTipText("Use the system's temporary folder.");
+        button.addActionListener(e -> {
+            try {
+                setScratchFolderText(textField, Path.of(""));
+                controller.setScratchFolderPath(Path.of(""));
+            } catch (final IOException ex) {
+                Display.displayError(button.getParent(), ex);
+            }
+        });
+
+        return button;
+    }
+
+    /**
+     * Displays the scratch folder in a text field.
+     *
+     * @param textField The text field.
+     * @param path Path to the scratch folder, or an empty path if the system's temporary folder is used.
+     */
+    private void setScratchFolderText(final @NonNull JTextField textField, final @NonNull Path path) {
+        if (path.toString().isBlank()) {
+            textField.setText("");
+            textField.setToolTipText("Intermediate files are written to the system's temporary folder.");
+        } else {
+            textField.setText(path.toString());
+            textField.setToolTipText("Intermediate files, such as archives and encoded segments, are written to " + path + ".");
+        }
+    }
+
     /**
      * Creates a combo box for selecting the framerate.
      *
@@ -196,6 +330,116 @@ public class SettingsTabView extends View<SettingsTabController> {
         return comboBox;
     }
 
+    /**
+     * Creates a combo box for selecting the compression codec.
+     *
+     * @param controller The controller.
+     * @return The combo box.
+     */
+    private JComboBox<CompressionCodec> createCompressionCodecComboBox(final @NonNull SettingsTabController controller) {
+        final var comboBox = new JComboBox<>(CompressionCodec.values());
+        comboBox.setSelectedItem(controller.getCompressionCodec());
+        comboBox.setToolTipText("This is the codec used to compress the files before they are encoded. Better compression results in shorter videos, but takes longer.");
+
+        comboBox.addActionListener(e -> {
+            try {
+                controller.setCompressionCodec((CompressionCodec) Objects.requireNonNull(comboBox.getSelectedItem()));
+            } catch (final IOException | NullPointerException ex) {
+                Display.displayError(comboBox.getParent(), ex);
+            }
+        });
+
+        return comboBox;
+    }
+
+    /**
+     * Creates a combo box for selecting the level of error correction.
+     *
+     * @param controller The controller.
+     * @return The combo box.
+     */
+    private JComboBox<ErrorCorrection> createErrorCorrectionComboBox(final @NonNull SettingsTabController controller) {
+        final var comboBox = new JComboBox<>(ErrorCorrection.values());
+        comboBox.setSelectedItem(controller.getErrorCorrection());
+        comboBox.setToolTipText("This is the amount of error correction added to the files before they are encoded. More error correction allows smaller block sizes and lower quality codec settings to be decoded, but takes more space in each frame.");
+
+        comboBox.addActionListener(e -> {
+            try {
+                controller.setErrorCorrection((ErrorCorrection) Objects.requireNonNull(comboBox.getSelectedItem()));
+            } catch (final IOException | NullPointerException ex) {
+                Display.displayError(comboBox.getParent(), ex);
+            }
+        });
+
+        return comboBox;
+    }
+
+    /**
+     * Creates a check box for toggling whether the archive is streamed directly into FFMPEG.
+     *
+     * @param controller The controller.
+     * @return The check box.
+     */
+    private JCheckBox createStreamingEncodeCheckBox(final @NonNull SettingsTabController controller) {
+        final var checkBox = new JCheckBox();
+        checkBox.setSelected(controller.isStreamingEncode());
+        checkBox.setToolTipText("When enabled, the archive is piped directly into FFMPEG instead of being written to a temporary file first.");
+
+        checkBox.addActionListener(e -> {
+            try {
+                controller.setStreamingEncode(checkBox.isSelected());
+            } catch (final IOException ex) {
+                Display.displayError(checkBox.getParent(), ex);
+            }
+        });
+
+        return checkBox;
+    }
+
+    /**
+     * Creates a spinner for selecting the number of segments the archive is split into when encoding.
+     *
+     * @param controller The controller.
+     * @return The spinner.
+     */
+    private JSpinner createEncodeSegmentsSpinner(final @NonNull SettingsTabController controller) {
+        final var maximum = Math.max(controller.getEncodeSegments(), Runtime.getRuntime().availableProcessors());
+        final var spinner = new JSpinner(new SpinnerNumberModel(controller.getEncodeSegments(), 1, maximum, 1));
+        spinner.setToolTipText("This is the number of FFMPEG processes which encode the video at once. Only used when streaming encode is disabled.");
+
+        spinner.addChangeListener(e -> {
+            try {
+                controller.setEncodeSegments((Integer) spinner.getValue());
+            } catch (final IOException ex) {
+                Display.displayError(spinner.getParent(), ex);
+            }
+        });
+
+        return spinner;
+    }
+
+    /**
+     * Creates a spinner for selecting the number of threads each FFMPEG process may use.
+     *
+     * @param controller The controller.
+     * @return The spinner.
+     */
+    private JSpinner createFfmpegThreadsSpinner(final @NonNull SettingsTabController controller) {
+        final var maximum = Math.max(controller.getFfmpegThreads(), Runtime.getRuntime().availableProcessors());
+        final var spinner = new JSpinner(new SpinnerNumberModel(controller.getFfmpegThreads(), 0, maximum, 1));
+        spinner.setToolTipText("This is the number of threads each FFMPEG process may use. Use 0 to let FFMPEG decide.");
+
+        spinner.addChangeListener(e -> {
+            try {
+                controller.setFfmpegThreads((Integer) spinner.getValue());
+            } catch (final IOException ex) {
+                Display.displayError(spinner.getParent(), ex);
+            }
+        });
+
+        return spinner;
+    }
+
     /**
      * Creates a combo box for selecting the block size.
      *
@@ -1,6 +1,7 @@
 package com.valkryst.Schillsaver.display.view;
 
 import com.valkryst.Schillsaver.display.Display;
+import com.valkryst.Schillsaver.display.LogSink;
 import com.valkryst.Schillsaver.display.controller.TextOutputController;
 import com.valkryst.JCopyButton.JCopyButton;
 import com.valkryst.VMVC.view.View;
@@ -12,7 +13,6 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.io.File;
-import java.nio.file.Files;
 import java.util.function.Consumer;
 
 public class TextOutputView extends View<TextOutputController> {
@@ -22,6 +22,9 @@ public class TextOutputView extends View<TextOutputController> {
 
     private final JButton saveButton = createSaveButton();
 
+    /** Sink which batches output messages into the {@code textArea}, and keeps the full log for the save button. */
+    private final LogSink logSink = new LogSink(textArea);
+
     /**
      * Constructs a new {@code TextOutputView}.
      *
@@ -52,8 +55,8 @@ public class TextOutputView extends View<TextOutputController> {
     }
 
     /**
-     * Creates a new {@link JButton} which opens a {@link JFileChooser} to save the {@code textArea}'s contents to a
-     * file.
+     * Creates a new {@link JButton} which opens a {@link JFileChooser} to save the full log to a file, including any
+     * lines which have been trimmed from the {@code textArea}.
      *
      * @return The button.
      */
@@ -75,7 +78,7 @@ public class TextOutputView extends View<TextOutputController> {
                 }
 
                 try {
-                    textArea.write(Files.newBufferedWriter(file.toPath()));
+                    logSink.saveTo(file.toPath());
                 } catch (final Exception ex) {
                     Display.displayError(this, ex);
                 }
@@ -103,30 +106,31 @@ public class TextOutputView extends View<TextOutputController> {
 
             @Override
             public void removeUpdate(final DocumentEvent e) {
-                copyButton.setEnabled(!textArea.getText().isEmpty());
-                saveButton.setEnabled(!textArea.getText().isEmpty());
+                copyButton.setEnabled(e.getDocument().getLength() > 0);
+                saveButton.setEnabled(e.getDocument().getLength() > 0);
             }
 
             @Override
             public void changedUpdate(final DocumentEvent e) {
-                copyButton.setEnabled(!textArea.getText().isEmpty());
-                saveButton.setEnabled(!textArea.getText().isEmpty());
+                copyButton.setEnabled(e.getDocument().getLength() > 0);
+                saveButton.setEnabled(e.getDocument().getLength() > 0);
             }
         });
         return textArea;
     }
 
     /**
-     * Retrieves a {@link Consumer} which appends text to the {@code textArea}.
+     * Retrieves a {@link Consumer} which appends text to the {@code textArea}. It may be called from any thread, as
+     * the text is appended in batches on the Event Dispatch Thread.
      *
      * @return The consumer.
      */
     public Consumer<String> getAppendTextConsumer() {
-        return s -> SwingUtilities.invokeLater(() -> textArea.append(s));
+        return logSink;
     }
 
-    /** Clears the {@code textArea}. */
+    /** Clears the {@code textArea}, and the full log. */
     public void clearText() {
-        textArea.setText("");
+        logSink.clear();
     }
 }
@@ -1,25 +1,48 @@
 package com.valkryst.Schillsaver.encoder;
 
-import com.valkryst.Schillsaver.display.model.SettingsTabModel;
+import com.valkryst.Schillsaver.archiver.Archiver;
+import com.valkryst.Schillsaver.ffmpeg.FfmpegCapabilities;
+import com.valkryst.Schillsaver.ffmpeg.ProcessSupervisor;
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import com.valkryst.Schillsaver.ffmpeg.ProgressReceiver;
+import com.valkryst.Schillsaver.ffmpeg.ProgressTracker;
+import com.valkryst.Schillsaver.io.ErrorCorrectingOutputStream;
+import com.valkryst.Schillsaver.io.FrameAlignedOutputStream;
+import com.valkryst.Schillsaver.io.ScratchSpace;
+import com.valkryst.Schillsaver.io.VideoHeader;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.Settings;
 import lombok.NonNull;
 import lombok.Setter;
+import org.apache.commons.io.FileUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 public class Encoder extends Thread {
     /** Formatter used to generate unique output file names. */
     private final static DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
 
+    /** Name of the file which lists the encoded segments, for FFMPEG's concat demuxer. */
+    private final static String SEGMENT_LIST_FILE_NAME = "segments.txt";
+
     /** Consumer to call when encoding is complete. */
     @Setter private Consumer<Path> onCompletion = (final Path path) -> {};
 
@@ -29,21 +52,163 @@ public class Encoder extends Thread {
     /** Consumer to call when the progress needs to be updated. */
     @Setter private Consumer<String> updateProgress = (final String progress) -> {};
 
-    /** Path of the file to encode. */
+    /** Consumer to call with FFMPEG's progress, while encoding. */
+    @Setter private Consumer<ProgressEvent> onProgress = (final ProgressEvent event) -> {};
+
+    /** Number of threads each FFMPEG process may use, or {@code 0} to use the {@code ffmpegThreads} setting. */
+    @Setter private int ffmpegThreads = 0;
+
+    /** Settings to encode with. */
+    private final Settings settings;
+
+    /** Path of the file to encode, or {@code null} if the archive is streamed into FFMPEG. */
     private final Path inputFilePath;
 
-    public Encoder(final @NonNull Path inputFilePath) {
+    /** Archiver whose output is streamed into FFMPEG, or {@code null} if a file is encoded. */
+    private final Archiver archiver;
+
+    /** Threads which render the archive's frames and write them into FFMPEG's stdin. */
+    private final List<Thread> frameWriters = new CopyOnWriteArrayList<>();
+
+    /** FFMPEG processes started by the encoder, which are killed if it is interrupted. */
+    private final List<Process> ffmpegProcesses = new CopyOnWriteArrayList<>();
+
+    /** Exception thrown by the {@code frameWriters}, if any. */
+    private volatile IOException frameWriterException;
+
+    /**
+     * Constructs a new {@code Encoder} which encodes an existing archive file.
+     *
+     * @param inputFilePath Path of the file to encode.
+     * @param settings Settings to encode with.
+     */
+    public Encoder(final @NonNull Path inputFilePath, final @NonNull Settings settings) {
+        this.settings = settings;
         this.inputFilePath = inputFilePath;
+        this.archiver = null;
     }
 
-    // todo Handle interruption and delete temp files.
+    /**
+     * Constructs a new {@code Encoder} which streams the output of an {@link Archiver} directly into FFMPEG, without
+     * first writing the archive to disk. The archiver must not be started, as the encoder calls
+     * {@link Archiver#writeArchive} itself.
+     *
+     * @param archiver Archiver whose output is to be encoded.
+     * @param settings Settings to encode with.
+     */
+    public Encoder(final @NonNull Archiver archiver, final @NonNull Settings settings) {
+        this.settings = settings;
+        this.inputFilePath = null;
+        this.archiver = archiver;
+    }
+
+    /**
+     * Encodes the archive into a video, within a staging folder on the output folder's file system, so that the video
+     * can be moved into the output folder without being copied.
+     *
+     * <p>
+     *     When the archive is split into segments, the segments are encoded within the scratch folder, and are deleted
+     *     once they have been joined.
+     * </p>
+     *
+     * <p>
+     *     If there is not enough free space for the video, or encoding fails, or the thread is interrupted, then FFMPEG
+     *     is killed and the temporary folders are deleted along with everything in them.
+     * </p>
+     *
+     * @throws IOException If an I/O exception occurs while creating the temporary folders.
+     */
     public void encode() throws IOException {
-        final var outputDirectory = Files.createTempDirectory(UUID.randomUUID().toString());
+        final var segmented = archiver == null && settings.encodeSegments() > 1;
+        final var outputDirectory = ScratchSpace.createStagingFolder(settings);
+        final var scratchDirectory = segmented ? ScratchSpace.createScratchFolder(settings) : null;
         final var outputFilePath = outputDirectory.resolve(LocalDateTime.now().format(DATE_TIME_FORMATTER) + ".mp4");
         updateProgress.accept("Created temporary directory: " + outputDirectory + "\n");
 
-        final var process = getFfmpegProcess(outputFilePath);
+        var completed = false;
+        try {
+            final var totalFrames = computeTotalFrames();
+            if (!hasEnoughSpace(totalFrames, outputDirectory, scratchDirectory)) {
+                return;
+            }
+
+            if (segmented) {
+                updateProgress.accept("Created temporary directory: " + scratchDirectory + "\n");
+                completed = encodeSegments(settings, scratchDirectory, outputFilePath);
+            } else {
+                completed = encodeVideo(settings, totalFrames, outputFilePath);
+            }
+        } finally {
+            if (scratchDirectory != null) {
+                deleteScratchDirectory(scratchDirectory);
+            }
+
+            if (!completed) {
+                deleteScratchDirectory(outputDirectory);
+            }
+        }
+
+        if (completed) {
+            onCompletion.accept(outputFilePath);
+        }
+    }
+
+    /**
+     * Determines whether there is enough free space to encode the video, and to hold its segments if it is split into
+     * segments.
+     *
+     * @param totalFrames Number of frames which will be encoded, or {@code -1} if unknown.
+     * @param outputDirectory Path to the folder in which the video is written.
+     * @param scratchDirectory Path to the folder in which the segments are written, or {@code null} if the video is not
+     *                         split into segments.
+     * @return Whether there is enough free space. If not, then {@code onError} has been called.
+     */
+    private boolean hasEnoughSpace(final long totalFrames, final @NonNull Path outputDirectory, final Path scratchDirectory) {
+        if (totalFrames < 0) {
+            return true;
+        }
+
+        final var videoSize = ScratchSpace.estimateVideoSize(settings, totalFrames);
+        final var requirements = new HashMap<Path, Long>();
+        requirements.put(outputDirectory, videoSize);
+        if (scratchDirectory != null) {
+            requirements.put(scratchDirectory, videoSize);
+        }
+
+        try {
+            ScratchSpace.requireSpace(requirements);
+            return true;
+        } catch (final IOException e) {
+            updateProgress.accept(e.getMessage() + "\n");
+            onError.accept(e);
+            return false;
+        }
+    }
+
+    /**
+     * Encodes the archive into a video, with a single FFMPEG process.
+     *
+     * @param settings The settings to encode with.
+     * @param totalFrames Number of frames which will be encoded, or {@code -1} if unknown.
+     * @param outputFilePath Path to write the video to.
+     * @return Whether the video was encoded. If not, then {@code onError} has been called.
+     *
+     * @throws IOException If an I/O exception occurs while starting FFMPEG.
+     */
+    private boolean encodeVideo(final @NonNull Settings settings, final long totalFrames, final @NonNull Path outputFilePath) throws IOException {
+        final var bytesPerFrame = settings.resolution().getBytesPerFrame(settings.blockSize());
+        final var progressReceiver = new ProgressReceiver(new ProgressTracker(totalFrames, bytesPerFrame, onProgress).createParser());
 
+        final Process process;
+        try {
+            process = getFfmpegProcess(getFfmpegCommand(settings, outputFilePath, progressReceiver));
+        } catch (final IOException e) {
+            progressReceiver.close();
+            throw e;
+        }
+        startFrameWriter(process, settings, archiver == null ? Files.size(inputFilePath) : -1);
+
+        final int exitCode;
         try (
             final var inputStream = process.getInputStream();
             final var inputStreamReader = new InputStreamReader(inputStream);
@@ -53,24 +218,335 @@ public class Encoder extends Thread {
             while ((line = bufferedReader.readLine()) != null) {
                 updateProgress.accept(line + "\n");
             }
+
+            exitCode = process.waitFor();
+
+            for (final var frameWriter : frameWriters) {
+                frameWriter.join();
+            }
+        } catch (final InterruptedException e) {
+            this.interrupt();
+            onError.accept(new InterruptedIOException("Encoding was interrupted."));
+            return false;
         } catch (final IOException e) {
             updateProgress.accept("An error occurred while encoding the file:\n");
             updateProgress.accept("\t" + e.getMessage() + "\n");
             onError.accept(e);
+            return false;
+        } finally {
+            ProcessSupervisor.getInstance().kill(process);
+            progressReceiver.close();
+        }
+
+        // FFMPEG finishes the video normally once its input is closed, so a cancelled encode could look successful.
+        if (Thread.currentThread().isInterrupted()) {
+            onError.accept(new InterruptedIOException("Encoding was interrupted."));
+            return false;
+        }
+
+        if (frameWriterException != null) {
+            updateProgress.accept("An error occurred while rendering the frames:\n");
+            updateProgress.accept("\t" + frameWriterException.getMessage() + "\n");
+            onError.accept(frameWriterException);
+            return false;
+        }
+
+        if (exitCode != 0 || !Files.exists(outputFilePath)) {
+            onError.accept(new IOException("An error occurred while encoding the file. FFMPEG exited with code " + exitCode + "."));
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Starts a thread which renders the header frame, the archive with its error correction, and the trailer frame,
+     * and writes them into FFMPEG's stdin.
+     *
+     * @param process The FFMPEG process.
+     * @param settings The settings to encode with.
+     * @param payloadLength Number of bytes in the archive, or {@code -1} if the archive is streamed into FFMPEG.
+     */
+    private void startFrameWriter(final @NonNull Process process, final @NonNull Settings settings, final long payloadLength) {
+        final var resolution = settings.resolution();
+        final var blockSize = settings.blockSize();
+
+        final var frameWriter = new Thread(() -> {
+            try (
+                final var bufferedOutputStream = new BufferedOutputStream(process.getOutputStream(), 1024 * 1024);
+                final var frameRenderer = new FrameRenderer(bufferedOutputStream, resolution, blockSize)
+            ) {
+                bufferedOutputStream.write(createHeader(payloadLength, -1).renderHeaderFrame());
+
+                // None of the streams are closed, as that would close the frame renderer before the trailer is written.
+                final var checksum = new CRC32();
+                final var bytesPerFrame = resolution.getBytesPerFrame(blockSize);
+                final var frameAlignedOutputStream = new FrameAlignedOutputStream(frameRenderer, bytesPerFrame);
+                final var errorCorrectingOutputStream = new ErrorCorrectingOutputStream(frameAlignedOutputStream, settings.errorCorrection(), bytesPerFrame);
+                final var checkedOutputStream = new CheckedOutputStream(errorCorrectingOutputStream, checksum);
+                if (archiver == null) {
+                    Files.copy(inputFilePath, checkedOutputStream);
+                } else {
+                    archiver.writeArchive(checkedOutputStream);
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    updateProgress.accept("Archiving process was interrupted.\n");
+                    return;
+                }
+
+                final var writtenLength = errorCorrectingOutputStream.getDataLength();
+                errorCorrectingOutputStream.finish();
+                frameAlignedOutputStream.padToFrameBoundary();
+                frameRenderer.write(createHeader(writtenLength, checksum.getValue()).toTrailer());
+            } catch (final IOException e) {
+                frameWriterException = e;
+                ProcessSupervisor.getInstance().kill(process);
+            }
+        }, "Frame Writer");
+        frameWriters.add(frameWriter);
+        frameWriter.start();
+    }
+
+    /**
+     * <p>
+     *     Splits the archive file into segments, at frame boundaries, and encodes each segment with its own FFMPEG
+     *     process. The segments are then joined, without re-encoding, by FFMPEG's concat demuxer.
+     * </p>
+     *
+     * <p>
+     *     A single FFMPEG process cannot make use of every core on larger machines, so this allows the encoding to
+     *     scale with the number of cores.
+     * </p>
+     *
+     * <p>
+     *     With error correction, the archive is instead split at the boundaries of the groups of interleaved codewords,
+     *     each of which fills {@link ErrorCorrection#CODEWORD_LENGTH} frames, so that every segment can add its own
+     *     error correction and still produce the same frames as a single process would.
+     * </p>
+     *
+     * @param settings The settings to encode with.
+     * @param scratchDirectory Path to the folder to write the segments to.
+     * @param outputFilePath Path to write the joined video to.
+     * @return Whether the video was encoded. If not, then {@code onError} has been called.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private boolean encodeSegments(final @NonNull Settings settings, final @NonNull Path scratchDirectory, final @NonNull Path outputFilePath) throws IOException {
+        final var bytesPerFrame = settings.resolution().getBytesPerFrame(settings.blockSize());
+        final var payloadLength = Files.size(inputFilePath);
+        final var errorCorrection = settings.errorCorrection();
+        final var totalFrames = Math.max(1, Math.ceilDiv(errorCorrection.getEncodedLength(payloadLength, bytesPerFrame), bytesPerFrame));
+
+        // Each unit is the part of the archive held by a frame or, with error correction, by a group of codewords.
+        final long bytesPerUnit = errorCorrection == ErrorCorrection.NONE ? bytesPerFrame : (long) errorCorrection.getDataSymbols() * bytesPerFrame;
+        final var totalUnits = Math.max(1, Math.ceilDiv(payloadLength, bytesPerUnit));
+        final var unitsPerSegment = Math.ceilDiv(totalUnits, Math.min(settings.encodeSegments(), totalUnits));
+        final var segmentCount = Math.toIntExact(Math.ceilDiv(totalUnits, unitsPerSegment));
+        updateProgress.accept("Encoding " + totalFrames + " frames in " + segmentCount + " segments.\n");
+
+        // The segments are written in parallel, so the checksum is computed before they are.
+        final var header = createHeader(payloadLength, VideoHeader.computeChecksum(inputFilePath, payloadLength));
+        final var progressTracker = new ProgressTracker(totalFrames + 2, bytesPerFrame, onProgress);
+
+        final var segmentPaths = new ArrayList<Path>(segmentCount);
+        final var processes = new ArrayList<Process>(segmentCount);
+        final var logReaders = new ArrayList<Thread>(segmentCount);
+        final var progressReceivers = new ArrayList<ProgressReceiver>(segmentCount);
+        try {
+            for (int i = 0 ; i < segmentCount ; i++) {
+                final var segmentPath = scratchDirectory.resolve("segment-" + i + ".mp4");
+                segmentPaths.add(segmentPath);
+
+                final var progressReceiver = new ProgressReceiver(progressTracker.createParser());
+                progressReceivers.add(progressReceiver);
+
+                final var process = getFfmpegProcess(getFfmpegCommand(settings, segmentPath, progressReceiver));
+                processes.add(process);
+                logReaders.add(startLogReader(process, "[Segment " + i + "] "));
+
+                final var position = i * unitsPerSegment * bytesPerUnit;
+                final var length = unitsPerSegment * bytesPerUnit;
+                startSegmentWriter(process, settings, i, position, length, header, i == segmentCount - 1);
+            }
 
-            Files.deleteIfExists(outputDirectory);
-            return;
+            for (int i = 0 ; i < segmentCount ; i++) {
+                final var exitCode = processes.get(i).waitFor();
+                logReaders.get(i).join();
+
+                if (exitCode != 0) {
+                    throw new IOException("FFMPEG exited with code " + exitCode + " while encoding segment " + i + ".");
+                }
+            }
+
+            for (final var frameWriter : frameWriters) {
+                frameWriter.join();
+            }
+
+            if (frameWriterException != null) {
+                throw frameWriterException;
+            }
+
+            concatenateSegments(segmentPaths, outputFilePath);
+        } catch (final InterruptedException e) {
+            this.interrupt();
+            onError.accept(new InterruptedIOException("Encoding was interrupted."));
+            return false;
+        } catch (final IOException e) {
+            updateProgress.accept("An error occurred while encoding the file:\n");
+            updateProgress.accept("\t" + e.getMessage() + "\n");
+            onError.accept(e);
+            return false;
         } finally {
-            process.destroy();
+            processes.forEach(ProcessSupervisor.getInstance()::kill);
+            progressReceivers.forEach(ProgressReceiver::close);
+
+            for (final var segmentPath : segmentPaths) {
+                Files.deleteIfExists(segmentPath);
+            }
+            Files.deleteIfExists(scratchDirectory.resolve(SEGMENT_LIST_FILE_NAME));
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            onError.accept(new InterruptedIOException("Encoding was interrupted."));
+            return false;
         }
 
         if (!Files.exists(outputFilePath)) {
             onError.accept(new IOException("An error occurred while encoding the file."));
-            Files.deleteIfExists(outputDirectory);
-            return;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Starts a thread which renders a range of the archive file, with its error correction, as frames, and writes them
+     * into FFMPEG's stdin. The first segment begins with the header frame, and the last segment ends with the trailer
+     * frame.
+     *
+     * @param process The FFMPEG process.
+     * @param settings The settings to encode with.
+     * @param segment Index of the segment.
+     * @param position Position of the segment within the archive file.
+     * @param length Number of bytes in the segment. The final segment may be shorter than this.
+     * @param header Header of the video.
+     * @param last Whether this is the last segment.
+     */
+    private void startSegmentWriter(final @NonNull Process process, final @NonNull Settings settings, final int segment, final long position, final long length, final @NonNull VideoHeader header, final boolean last) {
+        final var frameWriter = new Thread(() -> {
+            try (
+                final var channel = FileChannel.open(inputFilePath, StandardOpenOption.READ);
+                final var bufferedOutputStream = new BufferedOutputStream(process.getOutputStream(), 1024 * 1024);
+                final var frameRenderer = new FrameRenderer(bufferedOutputStream, settings.resolution(), settings.blockSize())
+            ) {
+                if (segment == 0) {
+                    bufferedOutputStream.write(header.renderHeaderFrame());
+                }
+
+                final var frameAlignedOutputStream = new FrameAlignedOutputStream(frameRenderer, settings.getBytesPerFrame());
+                final var errorCorrectingOutputStream = new ErrorCorrectingOutputStream(frameAlignedOutputStream, settings.errorCorrection(), settings.getBytesPerFrame());
+                final var outputChannel = Channels.newChannel(errorCorrectingOutputStream);
+                final var end = Math.min(position + length, channel.size());
+
+                var transferred = position;
+                while (transferred < end) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Encoding was interrupted.");
+                    }
+
+                    transferred += channel.transferTo(transferred, end - transferred, outputChannel);
+                }
+
+                errorCorrectingOutputStream.finish();
+                if (last) {
+                    frameAlignedOutputStream.padToFrameBoundary();
+                    frameRenderer.write(header.toTrailer());
+                }
+            } catch (final IOException e) {
+                frameWriterException = e;
+                ProcessSupervisor.getInstance().kill(process);
+            }
+        }, "Frame Writer-" + segment);
+        frameWriters.add(frameWriter);
+        frameWriter.start();
+    }
+
+    /**
+     * Joins the encoded segments, in order, without re-encoding them. The list of segments is written beside them.
+     *
+     * @param segmentPaths Paths to the encoded segments.
+     * @param outputFilePath Path to write the joined video to.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting for FFMPEG.
+     * @throws IOException If an I/O exception occurs, or if FFMPEG fails.
+     */
+    private void concatenateSegments(final @NonNull List<Path> segmentPaths, final @NonNull Path outputFilePath) throws InterruptedException, IOException {
+        final var listFilePath = segmentPaths.getFirst().resolveSibling(SEGMENT_LIST_FILE_NAME);
+        final var lines = new ArrayList<String>(segmentPaths.size());
+        for (final var segmentPath : segmentPaths) {
+            lines.add("file '" + segmentPath.getFileName() + "'");
+        }
+        Files.write(listFilePath, lines);
+
+        final var command = new ArrayList<String>();
+        command.add("ffmpeg");
+        command.add("-f");
+        command.add("concat");
+        command.add("-safe");
+        command.add("0");
+        command.add("-i");
+        command.add(listFilePath.toString());
+        command.add("-c");
+        command.add("copy");
+        command.add("-loglevel");
+        command.add("verbose");
+        command.add("-y");
+        command.add(outputFilePath.toString());
+
+        final var process = getFfmpegProcess(command);
+        final var logReader = startLogReader(process, "[Concat] ");
+        final var exitCode = process.waitFor();
+        logReader.join();
+
+        if (exitCode != 0) {
+            throw new IOException("FFMPEG exited with code " + exitCode + " while joining the segments.");
         }
+    }
 
-        onCompletion.accept(outputFilePath);
+    /**
+     * Starts a thread which forwards FFMPEG's log messages to {@code updateProgress}.
+     *
+     * @param process The FFMPEG process.
+     * @param prefix Prefix to add to each message.
+     * @return The thread.
+     */
+    private Thread startLogReader(final @NonNull Process process, final @NonNull String prefix) {
+        final var thread = new Thread(() -> {
+            try (
+                final var inputStream = process.getInputStream();
+                final var inputStreamReader = new InputStreamReader(inputStream);
+                final var bufferedReader = new BufferedReader(inputStreamReader)
+            ) {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    updateProgress.accept(prefix + line + "\n");
+                }
+            } catch (final IOException ignored) {
+                // The stream is closed when the process is destroyed.
+            }
+        }, "FFMPEG Log Reader");
+        thread.start();
+        return thread;
+    }
+
+    /** Interrupts the encoder, and kills its FFMPEG processes so that they stop using the CPU immediately. */
+    @Override
+    public void interrupt() {
+        super.interrupt();
+
+        frameWriters.forEach(Thread::interrupt);
+        ffmpegProcesses.forEach(ProcessSupervisor.getInstance()::kill);
     }
 
     @Override
@@ -82,12 +558,53 @@ public class Encoder extends Thread {
         }
     }
 
-    private List<String> getFfmpegCommand(final @NonNull Path outputFilePath) throws IOException {
-        final var settings = new SettingsTabModel();
+    /**
+     * Deletes a temporary folder, and everything in it, reporting any file which could not be deleted.
+     *
+     * @param directory Path to the folder.
+     */
+    private void deleteScratchDirectory(final @NonNull Path directory) {
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to delete the temporary directory " + directory + ": " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Creates the header of the video.
+     *
+     * @param payloadLength Number of bytes in the archive, or {@code -1} if unknown.
+     * @param checksum CRC32 of the archive, or {@code -1} if unknown.
+     * @return The header.
+     */
+    private VideoHeader createHeader(final long payloadLength, final long checksum) {
+        return new VideoHeader(settings.compressionCodec(), settings.errorCorrection(), settings.blockSize(), settings.resolution(), payloadLength, checksum);
+    }
 
-        final var blockSize = settings.getBlockSize();
-        final var resolution = settings.getResolution();
-        final var frameRate = settings.getFramerate();
+    /**
+     * Computes the number of frames which will be encoded, from the size of the archive and its error correction,
+     * including the header and trailer frames. When the archive is streamed into FFMPEG, it has not been written yet,
+     * so its size is estimated from the size of the files being archived.
+     *
+     * @return The number of frames, or {@code -1} if it cannot be determined.
+     */
+    private long computeTotalFrames() {
+        final var bytesPerFrame = settings.resolution().getBytesPerFrame(settings.blockSize());
+
+        try {
+            final var archiveSize = archiver == null ? Files.size(inputFilePath) : archiver.estimateArchiveSize();
+            final var encodedSize = settings.errorCorrection().getEncodedLength(archiveSize, bytesPerFrame);
+            return Math.max(1, Math.ceilDiv(encodedSize, bytesPerFrame)) + 2;
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to determine the number of frames to encode: " + e.getMessage() + "\n");
+            return -1;
+        }
+    }
+
+    private List<String> getFfmpegCommand(final @NonNull Settings settings, final @NonNull Path outputFilePath, final @NonNull ProgressReceiver progressReceiver) {
+        final var resolution = settings.resolution();
+        final var frameRate = settings.framerate();
 
         final var command = new ArrayList<String>();
         command.add("ffmpeg");
@@ -96,38 +613,55 @@ public class Encoder extends Thread {
         command.add("-f");
         command.add("rawvideo");
         command.add("-pix_fmt");
-        command.add("monob");
+        command.add("gray");
         command.add("-s");
-        command.add((resolution.width / blockSize.blockSize) + "x" + (resolution.height / blockSize.blockSize));
+        command.add(resolution.width + "x" + resolution.height);
         command.add("-r");
         command.add(String.valueOf(frameRate.frameRate));
         command.add("-i");
-        command.add(inputFilePath.toString());
-        command.add("-vf");
-        command.add("scale=iw*" + blockSize.blockSize + ":-1");
-        command.add("-sws_flags");
-        command.add("neighbor");
+        command.add("pipe:0");
         command.add("-c:v");
-        command.add(settings.getCodec());
+        command.add(settings.codec());
+
+        // The encoder's options are chosen from FFMPEG's capabilities. If they cannot be determined, then the options
+        // of libx264, the default codec, are used.
+        List<String> encoderOptions = List.of("-preset", "veryfast");
+        boolean threaded = true;
+        try {
+            final var capabilities = FfmpegCapabilities.get();
+            if (capabilities.hasEncoder(settings.codec())) {
+                encoderOptions = capabilities.chooseEncoderOptions(settings.codec());
+                threaded = capabilities.getEncoderDetails(settings.codec()).threaded();
+            }
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to determine the capabilities of FFMPEG, so the default options will be used: " + e.getMessage() + "\n");
+        }
+
+        final var threadCount = ffmpegThreads > 0 ? ffmpegThreads : settings.ffmpegThreads();
+        if (threaded && threadCount > 0) {
+            command.add("-threads");
+            command.add(String.valueOf(threadCount));
+        }
+
+        command.addAll(encoderOptions);
+
+        ProgressTracker.addProgressArguments(command, progressReceiver);
         command.add("-loglevel");
         command.add("verbose");
-        command.add("-preset");
-        command.add("veryfast");
         command.add("-y");
         command.add(outputFilePath.toString());
         return command;
     }
 
-    private Process getFfmpegProcess(final @NonNull Path outputFilePath) throws IOException {
-        final var ffmpegCommand = getFfmpegCommand(outputFilePath);
+    private Process getFfmpegProcess(final @NonNull List<String> ffmpegCommand) throws IOException {
         updateProgress.accept("FFMPEG Command: " + String.join(" ", ffmpegCommand) + "\n");
 
         final var processBuilder = new ProcessBuilder(ffmpegCommand);
         processBuilder.redirectErrorStream(true);
 
-        final var process = processBuilder.start();
-        Runtime.getRuntime().addShutdownHook(new Thread(process::destroy)); // todo We should remove the hook when the process is finished.
-
+        final var process = ProcessSupervisor.getInstance().start(processBuilder);
+        ffmpegProcesses.add(process);
+        process.onExit().thenRun(() -> ffmpegProcesses.remove(process));
         return process;
     }
 }
@@ -0,0 +1,193 @@
+package com.valkryst.Schillsaver.encoder;
+
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <p>
+ *     An {@link OutputStream} which renders the bytes written to it as full-resolution, 8-bit grayscale, frames and
+ *     writes the raw frames to an underlying stream, such as FFMPEG's stdin.
+ * </p>
+ *
+ * <p>
+ *     Each bit is drawn as a square block of pixels, most significant bit first, with a {@code 1} drawn white and a
+ *     {@code 0} drawn black. Blocks are laid out left-to-right and top-to-bottom, and the bits of a frame are packed
+ *     without padding at the end of each row. Any pixels to the right of, or below, the last whole block are black.
+ * </p>
+ *
+ * <p>
+ *     Frames are built a row of blocks at a time. Each byte of data is expanded with a lookup table, containing the
+ *     pixels of all 256 byte values, and the first pixel row of each block row is then copied to the remaining pixel
+ *     rows, so almost all of the work is done by bulk array copies.
+ * </p>
+ */
+public class FrameRenderer extends OutputStream {
+    /** Pixel value of a {@code 1} bit. */
+    private static final byte WHITE = (byte) 0xFF;
+
+    /** Pixel value of a {@code 0} bit. */
+    private static final byte BLACK = 0;
+
+    /** Stream to write the rendered frames to. */
+    private final OutputStream outputStream;
+
+    /** Frame width, in pixels. */
+    private final int width;
+
+    /** Block width and height, in pixels. */
+    private final int blockSize;
+
+    /** Number of blocks in each row of a frame. */
+    private final int columns;
+
+    /** Number of rows of blocks in a frame. */
+    private final int rows;
+
+    /** Data of the frame which is being filled. */
+    private final byte[] frameData;
+
+    /** Pixels of the frame which is being rendered. */
+    private final byte[] framePixels;
+
+    /** Pixels of each of the 256 byte values, drawn as a horizontal strip of 8 blocks, each 1 pixel tall. */
+    private final byte[][] bytePixels;
+
+    /** Number of bytes of {@code frameData} which have been filled. */
+    private int frameDataLength = 0;
+
+    /** Number of frames which have been written. */
+    @Getter private long framesWritten = 0;
+
+    /**
+     * Constructs a new {@code FrameRenderer}.
+     *
+     * @param outputStream Stream to write the rendered frames to. It is closed when this stream is closed.
+     * @param resolution Resolution of the frames.
+     * @param blockSize Size of the block used to draw each bit.
+     */
+    public FrameRenderer(final @NonNull OutputStream outputStream, final @NonNull FrameResolution resolution, final @NonNull BlockSize blockSize) {
+        this.outputStream = outputStream;
+        this.width = resolution.width;
+        this.blockSize = blockSize.blockSize;
+        this.columns = resolution.width / blockSize.blockSize;
+        this.rows = resolution.height / blockSize.blockSize;
+
+        frameData = new byte[resolution.getBytesPerFrame(blockSize)];
+        framePixels = new byte[Math.toIntExact(resolution.pixelCount)];
+
+        final var stripWidth = 8 * this.blockSize;
+        bytePixels = new byte[256][stripWidth];
+        for (int value = 0 ; value < 256 ; value++) {
+            for (int x = 0 ; x < stripWidth ; x++) {
+                final var bit = (value >>> (7 - (x / this.blockSize))) & 1;
+                bytePixels[value][x] = bit == 1 ? WHITE : BLACK;
+            }
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        frameData[frameDataLength++] = (byte) b;
+
+        if (frameDataLength == frameData.length) {
+            renderFrame();
+        }
+    }
+
+    @Override
+    public void write(final byte @NonNull [] b, int off, int len) throws IOException {
+        while (len > 0) {
+            final var count = Math.min(len, frameData.length - frameDataLength);
+            System.arraycopy(b, off, frameData, frameDataLength, count);
+            frameDataLength += count;
+            off += count;
+            len -= count;
+
+            if (frameDataLength == frameData.length) {
+                renderFrame();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    /**
+     * Renders any partially filled frame, with its remaining bits set to {@code 0}, then closes the underlying
+     * stream.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try (outputStream) {
+            if (frameDataLength > 0) {
+                renderFrame();
+            }
+        }
+    }
+
+    /**
+     * Renders the current frame's data, writes the frame to the underlying stream, and resets the frame's data.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void renderFrame() throws IOException {
+        Arrays.fill(frameData, frameDataLength, frameData.length, (byte) 0);
+
+        for (int row = 0 ; row < rows ; row++) {
+            final var rowOffset = row * blockSize * width;
+            renderPixelRow(row, rowOffset);
+
+            // Every pixel row of a block row is identical, so the first is simply copied.
+            for (int y = 1 ; y < blockSize ; y++) {
+                System.arraycopy(framePixels, rowOffset, framePixels, rowOffset + (y * width), columns * blockSize);
+            }
+        }
+
+        outputStream.write(framePixels);
+        frameDataLength = 0;
+        framesWritten++;
+    }
+
+    /**
+     * Renders the first pixel row of a row of blocks.
+     *
+     * @param row Index of the row of blocks.
+     * @param offset Offset of the pixel row within {@code framePixels}.
+     */
+    private void renderPixelRow(final int row, final int offset) {
+        var bitIndex = (long) row * columns;
+        var pixelIndex = offset;
+
+        var column = 0;
+        while (column < columns) {
+            if ((bitIndex & 7) == 0 && columns - column >= 8) {
+                // Byte-aligned, so all 8 bits can be drawn with a single copy.
+                final var strip = bytePixels[frameData[(int) (bitIndex >>> 3)] & 0xFF];
+                System.arraycopy(strip, 0, framePixels, pixelIndex, strip.length);
+
+                column += 8;
+                bitIndex += 8;
+                pixelIndex += strip.length;
+            } else {
+                // The last few blocks of a frame are unused when the block count is not a multiple of 8.
+                final var isUsed = (bitIndex >>> 3) < frameData.length;
+                final var bit = isUsed ? (frameData[(int) (bitIndex >>> 3)] >>> (7 - (bitIndex & 7))) & 1 : 0;
+                Arrays.fill(framePixels, pixelIndex, pixelIndex + blockSize, bit == 1 ? WHITE : BLACK);
+
+                column++;
+                bitIndex++;
+                pixelIndex += blockSize;
+            }
+        }
+    }
+}
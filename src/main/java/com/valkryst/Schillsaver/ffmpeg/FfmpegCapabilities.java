@@ -0,0 +1,525 @@
+package com.valkryst.Schillsaver.ffmpeg;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.valkryst.Schillsaver.io.FileIO;
+import com.valkryst.Schillsaver.io.FolderIO;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>The version, encoders, and filters of the FFMPEG installation on the PATH.</p>
+ *
+ * <p>
+ *     Probing FFMPEG requires several processes to be run, so the results are cached on disk, and are keyed by the
+ *     path, size, and modification time of the FFMPEG executable. They are only probed again when FFMPEG is replaced.
+ *     The details of each encoder, such as its pixel formats, are probed the first time they are requested, as there
+ *     are far more encoders than are ever used.
+ * </p>
+ */
+public class FfmpegCapabilities {
+    /** Path to the cache file. */
+    private static final Path CACHE_FILE_PATH = FileIO.getFilePath(FolderIO.getFolderPath("Cache"), "ffmpeg-capabilities.json");
+
+    /** Pixel formats to encode with, in order of preference. Each is 8-bit 4:2:0, which every player can decode. */
+    private static final List<String> PREFERRED_PIXEL_FORMATS = List.of("yuv420p", "nv12", "yuvj420p");
+
+    /** Presets to encode with, in order of preference, when an encoder lists the presets it accepts. */
+    private static final List<String> PREFERRED_PRESETS = List.of("veryfast", "faster", "fast");
+
+    /** Maximum time a probe may run for, before FFMPEG is assumed to have hung and is killed. */
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(30);
+
+    /** Capabilities of the FFMPEG installation on the PATH, or {@code null} if they have not yet been loaded. */
+    private static FfmpegCapabilities instance;
+
+    /** Result of the background availability check, or {@code null} if it has not been started. */
+    private static CompletableFuture<Boolean> availability;
+
+    /** Path to the FFMPEG executable. */
+    @Getter private final Path executablePath;
+
+    /** Size of the FFMPEG executable, in bytes. */
+    private final long executableSize;
+
+    /** Modification time of the FFMPEG executable, in milliseconds since the epoch. */
+    private final long executableLastModified;
+
+    /** Version of FFMPEG. */
+    @Getter private final String version;
+
+    /** Names of the video encoders. */
+    private final Set<String> encoders;
+
+    /** Names of the filters. */
+    private final Set<String> filters;
+
+    /** Details of each encoder which has been probed, by its name. */
+    private final Map<String, EncoderDetails> encoderDetails;
+
+    /**
+     * Constructs a new {@code FfmpegCapabilities}.
+     *
+     * @param executablePath Path to the FFMPEG executable.
+     * @param executableSize Size of the FFMPEG executable, in bytes.
+     * @param executableLastModified Modification time of the FFMPEG executable, in milliseconds since the epoch.
+     * @param version Version of FFMPEG.
+     * @param encoders Names of the video encoders.
+     * @param filters Names of the filters.
+     * @param encoderDetails Details of each encoder which has been probed, by its name.
+     */
+    private FfmpegCapabilities(final Path executablePath, final long executableSize, final long executableLastModified, final String version, final Set<String> encoders, final Set<String> filters, final Map<String, EncoderDetails> encoderDetails) {
+        this.executablePath = executablePath;
+        this.executableSize = executableSize;
+        this.executableLastModified = executableLastModified;
+        this.version = version;
+        this.encoders = Set.copyOf(encoders);
+        this.filters = Set.copyOf(filters);
+        this.encoderDetails = new HashMap<>(encoderDetails);
+    }
+
+    /**
+     * Retrieves the capabilities of the FFMPEG installation on the PATH. They are loaded from the cache file if FFMPEG
+     * has not changed since they were probed, and are otherwise probed and saved to the cache file.
+     *
+     * @return The capabilities.
+     *
+     * @throws IOException If FFMPEG cannot be found on the PATH, or if it cannot be probed.
+     */
+    public static synchronized FfmpegCapabilities get() throws IOException {
+        final var executablePath = findExecutable("ffmpeg");
+        final var size = Files.size(executablePath);
+        final var lastModified = Files.getLastModifiedTime(executablePath).toMillis();
+
+        if (instance != null && instance.isFor(executablePath, size, lastModified)) {
+            return instance;
+        }
+
+        final var cached = loadCache();
+        if (cached != null && cached.isFor(executablePath, size, lastModified)) {
+            instance = cached;
+            return instance;
+        }
+
+        final var versionOutput = run(executablePath, "-version");
+        final var versionTokens = versionOutput.isEmpty() ? new String[0] : versionOutput.getFirst().split("\\s+");
+        final var version = versionTokens.length > 2 ? versionTokens[2] : "unknown";
+
+        instance = new FfmpegCapabilities(
+            executablePath,
+            size,
+            lastModified,
+            version,
+            parseEncoders(run(executablePath, "-encoders")),
+            parseFilters(run(executablePath, "-filters")),
+            Map.of()
+        );
+        instance.saveCache();
+        return instance;
+    }
+
+    /**
+     * Determines whether FFMPEG is available on the PATH. This does not run FFMPEG, unless its capabilities have not
+     * yet been probed.
+     *
+     * @return Whether FFMPEG is available.
+     */
+    public static boolean isAvailable() {
+        try {
+            get();
+            return true;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Determines, on a background thread, whether FFMPEG is available on the PATH. The check is only run once, and
+     * every call returns the same result.
+     *
+     * @return A future which completes with whether FFMPEG is available.
+     */
+    public static synchronized CompletableFuture<Boolean> checkAvailabilityAsync() {
+        if (availability == null) {
+            availability = new CompletableFuture<>();
+
+            final var thread = new Thread(() -> availability.complete(isAvailable()), "FFMPEG Probe");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        return availability;
+    }
+
+    /**
+     * Determines whether FFMPEG has a video encoder.
+     *
+     * @param encoder Name of the encoder.
+     * @return Whether FFMPEG has the encoder.
+     */
+    public boolean hasEncoder(final @NonNull String encoder) {
+        return encoders.contains(encoder);
+    }
+
+    /**
+     * Determines whether FFMPEG has a filter.
+     *
+     * @param filter Name of the filter.
+     * @return Whether FFMPEG has the filter.
+     */
+    public boolean hasFilter(final @NonNull String filter) {
+        return filters.contains(filter);
+    }
+
+    /**
+     * Retrieves the details of a video encoder, probing them if they have not been probed before.
+     *
+     * @param encoder Name of the encoder.
+     * @return The details.
+     *
+     * @throws IOException If FFMPEG does not have the encoder, or if it cannot be probed.
+     */
+    public synchronized EncoderDetails getEncoderDetails(final @NonNull String encoder) throws IOException {
+        final var cached = encoderDetails.get(encoder);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (!hasEncoder(encoder)) {
+            throw new IOException("FFMPEG does not have the " + encoder + " encoder.");
+        }
+
+        final var details = parseEncoderDetails(run(executablePath, "-h", "encoder=" + encoder));
+        encoderDetails.put(encoder, details);
+        saveCache();
+        return details;
+    }
+
+    /**
+     * Chooses the options with which to run a video encoder. These are the most widely supported 4:2:0 pixel format,
+     * and the fastest of the encoder's common presets, when the encoder supports them.
+     *
+     * @param encoder Name of the encoder.
+     * @return The options, or an empty list if FFMPEG's defaults should be used.
+     */
+    public List<String> chooseEncoderOptions(final @NonNull String encoder) {
+        final EncoderDetails details;
+        try {
+            details = getEncoderDetails(encoder);
+        } catch (final IOException e) {
+            return List.of();
+        }
+
+        final var options = new ArrayList<String>();
+        for (final var pixelFormat : PREFERRED_PIXEL_FORMATS) {
+            if (details.pixelFormats().contains(pixelFormat)) {
+                options.add("-pix_fmt");
+                options.add(pixelFormat);
+                break;
+            }
+        }
+
+        final var presets = details.options().get("preset");
+        if (presets != null) {
+            // An encoder whose presets are a free-form string, such as libx264, does not list them.
+            final var preset = presets.isEmpty() ? "veryfast" : PREFERRED_PRESETS.stream().filter(presets::contains).findFirst().orElse(null);
+            if (preset != null) {
+                options.add("-preset");
+                options.add(preset);
+            }
+        }
+
+        return options;
+    }
+
+    /**
+     * Determines whether these capabilities were probed from a specific FFMPEG executable.
+     *
+     * @param executablePath Path to the executable.
+     * @param size Size of the executable, in bytes.
+     * @param lastModified Modification time of the executable, in milliseconds since the epoch.
+     * @return Whether these capabilities were probed from the executable.
+     */
+    private boolean isFor(final Path executablePath, final long size, final long lastModified) {
+        return this.executablePath.equals(executablePath) && executableSize == size && executableLastModified == lastModified;
+    }
+
+    /**
+     * Finds an executable on the PATH.
+     *
+     * @param name Name of the executable, without any extension.
+     * @return Absolute path to the executable.
+     *
+     * @throws IOException If the executable cannot be found.
+     */
+    private static Path findExecutable(final String name) throws IOException {
+        final var pathVariable = System.getenv("PATH");
+        if (pathVariable != null) {
+            for (final var folder : pathVariable.split(File.pathSeparator)) {
+                if (folder.isBlank()) {
+                    continue;
+                }
+
+                for (final var fileName : List.of(name, name + ".exe")) {
+                    final var path = Path.of(folder, fileName);
+                    if (Files.isRegularFile(path) && Files.isExecutable(path)) {
+                        return path.toRealPath();
+                    }
+                }
+            }
+        }
+
+        throw new IOException(name + " is not installed or is not available in the PATH.");
+    }
+
+    /**
+     * Runs FFMPEG, and waits for it to exit.
+     *
+     * @param executablePath Path to the FFMPEG executable.
+     * @param arguments Arguments to run FFMPEG with.
+     * @return The lines of FFMPEG's output.
+     *
+     * @throws IOException If an I/O exception occurs, or if FFMPEG fails.
+     */
+    private static List<String> run(final Path executablePath, final String... arguments) throws IOException {
+        final var command = new ArrayList<String>();
+        command.add(executablePath.toString());
+        command.add("-hide_banner");
+        command.addAll(List.of(arguments));
+
+        final var process = ProcessSupervisor.getInstance().start(new ProcessBuilder(command).redirectErrorStream(true), PROBE_TIMEOUT);
+        final var lines = new ArrayList<String>();
+        try (
+            final var inputStream = process.getInputStream();
+            final var inputStreamReader = new InputStreamReader(inputStream);
+            final var bufferedReader = new BufferedReader(inputStreamReader)
+        ) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        try {
+            final var exitCode = process.waitFor();
+            if (ProcessSupervisor.getInstance().isTimedOut(process)) {
+                throw new IOException("FFMPEG did not finish within " + PROBE_TIMEOUT.toSeconds() + " seconds while running: " + String.join(" ", command));
+            }
+
+            if (exitCode != 0) {
+                throw new IOException("FFMPEG exited with code " + exitCode + " while running: " + String.join(" ", command));
+            }
+        } catch (final InterruptedException e) {
+            ProcessSupervisor.getInstance().kill(process);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for FFMPEG.", e);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Parses the names of the video encoders from the output of {@code ffmpeg -encoders}.
+     *
+     * @param lines The output.
+     * @return The names.
+     */
+    private static Set<String> parseEncoders(final List<String> lines) {
+        final var encoders = new LinkedHashSet<String>();
+        var listStarted = false;
+
+        for (final var line : lines) {
+            final var tokens = line.trim().split("\\s+");
+            if (!listStarted) {
+                listStarted = tokens[0].startsWith("---");
+                continue;
+            }
+
+            // Each line is made up of the encoder's flags, its name, and its description. The first flag is its type.
+            if (tokens.length >= 2 && tokens[0].startsWith("V")) {
+                encoders.add(tokens[1]);
+            }
+        }
+
+        return encoders;
+    }
+
+    /**
+     * Parses the names of the filters from the output of {@code ffmpeg -filters}.
+     *
+     * @param lines The output.
+     * @return The names.
+     */
+    private static Set<String> parseFilters(final List<String> lines) {
+        final var filters = new LinkedHashSet<String>();
+
+        for (final var line : lines) {
+            // Each line is made up of the filter's flags, its name, its inputs and outputs, and its description.
+            final var tokens = line.trim().split("\\s+");
+            if (tokens.length >= 3 && tokens[2].contains("->")) {
+                filters.add(tokens[1]);
+            }
+        }
+
+        return filters;
+    }
+
+    /**
+     * Parses the details of an encoder from the output of {@code ffmpeg -h encoder=<name>}.
+     *
+     * @param lines The output.
+     * @return The details.
+     */
+    private static EncoderDetails parseEncoderDetails(final List<String> lines) {
+        final var pixelFormats = new ArrayList<String>();
+        final var options = new LinkedHashMap<String, List<String>>();
+        var threaded = true;
+        String currentOption = null;
+
+        for (final var line : lines) {
+            final var trimmed = line.trim();
+
+            if (trimmed.startsWith("Supported pixel formats:")) {
+                pixelFormats.addAll(List.of(trimmed.substring("Supported pixel formats:".length()).trim().split("\\s+")));
+            } else if (trimmed.startsWith("Threading capabilities:")) {
+                threaded = !trimmed.endsWith("none");
+            } else if (trimmed.startsWith("-")) {
+                // An option, such as "-preset <string> E..V....... Set the encoding preset".
+                currentOption = trimmed.substring(1).split("\\s+")[0];
+                options.put(currentOption, new ArrayList<>());
+            } else if (currentOption != null && line.startsWith("     ") && !trimmed.isEmpty()) {
+                // A named value of the current option, indented beneath it.
+                options.get(currentOption).add(trimmed.split("\\s+")[0]);
+            } else if (!line.startsWith(" ")) {
+                currentOption = null;
+            }
+        }
+
+        final var immutableOptions = new LinkedHashMap<String, List<String>>();
+        options.forEach((name, values) -> immutableOptions.put(name, List.copyOf(values)));
+        return new EncoderDetails(List.copyOf(pixelFormats), threaded, Map.copyOf(immutableOptions));
+    }
+
+    /**
+     * Loads the cached capabilities.
+     *
+     * @return The capabilities, or {@code null} if there is no valid cache file.
+     */
+    private static FfmpegCapabilities loadCache() {
+        if (Files.notExists(CACHE_FILE_PATH)) {
+            return null;
+        }
+
+        try {
+            final var json = FileIO.loadJsonFromDisk(CACHE_FILE_PATH);
+
+            final var encoderDetails = new HashMap<String, EncoderDetails>();
+            json.getAsJsonObject("encoderDetails").entrySet().forEach(entry -> {
+                final var object = entry.getValue().getAsJsonObject();
+
+                final var options = new HashMap<String, List<String>>();
+                object.getAsJsonObject("options").entrySet().forEach(option -> options.put(option.getKey(), toList(option.getValue().getAsJsonArray())));
+
+                encoderDetails.put(entry.getKey(), new EncoderDetails(
+                    toList(object.getAsJsonArray("pixelFormats")),
+                    object.get("threaded").getAsBoolean(),
+                    Map.copyOf(options)
+                ));
+            });
+
+            return new FfmpegCapabilities(
+                Path.of(json.get("executablePath").getAsString()),
+                json.get("executableSize").getAsLong(),
+                json.get("executableLastModified").getAsLong(),
+                json.get("version").getAsString(),
+                new HashSet<>(toList(json.getAsJsonArray("encoders"))),
+                new HashSet<>(toList(json.getAsJsonArray("filters"))),
+                encoderDetails
+            );
+        } catch (final IOException | RuntimeException e) {
+            // The cache is invalid, so FFMPEG will be probed again and the cache replaced.
+            return null;
+        }
+    }
+
+    /** Saves the capabilities to the cache file. Any error is ignored, as FFMPEG can be probed again. */
+    private void saveCache() {
+        final var encoderDetailsJson = new JsonObject();
+        encoderDetails.forEach((name, details) -> {
+            final var options = new JsonObject();
+            details.options().forEach((option, values) -> options.add(option, toJsonArray(values)));
+
+            final var object = new JsonObject();
+            object.add("pixelFormats", toJsonArray(details.pixelFormats()));
+            object.addProperty("threaded", details.threaded());
+            object.add("options", options);
+            encoderDetailsJson.add(name, object);
+        });
+
+        final var json = new JsonObject();
+        json.addProperty("executablePath", executablePath.toString());
+        json.addProperty("executableSize", executableSize);
+        json.addProperty("executableLastModified", executableLastModified);
+        json.addProperty("version", version);
+        json.add("encoders", toJsonArray(encoders));
+        json.add("filters", toJsonArray(filters));
+        json.add("encoderDetails", encoderDetailsJson);
+
+        try {
+            FileIO.saveJsonToDisk(CACHE_FILE_PATH, json);
+        } catch (final IOException ignored) {
+            // The capabilities will be probed again on the next run.
+        }
+    }
+
+    /**
+     * Converts a JSON array of strings to a list.
+     *
+     * @param array The array.
+     * @return The list.
+     */
+    private static List<String> toList(final JsonArray array) {
+        final var list = new ArrayList<String>(array.size());
+        array.forEach(element -> list.add(element.getAsString()));
+        return List.copyOf(list);
+    }
+
+    /**
+     * Converts a collection of strings to a JSON array.
+     *
+     * @param values The strings.
+     * @return The array.
+     */
+    private static JsonArray toJsonArray(final Iterable<String> values) {
+        final var array = new JsonArray();
+        values.forEach(array::add);
+        return array;
+    }
+
+    /**
+     * The details of a video encoder.
+     *
+     * @param pixelFormats Pixel formats which the encoder accepts, or an empty list if it does not list them.
+     * @param threaded Whether the encoder can use multiple threads.
+     * @param options Named values of each of the encoder's options, by the option's name. An option which is not
+     *                limited to a set of named values has an empty list.
+     */
+    public record EncoderDetails(List<String> pixelFormats, boolean threaded, Map<String, List<String>> options) {}
+}
@@ -0,0 +1,171 @@
+package com.valkryst.Schillsaver.ffmpeg;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <p>Starts, and keeps track of, every FFMPEG and FFPROBE process.</p>
+ *
+ * <p>
+ *     A single shutdown hook kills every process which is still running when the JVM exits, and each process is
+ *     forgotten as soon as it exits, so that long-running hosts do not accumulate shutdown hooks or references to dead
+ *     processes.
+ * </p>
+ *
+ * <p>
+ *     Processes are killed along with their descendants, as FFMPEG may be launched through a wrapper script, such as
+ *     those used by Snap and Flatpak packages. Each process is first asked to stop, and is forcibly killed if it has
+ *     not stopped within {@link #GRACE_PERIOD}.
+ * </p>
+ */
+public class ProcessSupervisor {
+    /** Singleton instance. */
+    private final static ProcessSupervisor INSTANCE = new ProcessSupervisor();
+
+    /** Time a process is given to stop, after being asked to, before it is forcibly killed. */
+    private static final Duration GRACE_PERIOD = Duration.ofSeconds(2);
+
+    /** Processes which are still running. */
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Processes which were killed because they ran for longer than their timeout. They are held weakly, so that they
+     * are forgotten once their callers have finished with them.
+     */
+    private final Set<Process> timedOutProcesses = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /** Executor used to kill processes which time out, or which ignore a request to stop. */
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "Process Supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Constructs a new {@code ProcessSupervisor}. */
+    private ProcessSupervisor() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::killAll, "Process Supervisor Shutdown"));
+    }
+
+    /**
+     * Retrieves the singleton instance.
+     *
+     * @return The singleton instance.
+     */
+    public static ProcessSupervisor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts a process, which is killed if the JVM exits before it does.
+     *
+     * @param processBuilder Builder of the process.
+     * @return The process.
+     *
+     * @throws IOException If an I/O exception occurs while starting the process.
+     */
+    public Process start(final @NonNull ProcessBuilder processBuilder) throws IOException {
+        return start(processBuilder, null);
+    }
+
+    /**
+     * Starts a process, which is killed if the JVM exits before it does, or if it runs for longer than the timeout.
+     *
+     * @param processBuilder Builder of the process.
+     * @param timeout Maximum time the process may run for, or {@code null} if it may run for any length of time.
+     * @return The process.
+     *
+     * @throws IOException If an I/O exception occurs while starting the process.
+     */
+    public Process start(final @NonNull ProcessBuilder processBuilder, final Duration timeout) throws IOException {
+        final var process = processBuilder.start();
+        processes.add(process);
+
+        final var timeoutKill = timeout == null ? null : executorService.schedule(() -> {
+            timedOutProcesses.add(process);
+            kill(process);
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        process.onExit().thenRun(() -> {
+            processes.remove(process);
+
+            if (timeoutKill != null) {
+                timeoutKill.cancel(false);
+            }
+        });
+
+        return process;
+    }
+
+    /**
+     * Kills a process, and its descendants. They are asked to stop, and are forcibly killed if they have not stopped
+     * within the grace period. This method does not wait for them to stop.
+     *
+     * @param process The process.
+     */
+    public void kill(final @NonNull Process process) {
+        if (!process.isAlive()) {
+            return;
+        }
+
+        // The descendants are found first, as they are re-parented once the process exits.
+        final var descendants = process.descendants().toList();
+        process.destroy();
+        descendants.forEach(ProcessHandle::destroy);
+
+        executorService.schedule(() -> {
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }, GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Determines whether a process was killed because it ran for longer than its timeout.
+     *
+     * @param process The process.
+     * @return Whether the process timed out.
+     */
+    public boolean isTimedOut(final @NonNull Process process) {
+        return timedOutProcesses.contains(process);
+    }
+
+    /**
+     * Retrieves the number of processes which are still running.
+     *
+     * @return The number of processes.
+     */
+    public int getProcessCount() {
+        return processes.size();
+    }
+
+    /** Kills every process which is still running, and waits up to the grace period for them to stop. */
+    private void killAll() {
+        final var handles = processes.stream()
+                                     .flatMap(process -> Stream.concat(process.descendants(), Stream.of(process.toHandle())))
+                                     .toList();
+        handles.forEach(ProcessHandle::destroy);
+
+        final var deadline = System.nanoTime() + GRACE_PERIOD.toNanos();
+        for (final var handle : handles) {
+            final var remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                try {
+                    handle.onExit().get(remaining, TimeUnit.NANOSECONDS);
+                } catch (final Exception ignored) {
+                    // The process is forcibly killed below.
+                }
+            }
+
+            handle.destroyForcibly();
+        }
+    }
+}
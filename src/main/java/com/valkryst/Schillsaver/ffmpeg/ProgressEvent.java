@@ -0,0 +1,95 @@
+package com.valkryst.Schillsaver.ffmpeg;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+/**
+ * The progress of a job's FFMPEG processes, as reported by their {@code -progress} output.
+ *
+ * <p>
+ *     When a job runs several FFMPEG processes at once, such as when encoding segments or decoding ranges, their
+ *     progress is combined. The frames, frame rates, speeds, and output times are the sums of the processes' values.
+ * </p>
+ *
+ * @param frame Number of frames processed so far.
+ * @param totalFrames Number of frames expected in total, or {@code -1} if unknown.
+ * @param framesPerSecond Number of frames being processed per second.
+ * @param speed Rate at which the video is being processed, as a multiple of its playback speed.
+ * @param outTime Length of the video which has been processed so far.
+ * @param bytesPerFrame Number of bytes of data held by each frame.
+ */
+public record ProgressEvent(long frame, long totalFrames, double framesPerSecond, double speed, Duration outTime, long bytesPerFrame) {
+    /**
+     * Retrieves the percentage of the frames which have been processed.
+     *
+     * @return The percentage, between {@code 0} and {@code 100}, or nothing if the total number of frames is unknown.
+     */
+    public OptionalDouble percentComplete() {
+        if (totalFrames <= 0) {
+            return OptionalDouble.empty();
+        }
+
+        return OptionalDouble.of(Math.min(100, (100.0 * frame) / totalFrames));
+    }
+
+    /**
+     * Retrieves the number of bytes of data being processed per second.
+     *
+     * @return The number of bytes.
+     */
+    public double bytesPerSecond() {
+        return framesPerSecond * bytesPerFrame;
+    }
+
+    /**
+     * Estimates the time remaining until every frame has been processed, at the current frame rate.
+     *
+     * @return The estimate, or nothing if the total number of frames is unknown, or no frames are being processed.
+     */
+    public Optional<Duration> estimatedTimeRemaining() {
+        if (totalFrames <= 0 || framesPerSecond <= 0) {
+            return Optional.empty();
+        }
+
+        final var remainingFrames = Math.max(0, totalFrames - frame);
+        return Optional.of(Duration.ofMillis((long) ((remainingFrames * 1000) / framesPerSecond)));
+    }
+
+    /**
+     * Describes the progress in a single line, such as
+     * {@code 42.0% | 1200 of 2857 frames | 120.0 fps | 3.7 MB/s | ETA 0:13}.
+     *
+     * @return The description.
+     */
+    public String describe() {
+        final var stringBuilder = new StringBuilder();
+        percentComplete().ifPresent(percent -> stringBuilder.append(String.format(Locale.ROOT, "%.1f%% | ", percent)));
+
+        stringBuilder.append(frame);
+        if (totalFrames > 0) {
+            stringBuilder.append(" of ").append(totalFrames);
+        }
+        stringBuilder.append(" frames");
+
+        stringBuilder.append(String.format(Locale.ROOT, " | %.1f fps | %.1f MB/s", framesPerSecond, bytesPerSecond() / (1024 * 1024)));
+        estimatedTimeRemaining().ifPresent(eta -> stringBuilder.append(" | ETA ").append(formatDuration(eta)));
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Formats a duration as {@code H:MM:SS}, or as {@code M:SS} if it is shorter than an hour.
+     *
+     * @param duration The duration.
+     * @return The formatted duration.
+     */
+    private static String formatDuration(final Duration duration) {
+        final var hours = duration.toHours();
+        if (hours > 0) {
+            return String.format(Locale.ROOT, "%d:%02d:%02d", hours, duration.toMinutesPart(), duration.toSecondsPart());
+        }
+
+        return String.format(Locale.ROOT, "%d:%02d", duration.toMinutesPart(), duration.toSecondsPart());
+    }
+}
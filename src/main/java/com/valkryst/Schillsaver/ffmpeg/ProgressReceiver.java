@@ -0,0 +1,114 @@
+package com.valkryst.Schillsaver.ffmpeg;
+
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * <p>Receives the {@code -progress} output of a single FFMPEG process, and passes each line of it to a parser.</p>
+ *
+ * <p>
+ *     FFMPEG's stdout and stderr are used for its output and its log messages, and a log message can look just like a
+ *     line of progress, so the progress is given a channel of its own. The receiver listens on a loopback port, and
+ *     FFMPEG connects to it as a client when it is given the receiver's {@link #getUrl()}. Only the first connection
+ *     is accepted.
+ * </p>
+ */
+public class ProgressReceiver implements AutoCloseable {
+    /** Address to listen on. */
+    private static final String LOOPBACK_ADDRESS = "127.0.0.1";
+
+    /** Maximum time to wait, when closing, for the rest of the progress to be read. */
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(1);
+
+    /** Socket which FFMPEG connects to. */
+    private final ServerSocket serverSocket;
+
+    /** Thread which reads the progress. */
+    private final Thread thread;
+
+    /** Connection from FFMPEG, or {@code null} if it has not connected. */
+    private volatile Socket connection;
+
+    /**
+     * Constructs a new {@code ProgressReceiver}, and starts listening for FFMPEG.
+     *
+     * @param progressParser Parser of the process' progress.
+     *
+     * @throws IOException If an I/O exception occurs while opening the port.
+     */
+    public ProgressReceiver(final ProgressTracker.@NonNull Parser progressParser) throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getByName(LOOPBACK_ADDRESS));
+
+        thread = new Thread(() -> receive(progressParser), "FFMPEG Progress Reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Retrieves the URL which FFMPEG should write its progress to.
+     *
+     * @return The URL.
+     */
+    public String getUrl() {
+        return "tcp://" + LOOPBACK_ADDRESS + ":" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts FFMPEG's connection, and parses its progress until FFMPEG closes the connection.
+     *
+     * @param progressParser Parser of the process' progress.
+     */
+    private void receive(final ProgressTracker.Parser progressParser) {
+        try (
+            final var socket = serverSocket.accept();
+            final var inputStreamReader = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+            final var bufferedReader = new BufferedReader(inputStreamReader)
+        ) {
+            connection = socket;
+            serverSocket.close();
+
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                progressParser.parse(line);
+            }
+        } catch (final IOException ignored) {
+            // The socket is closed if FFMPEG never connects, or if the receiver is closed first.
+        }
+    }
+
+    /**
+     * Stops listening, and waits briefly for the rest of the progress to be read. This should be called once the
+     * process has exited, as the process closes its connection when it exits.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (final IOException ignored) {
+            // Nothing is listening anymore, either way.
+        }
+
+        try {
+            thread.join(CLOSE_TIMEOUT.toMillis());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final var socket = connection;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (final IOException ignored) {
+                // The connection is unusable, either way.
+            }
+        }
+    }
+}
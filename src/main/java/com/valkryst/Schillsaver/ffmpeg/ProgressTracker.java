@@ -0,0 +1,195 @@
+package com.valkryst.Schillsaver.ffmpeg;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <p>Combines the {@code -progress} output of one or more FFMPEG processes into a stream of {@link ProgressEvent}s.</p>
+ *
+ * <p>
+ *     FFMPEG writes its progress as blocks of {@code key=value} lines, each ending with a {@code progress=continue} or
+ *     {@code progress=end} line. Each process is given its own {@link Parser}, which receives the process' progress
+ *     through a {@link ProgressReceiver}, so that it never shares a stream with FFMPEG's log messages.
+ * </p>
+ *
+ * <p>
+ *     Events are published at most every {@link #MIN_PUBLISH_INTERVAL}, regardless of how many processes are running,
+ *     except when a process finishes.
+ * </p>
+ */
+public class ProgressTracker {
+    /** Minimum time between two published events. */
+    private static final Duration MIN_PUBLISH_INTERVAL = Duration.ofMillis(500);
+
+    /** Consumer to call with each event. */
+    private final Consumer<ProgressEvent> onProgress;
+
+    /** Number of frames expected in total, or {@code -1} if unknown. */
+    private final long totalFrames;
+
+    /** Number of bytes of data held by each frame. */
+    private final long bytesPerFrame;
+
+    /** Parsers of the processes whose progress is tracked. Guarded by {@code this}. */
+    private final List<Parser> parsers = new ArrayList<>();
+
+    /** Time, from {@link System#nanoTime()}, at which the last event was published. Guarded by {@code this}. */
+    private long lastPublishTime = System.nanoTime() - MIN_PUBLISH_INTERVAL.toNanos();
+
+    /**
+     * Constructs a new {@code ProgressTracker}.
+     *
+     * @param totalFrames Number of frames expected in total, across every process, or {@code -1} if unknown.
+     * @param bytesPerFrame Number of bytes of data held by each frame.
+     * @param onProgress Consumer to call with each event. It is called from the threads which read FFMPEG's output.
+     */
+    public ProgressTracker(final long totalFrames, final long bytesPerFrame, final @NonNull Consumer<ProgressEvent> onProgress) {
+        this.totalFrames = totalFrames;
+        this.bytesPerFrame = bytesPerFrame;
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * Adds the arguments which make FFMPEG write its progress to the specified receiver, and stop writing its usual
+     * statistics line. The arguments must be added before the output file.
+     *
+     * @param command The FFMPEG command.
+     * @param progressReceiver The receiver.
+     */
+    public static void addProgressArguments(final @NonNull List<String> command, final @NonNull ProgressReceiver progressReceiver) {
+        command.add("-progress");
+        command.add(progressReceiver.getUrl());
+        command.add("-nostats");
+    }
+
+    /**
+     * Creates a parser for the output of a new FFMPEG process.
+     *
+     * @return The parser.
+     */
+    public synchronized Parser createParser() {
+        final var parser = new Parser();
+        parsers.add(parser);
+        return parser;
+    }
+
+    /**
+     * Publishes an event which combines the latest progress of every process, unless an event was recently published.
+     *
+     * @param force Whether to publish the event even if an event was recently published.
+     */
+    private void publish(final boolean force) {
+        final ProgressEvent event;
+        synchronized (this) {
+            final var now = System.nanoTime();
+            if (!force && now - lastPublishTime < MIN_PUBLISH_INTERVAL.toNanos()) {
+                return;
+            }
+            lastPublishTime = now;
+
+            long frame = 0;
+            double framesPerSecond = 0;
+            double speed = 0;
+            long outTimeMicroseconds = 0;
+            for (final var parser : parsers) {
+                frame += parser.frame;
+                outTimeMicroseconds += parser.outTimeMicroseconds;
+
+                // A finished process no longer contributes to the rate at which frames are processed.
+                if (!parser.ended) {
+                    framesPerSecond += parser.framesPerSecond;
+                    speed += parser.speed;
+                }
+            }
+
+            event = new ProgressEvent(frame, totalFrames, framesPerSecond, speed, Duration.ofNanos(outTimeMicroseconds * 1000), bytesPerFrame);
+        }
+
+        onProgress.accept(event);
+    }
+
+    /** Parses the {@code -progress} output of a single FFMPEG process, received through a {@link ProgressReceiver}. */
+    public class Parser {
+        /** Number of frames processed by the process. */
+        private long frame = 0;
+
+        /** Number of frames being processed per second by the process. */
+        private double framesPerSecond = 0;
+
+        /** Rate at which the process is processing the video, as a multiple of its playback speed. */
+        private double speed = 0;
+
+        /** Length of the video which has been processed by the process, in microseconds. */
+        private long outTimeMicroseconds = 0;
+
+        /** Whether the process has written its final block of progress. */
+        private boolean ended = false;
+
+        /** Constructs a new {@code Parser}. */
+        private Parser() {}
+
+        /**
+         * Parses a line of the process' progress. Once a block of progress has been parsed, an event is published.
+         * Lines which are not {@code key=value} pairs, and keys which are not used, are ignored.
+         *
+         * @param line The line.
+         */
+        public void parse(final @NonNull String line) {
+            final var separator = line.indexOf('=');
+            if (separator <= 0) {
+                return;
+            }
+
+            final var key = line.substring(0, separator);
+            final var value = line.substring(separator + 1).trim();
+            synchronized (ProgressTracker.this) {
+                switch (key) {
+                    case "frame" -> frame = parseLong(value, frame);
+                    case "fps" -> framesPerSecond = parseDouble(value, framesPerSecond);
+                    case "speed" -> speed = parseDouble(value.endsWith("x") ? value.substring(0, value.length() - 1) : value, speed);
+                    case "out_time_us" -> outTimeMicroseconds = parseLong(value, outTimeMicroseconds);
+                    case "progress" -> ended = value.equals("end");
+                    default -> {}
+                }
+            }
+
+            if (key.equals("progress")) {
+                publish(ended);
+            }
+        }
+
+        /**
+         * Parses a {@code long}, such as a frame count. FFMPEG writes {@code N/A} for values it does not yet know.
+         *
+         * @param value The value.
+         * @param defaultValue Value to return if the value cannot be parsed.
+         * @return The parsed value.
+         */
+        private static long parseLong(final String value, final long defaultValue) {
+            try {
+                return Long.parseLong(value);
+            } catch (final NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+
+        /**
+         * Parses a {@code double}, such as a frame rate. FFMPEG writes {@code N/A} for values it does not yet know.
+         *
+         * @param value The value.
+         * @param defaultValue Value to return if the value cannot be parsed.
+         * @return The parsed value.
+         */
+        private static double parseDouble(final String value, final double defaultValue) {
+            try {
+                return Double.parseDouble(value);
+            } catch (final NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <p>An {@link OutputStream} which adds Reed–Solomon error correction to the data written through it.</p>
+ *
+ * <p>
+ *     The data is split into groups of {@code interleaveDepth} codewords, and the codewords of each group are
+ *     interleaved, so that the group is written as {@link ErrorCorrection#CODEWORD_LENGTH} rows, where each row holds
+ *     one byte of every codeword. When the depth is the number of bytes per frame, each row is a frame, so a damaged
+ *     region of a frame, or even a lost frame, costs each codeword at most one byte.
+ * </p>
+ *
+ * <p>
+ *     The final group still holds {@code interleaveDepth} codewords, but they are shortened to the fewest data bytes
+ *     which hold the rest of the data, with the last codewords padded with zeroes. The bytes which were removed from
+ *     the start of each codeword are zero, so they are not written, and the group is written as fewer rows which
+ *     still hold one byte of every codeword each. This keeps small archives from growing to a full group, without
+ *     weakening the final group. See {@link ErrorCorrection#getEncodedLength}.
+ * </p>
+ *
+ * <p>If the level of error correction is {@link ErrorCorrection#NONE}, then the data is written unchanged.</p>
+ */
+public class ErrorCorrectingOutputStream extends FilterOutputStream {
+    /** Code used to compute the parity, or {@code null} if there is no error correction. */
+    private final ReedSolomon reedSolomon;
+
+    /** Number of data bytes in each codeword of a full group. */
+    private final int dataSymbols;
+
+    /** Number of parity bytes in each codeword. */
+    private final int paritySymbols;
+
+    /** Number of codewords in a full group. */
+    private final int interleaveDepth;
+
+    /** Data of the current group, codeword after codeword. */
+    private final byte[] groupData;
+
+    /** Number of bytes in {@code groupData}. */
+    private int groupLength = 0;
+
+    /** Interleaved codewords of the current group. */
+    private final byte[] groupCodewords;
+
+    /** Number of bytes of data written to the stream, excluding the parity. */
+    @Getter private long dataLength = 0;
+
+    /**
+     * Constructs a new {@code ErrorCorrectingOutputStream}.
+     *
+     * @param outputStream The underlying output stream.
+     * @param errorCorrection The level of error correction.
+     * @param interleaveDepth Number of codewords in a full group, which should be the number of bytes per frame.
+     *
+     * @throws IllegalArgumentException If {@code interleaveDepth} is less than one.
+     */
+    public ErrorCorrectingOutputStream(final @NonNull OutputStream outputStream, final @NonNull ErrorCorrection errorCorrection, final int interleaveDepth) {
+        super(outputStream);
+
+        if (interleaveDepth < 1) {
+            throw new IllegalArgumentException("The interleave depth cannot be < 1.");
+        }
+
+        this.interleaveDepth = interleaveDepth;
+        this.dataSymbols = errorCorrection.getDataSymbols();
+        this.paritySymbols = errorCorrection.paritySymbols;
+
+        if (errorCorrection == ErrorCorrection.NONE) {
+            reedSolomon = null;
+            groupData = null;
+            groupCodewords = null;
+        } else {
+            reedSolomon = new ReedSolomon(errorCorrection.paritySymbols);
+            groupData = new byte[dataSymbols * interleaveDepth];
+            groupCodewords = new byte[ErrorCorrection.CODEWORD_LENGTH * interleaveDepth];
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte @NonNull [] b, int off, int len) throws IOException {
+        dataLength += len;
+
+        if (reedSolomon == null) {
+            out.write(b, off, len);
+            return;
+        }
+
+        while (len > 0) {
+            final var length = Math.min(len, groupData.length - groupLength);
+            System.arraycopy(b, off, groupData, groupLength, length);
+            groupLength += length;
+            off += length;
+            len -= length;
+
+            if (groupLength == groupData.length) {
+                writeGroup(dataSymbols);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (final var outputStream = out) {
+            finish();
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Writes the final group, without closing the underlying stream. Nothing more may be written afterwards.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void finish() throws IOException {
+        if (reedSolomon == null || groupLength == 0) {
+            return;
+        }
+
+        final var groupDataSymbols = Math.ceilDiv(groupLength, interleaveDepth);
+        Arrays.fill(groupData, groupLength, groupDataSymbols * interleaveDepth, (byte) 0);
+        writeGroup(groupDataSymbols);
+    }
+
+    /**
+     * Encodes the codewords of the current group, and writes them interleaved.
+     *
+     * @param groupDataSymbols Number of data bytes in each of the group's codewords, which is less than
+     *                         {@code dataSymbols} if the codewords are shortened.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void writeGroup(final int groupDataSymbols) throws IOException {
+        // The removed bytes of a shortened codeword stay zero, and are not written.
+        final var shortening = dataSymbols - groupDataSymbols;
+        final var rows = groupDataSymbols + paritySymbols;
+
+        final var codeword = new byte[ErrorCorrection.CODEWORD_LENGTH];
+        for (int i = 0 ; i < interleaveDepth ; i++) {
+            System.arraycopy(groupData, i * groupDataSymbols, codeword, shortening, groupDataSymbols);
+            reedSolomon.encode(codeword);
+
+            for (int j = 0 ; j < rows ; j++) {
+                groupCodewords[(j * interleaveDepth) + i] = codeword[shortening + j];
+            }
+        }
+
+        out.write(groupCodewords, 0, rows * interleaveDepth);
+        groupLength = 0;
+    }
+}
@@ -7,6 +7,7 @@ import lombok.NonNull;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public class FileIO {
     /**
@@ -27,8 +28,11 @@ public class FileIO {
             filePath = filePath.resolveSibling(filePath.getFileName() + ".json");
         }
 
+        // The file is replaced in a single step, so that anything watching it never reads a partially written file.
         Files.createDirectories(filePath.getParent());
-        Files.writeString(filePath, new Gson().toJson(object));
+        final var temporaryFilePath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        Files.writeString(temporaryFilePath, new Gson().toJson(object));
+        Files.move(temporaryFilePath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     /**
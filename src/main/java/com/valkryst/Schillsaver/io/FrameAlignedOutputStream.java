@@ -0,0 +1,93 @@
+package com.valkryst.Schillsaver.io;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ *     An {@link OutputStream} which tracks the number of bytes written through it and, when closed, pads the
+ *     underlying stream with zeroes until a whole number of frames has been written.
+ * </p>
+ *
+ * <p>
+ *     This allows data of an unknown length to be piped directly into FFMPEG, which displays an error if the final
+ *     frame is incomplete, or to be written to a file which is already frame-aligned once it is closed.
+ * </p>
+ *
+ * <p>
+ *     The padding is written from a single, shared, buffer of zeroes, so padding never allocates memory, regardless of
+ *     the frame size.
+ * </p>
+ */
+public class FrameAlignedOutputStream extends FilterOutputStream {
+    /** Zeroes written as padding. It is never written to, so it is shared by every stream. */
+    private static final byte[] ZEROES = new byte[64 * 1024];
+
+    /** Number of bytes in a frame. */
+    private final int bytesPerFrame;
+
+    /** Number of bytes written to the underlying stream, including padding. */
+    @Getter private long bytesWritten = 0;
+
+    /**
+     * Constructs a new {@code FrameAlignedOutputStream}.
+     *
+     * @param outputStream The underlying output stream.
+     * @param bytesPerFrame The number of bytes in a frame.
+     *
+     * @throws IllegalArgumentException If {@code bytesPerFrame} is less than one.
+     */
+    public FrameAlignedOutputStream(final @NonNull OutputStream outputStream, final int bytesPerFrame) {
+        super(outputStream);
+
+        if (bytesPerFrame < 1) {
+            throw new IllegalArgumentException("The number of bytes per frame cannot be < 1.");
+        }
+
+        this.bytesPerFrame = bytesPerFrame;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        out.write(b);
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(final byte @NonNull [] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        bytesWritten += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (final var outputStream = out) {
+            padToFrameBoundary();
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Writes zeroes to the underlying stream until the number of bytes written is a multiple of the frame size. Nothing
+     * is written if the stream is already at a frame boundary.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public void padToFrameBoundary() throws IOException {
+        final var remainder = (int) (bytesWritten % bytesPerFrame);
+        if (remainder == 0) {
+            return;
+        }
+
+        var padding = bytesPerFrame - remainder;
+        while (padding > 0) {
+            final var length = Math.min(padding, ZEROES.length);
+            write(ZEROES, 0, length);
+            padding -= length;
+        }
+    }
+}
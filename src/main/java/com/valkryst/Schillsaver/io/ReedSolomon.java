@@ -0,0 +1,343 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+
+/**
+ * <p>
+ *     A systematic Reed–Solomon code over GF(256), whose codewords are {@link ErrorCorrection#CODEWORD_LENGTH}
+ *     bytes.
+ * </p>
+ *
+ * <p>
+ *     Arithmetic is done with lookup tables, including a full multiplication table, so that encoding and checking a
+ *     codeword needs one lookup per byte for each parity byte. Codewords without errors, which are the vast majority,
+ *     are only checked, and the slower correction is only run for those with errors.
+ * </p>
+ *
+ * <p>An instance holds no mutable state, so it can be shared between threads.</p>
+ */
+public class ReedSolomon {
+    /** Primitive polynomial, x^8 + x^4 + x^3 + x^2 + 1, from which the field is generated. */
+    private static final int PRIMITIVE_POLYNOMIAL = 0x11D;
+
+    /** Powers of the field's generator, repeated once so that sums of two logarithms need no reduction. */
+    private static final int[] EXP = new int[512];
+
+    /** Logarithms of the field's elements, other than zero. */
+    private static final int[] LOG = new int[256];
+
+    /** Products of every pair of elements, indexed by {@code (a << 8) | b}. */
+    private static final byte[] MULTIPLY = new byte[256 * 256];
+
+    static {
+        var element = 1;
+        for (int i = 0 ; i < 255 ; i++) {
+            EXP[i] = element;
+            LOG[element] = i;
+
+            element <<= 1;
+            if (element > 0xFF) {
+                element ^= PRIMITIVE_POLYNOMIAL;
+            }
+        }
+
+        for (int i = 255 ; i < EXP.length ; i++) {
+            EXP[i] = EXP[i - 255];
+        }
+
+        for (int a = 1 ; a < 256 ; a++) {
+            for (int b = 1 ; b < 256 ; b++) {
+                MULTIPLY[(a << 8) | b] = (byte) EXP[LOG[a] + LOG[b]];
+            }
+        }
+    }
+
+    /** Number of bytes in a codeword. */
+    private static final int CODEWORD_LENGTH = ErrorCorrection.CODEWORD_LENGTH;
+
+    /** Number of parity bytes in a codeword. */
+    private final int paritySymbols;
+
+    /** Number of data bytes in a codeword. */
+    private final int dataSymbols;
+
+    /**
+     * Products of every element with each coefficient of the generator polynomial, other than its leading one, so that
+     * a single lookup gives the feedback added to each parity byte while encoding.
+     */
+    private final byte[][] generatorProducts;
+
+    /** Offsets, within {@link #MULTIPLY}, of the rows which multiply by each root of the generator polynomial. */
+    private final int[] rootRows;
+
+    /**
+     * Constructs a new {@code ReedSolomon}.
+     *
+     * @param paritySymbols Number of parity bytes in a codeword.
+     *
+     * @throws IllegalArgumentException If {@code paritySymbols} is not within the range [2, 254], or is odd.
+     */
+    public ReedSolomon(final int paritySymbols) {
+        if (paritySymbols < 2 || paritySymbols >= CODEWORD_LENGTH || paritySymbols % 2 != 0) {
+            throw new IllegalArgumentException("The number of parity symbols must be an even number within the range [2, 254].");
+        }
+
+        this.paritySymbols = paritySymbols;
+        this.dataSymbols = CODEWORD_LENGTH - paritySymbols;
+
+        // The generator polynomial is the product of (x - a^i), for i in [0, paritySymbols), from its highest term down.
+        final var generator = new int[paritySymbols + 1];
+        generator[0] = 1;
+        for (int i = 0 ; i < paritySymbols ; i++) {
+            final var root = EXP[i];
+            for (int j = i + 1 ; j > 0 ; j--) {
+                generator[j] ^= multiply(generator[j - 1], root);
+            }
+        }
+
+        generatorProducts = new byte[256][paritySymbols];
+        for (int feedback = 1 ; feedback < 256 ; feedback++) {
+            for (int j = 0 ; j < paritySymbols ; j++) {
+                generatorProducts[feedback][j] = (byte) multiply(feedback, generator[j + 1]);
+            }
+        }
+
+        rootRows = new int[paritySymbols];
+        for (int i = 0 ; i < paritySymbols ; i++) {
+            rootRows[i] = EXP[i] << 8;
+        }
+    }
+
+    /**
+     * Computes the parity of a codeword, from its data.
+     *
+     * @param codeword The codeword. Its first {@code dataSymbols} bytes are the data, and its parity is written into
+     *                 the rest of it.
+     */
+    public void encode(final byte[] codeword) {
+        final var parity = new byte[paritySymbols];
+        for (int i = 0 ; i < dataSymbols ; i++) {
+            final var feedback = (codeword[i] ^ parity[0]) & 0xFF;
+            System.arraycopy(parity, 1, parity, 0, paritySymbols - 1);
+            parity[paritySymbols - 1] = 0;
+
+            if (feedback != 0) {
+                final var products = generatorProducts[feedback];
+                for (int j = 0 ; j < paritySymbols ; j++) {
+                    parity[j] ^= products[j];
+                }
+            }
+        }
+
+        System.arraycopy(parity, 0, codeword, dataSymbols, paritySymbols);
+    }
+
+    /**
+     * Corrects the errors in a codeword, in place.
+     *
+     * @param codeword The codeword.
+     * @return The number of bytes which were corrected, or {@code -1} if the codeword has more errors than can be
+     *         corrected, in which case it is left unchanged.
+     */
+    public int decode(final byte[] codeword) {
+        final var syndromes = computeSyndromes(codeword);
+        if (syndromes == null) {
+            return 0;
+        }
+
+        final var locator = findErrorLocator(syndromes);
+        final var errorCount = locator.length - 1;
+        if (errorCount > paritySymbols / 2) {
+            return -1;
+        }
+
+        final var positions = findErrorPositions(locator, errorCount);
+        if (positions == null) {
+            return -1;
+        }
+
+        // The error evaluator is the product of the syndromes and the locator, modulo x^paritySymbols.
+        final var evaluator = new int[paritySymbols];
+        for (int i = 0 ; i < paritySymbols ; i++) {
+            for (int j = 0 ; j <= Math.min(i, errorCount) ; j++) {
+                evaluator[i] ^= multiply(syndromes[i - j], locator[j]);
+            }
+        }
+
+        // Forney's algorithm gives the magnitude of each error. The roots start at a^0, so each is scaled by X.
+        final var magnitudes = new int[errorCount];
+        for (int i = 0 ; i < errorCount ; i++) {
+            final var exponent = CODEWORD_LENGTH - 1 - positions[i];
+            final var inverse = EXP[(255 - exponent) % 255];
+
+            final var numerator = evaluate(evaluator, inverse);
+            var denominator = 0;
+            for (int j = 1 ; j <= errorCount ; j += 2) {
+                denominator ^= multiply(locator[j], power(inverse, j - 1));
+            }
+
+            if (denominator == 0) {
+                return -1;
+            }
+
+            magnitudes[i] = multiply(EXP[exponent], divide(numerator, denominator));
+        }
+
+        for (int i = 0 ; i < errorCount ; i++) {
+            codeword[positions[i]] ^= (byte) magnitudes[i];
+        }
+
+        return errorCount;
+    }
+
+    /**
+     * Computes the syndromes of a codeword, by evaluating it at each root of the generator polynomial.
+     *
+     * @param codeword The codeword.
+     * @return The syndromes, or {@code null} if they are all zero, meaning that the codeword has no errors.
+     */
+    private int[] computeSyndromes(final byte[] codeword) {
+        final var syndromes = new int[paritySymbols];
+        for (int i = 0 ; i < CODEWORD_LENGTH ; i++) {
+            final var symbol = codeword[i] & 0xFF;
+            for (int j = 0 ; j < paritySymbols ; j++) {
+                syndromes[j] = (MULTIPLY[rootRows[j] | syndromes[j]] & 0xFF) ^ symbol;
+            }
+        }
+
+        for (final var syndrome : syndromes) {
+            if (syndrome != 0) {
+                return syndromes;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the error locator polynomial of a codeword, with the Berlekamp–Massey algorithm.
+     *
+     * @param syndromes The codeword's syndromes.
+     * @return The coefficients of the polynomial, from its lowest term up. Its degree is the number of errors.
+     */
+    private int[] findErrorLocator(final int[] syndromes) {
+        var locator = new int[paritySymbols + 1];
+        var previous = new int[paritySymbols + 1];
+        locator[0] = 1;
+        previous[0] = 1;
+
+        var errorCount = 0;
+        var shift = 1;
+        var previousDiscrepancy = 1;
+        for (int n = 0 ; n < paritySymbols ; n++) {
+            var discrepancy = syndromes[n];
+            for (int i = 1 ; i <= errorCount ; i++) {
+                discrepancy ^= multiply(locator[i], syndromes[n - i]);
+            }
+
+            if (discrepancy == 0) {
+                shift++;
+                continue;
+            }
+
+            final var scale = divide(discrepancy, previousDiscrepancy);
+            if (2 * errorCount <= n) {
+                final var copy = locator.clone();
+                for (int i = 0 ; i + shift <= paritySymbols ; i++) {
+                    locator[i + shift] ^= multiply(scale, previous[i]);
+                }
+
+                errorCount = n + 1 - errorCount;
+                previous = copy;
+                previousDiscrepancy = discrepancy;
+                shift = 1;
+            } else {
+                for (int i = 0 ; i + shift <= paritySymbols ; i++) {
+                    locator[i + shift] ^= multiply(scale, previous[i]);
+                }
+                shift++;
+            }
+        }
+
+        final var trimmed = new int[errorCount + 1];
+        System.arraycopy(locator, 0, trimmed, 0, Math.min(locator.length, trimmed.length));
+        return trimmed;
+    }
+
+    /**
+     * Finds the positions of a codeword's errors, with a Chien search for the roots of its error locator.
+     *
+     * @param locator The error locator.
+     * @param errorCount The number of errors.
+     * @return The positions, or {@code null} if the locator does not have one root per error, meaning that the
+     *         codeword has more errors than can be corrected.
+     */
+    private int[] findErrorPositions(final int[] locator, final int errorCount) {
+        final var positions = new int[errorCount];
+        var found = 0;
+        for (int position = 0 ; position < CODEWORD_LENGTH ; position++) {
+            final var exponent = CODEWORD_LENGTH - 1 - position;
+            if (evaluate(locator, EXP[(255 - exponent) % 255]) == 0) {
+                if (found == errorCount) {
+                    return null;
+                }
+
+                positions[found++] = position;
+            }
+        }
+
+        return found == errorCount ? positions : null;
+    }
+
+    /**
+     * Evaluates a polynomial.
+     *
+     * @param polynomial The coefficients of the polynomial, from its lowest term up.
+     * @param x The value at which to evaluate it.
+     * @return The result.
+     */
+    private static int evaluate(final int[] polynomial, final int x) {
+        var result = 0;
+        for (int i = polynomial.length - 1 ; i >= 0 ; i--) {
+            result = multiply(result, x) ^ polynomial[i];
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies two elements of the field.
+     *
+     * @param a The first element.
+     * @param b The second element.
+     * @return The product.
+     */
+    private static int multiply(final int a, final int b) {
+        return MULTIPLY[(a << 8) | b] & 0xFF;
+    }
+
+    /**
+     * Divides one element of the field by another.
+     *
+     * @param a The dividend.
+     * @param b The divisor, which must not be zero.
+     * @return The quotient.
+     */
+    private static int divide(final int a, final int b) {
+        if (a == 0) {
+            return 0;
+        }
+
+        return EXP[LOG[a] + 255 - LOG[b]];
+    }
+
+    /**
+     * Raises an element of the field to a power.
+     *
+     * @param a The element, which must not be zero.
+     * @param exponent The power.
+     * @return The result.
+     */
+    private static int power(final int a, final int exponent) {
+        return EXP[(LOG[a] * exponent) % 255];
+    }
+}
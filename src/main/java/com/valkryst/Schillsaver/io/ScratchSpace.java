@@ -0,0 +1,113 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.setting.Settings;
+import lombok.NonNull;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Creates the temporary files and folders used while encoding and decoding, and checks that they will fit.</p>
+ *
+ * <p>
+ *     Intermediate files, such as archives and encoded segments, are written to the scratch folder, which can be placed
+ *     on a fast disk or a tmpfs. Final outputs are written to a hidden staging folder within the output folder, so
+ *     that moving them into place is a rename, rather than a copy between file systems.
+ * </p>
+ */
+public class ScratchSpace {
+    /** Prefix of the names of the temporary files and folders. */
+    private static final String PREFIX = "schillsaver-";
+
+    /**
+     * Assumed ratio between the size of an encoded video and the size of the data it holds. This is deliberately
+     * pessimistic, as running out of space hours into an encode is far worse than refusing to start one.
+     */
+    private static final int VIDEO_SIZE_RATIO = 2;
+
+    /**
+     * Retrieves the path to the scratch folder.
+     *
+     * @param settings The settings.
+     * @return The path to the scratch folder, or to the system's temporary folder if no scratch folder is set.
+     */
+    public static Path getScratchFolderPath(final @NonNull Settings settings) {
+        if (settings.scratchFolderPath().toString().isBlank()) {
+            return Path.of(System.getProperty("java.io.tmpdir"));
+        }
+
+        return settings.scratchFolderPath();
+    }
+
+    /**
+     * Creates a new, empty, temporary folder in the scratch folder.
+     *
+     * @param settings The settings.
+     * @return The path to the folder.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public static Path createScratchFolder(final @NonNull Settings settings) throws IOException {
+        final var folderPath = Files.createDirectories(getScratchFolderPath(settings));
+        return Files.createTempDirectory(folderPath, PREFIX);
+    }
+
+    /**
+     * Creates a new, empty, hidden folder within the output folder, in which an output is written before it is moved
+     * into place.
+     *
+     * @param settings The settings.
+     * @return The path to the folder.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public static Path createStagingFolder(final @NonNull Settings settings) throws IOException {
+        final var folderPath = Files.createDirectories(settings.outputFolderPath());
+        return Files.createTempDirectory(folderPath, "." + PREFIX);
+    }
+
+    /**
+     * Estimates the size of the video which holds the specified number of frames.
+     *
+     * @param settings The settings.
+     * @param frameCount Number of frames.
+     * @return The estimated size, in bytes.
+     */
+    public static long estimateVideoSize(final @NonNull Settings settings, final long frameCount) {
+        return frameCount * settings.getBytesPerFrame() * VIDEO_SIZE_RATIO;
+    }
+
+    /**
+     * Ensures that each folder's file system has enough usable space for the files which will be written to it. When
+     * several folders share a file system, their requirements are added together.
+     *
+     * @param requirements Number of bytes which will be written to each folder.
+     *
+     * @throws IOException If a file system does not have enough usable space, or if an I/O exception occurs.
+     */
+    public static void requireSpace(final @NonNull Map<Path, Long> requirements) throws IOException {
+        final var requiredBytes = new LinkedHashMap<FileStore, Long>();
+        final var folderPaths = new LinkedHashMap<FileStore, Path>();
+        for (final var requirement : requirements.entrySet()) {
+            final var fileStore = Files.getFileStore(requirement.getKey());
+            requiredBytes.merge(fileStore, requirement.getValue(), Long::sum);
+            folderPaths.putIfAbsent(fileStore, requirement.getKey());
+        }
+
+        for (final var entry : requiredBytes.entrySet()) {
+            final var usableBytes = entry.getKey().getUsableSpace();
+            if (usableBytes < entry.getValue()) {
+                throw new IOException(
+                    "There is not enough free space for " + folderPaths.get(entry.getKey()) + ". About "
+                    + FileUtils.byteCountToDisplaySize(entry.getValue()) + " is needed, but only "
+                    + FileUtils.byteCountToDisplaySize(usableBytes) + " is free."
+                );
+            }
+        }
+    }
+}
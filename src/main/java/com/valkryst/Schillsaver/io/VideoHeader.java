@@ -0,0 +1,287 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.decoder.FrameSampler;
+import com.valkryst.Schillsaver.encoder.FrameRenderer;
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import lombok.NonNull;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * <p>Describes the payload of an encoded video, so that it can be decoded exactly.</p>
+ *
+ * <p>
+ *     Each video begins with a header frame and ends with a trailer frame, between which are the frames of the
+ *     payload. Both hold the same fields, but the payload's length and checksum are only known in the header when the
+ *     payload was written to a file before it was encoded, whereas the trailer always holds them.
+ * </p>
+ *
+ * <p>
+ *     The header frame is always drawn with {@link #HEADER_BLOCK_SIZE}, regardless of the block size of the payload,
+ *     so that it can be read before the payload's block size is known, and so that it survives more compression than
+ *     the payload. The trailer is drawn with the payload's block size, as the last frame of the payload, and is removed
+ *     from the decoded file along with the padding before it.
+ * </p>
+ *
+ * <p>
+ *     Each frame holds {@link #COPIES} copies of a small record, each with its own CRC, so that a record can be
+ *     recovered even if some of its blocks are damaged.
+ * </p>
+ *
+ * <p>
+ *     The payload's length and checksum are those of the archive, before any error correction was added to it. The
+ *     header and trailer are not error corrected, as they must be read before the error correction can be removed.
+ * </p>
+ *
+ * @param codec Codec used to compress the payload.
+ * @param errorCorrection Level of error correction added to the payload.
+ * @param blockSize Block size of the payload's frames.
+ * @param resolution Resolution of the video.
+ * @param payloadLength Number of bytes in the payload, or {@code -1} if unknown.
+ * @param checksum CRC32 of the payload, or {@code -1} if unknown.
+ */
+public record VideoHeader(@NonNull CompressionCodec codec, @NonNull ErrorCorrection errorCorrection, @NonNull BlockSize blockSize, @NonNull FrameResolution resolution, long payloadLength, long checksum) {
+    /** Block size of the header frame. It is the largest block size, and holds a record at every resolution. */
+    public static final BlockSize HEADER_BLOCK_SIZE = BlockSize.S10;
+
+    /** Bytes which begin every record, {@code SCHL}. */
+    private static final int MAGIC = 0x5343484C;
+
+    /** Version of the record's layout. */
+    private static final byte VERSION = 2;
+
+    /** Kind of record held by the header frame. */
+    private static final byte KIND_HEADER = 0;
+
+    /** Kind of record held by the trailer frame. */
+    private static final byte KIND_TRAILER = 1;
+
+    /** Number of bytes in a record, including its CRC. */
+    private static final int RECORD_LENGTH = 33;
+
+    /** Number of copies of the record held by each frame. */
+    private static final int COPIES = 3;
+
+    /** Number of bytes, at the start of a frame's data, which hold the copies of the record. */
+    public static final int LENGTH = RECORD_LENGTH * COPIES;
+
+    /**
+     * Renders the header frame.
+     *
+     * @return The frame's pixels.
+     */
+    public byte[] renderHeaderFrame() {
+        final var outputStream = new ByteArrayOutputStream(Math.toIntExact(resolution.pixelCount));
+        try (final var frameRenderer = new FrameRenderer(outputStream, resolution, HEADER_BLOCK_SIZE)) {
+            frameRenderer.write(toRecords(KIND_HEADER));
+        } catch (final IOException e) {
+            // A ByteArrayOutputStream never throws.
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates the data of the trailer frame. It must be written at the start of a frame, and the rest of the frame
+     * must be padded.
+     *
+     * @return The data.
+     */
+    public byte[] toTrailer() {
+        return toRecords(KIND_TRAILER);
+    }
+
+    /**
+     * Reads the header from the pixels of a video's first frame.
+     *
+     * @param framePixels Pixels of the frame.
+     * @param resolution Resolution of the frame.
+     * @return The header, or an empty optional if the frame is not a header frame, such as the first frame of a video
+     *         which was encoded before headers were added.
+     */
+    public static Optional<VideoHeader> readHeaderFrame(final byte @NonNull [] framePixels, final @NonNull FrameResolution resolution) {
+        final var frameSampler = new FrameSampler(resolution, HEADER_BLOCK_SIZE);
+        if (framePixels.length < frameSampler.getFrameSize()) {
+            return Optional.empty();
+        }
+
+        final var frameData = new byte[frameSampler.getBytesPerFrame()];
+        frameSampler.sample(framePixels, frameData);
+        return fromRecords(frameData, KIND_HEADER);
+    }
+
+    /**
+     * Reads the trailer from the decoded data of a video's last frame.
+     *
+     * @param frameData Data of the frame.
+     * @return The trailer, or an empty optional if the data does not hold a trailer.
+     */
+    public static Optional<VideoHeader> readTrailer(final byte @NonNull [] frameData) {
+        return fromRecords(frameData, KIND_TRAILER);
+    }
+
+    /**
+     * Computes the CRC32 of the start of a file, as recorded in the {@code checksum} field.
+     *
+     * @param filePath Path to the file.
+     * @param length Number of bytes, from the start of the file, to include.
+     * @return The CRC32.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    public static long computeChecksum(final @NonNull Path filePath, final long length) throws IOException {
+        final var checksum = new CRC32();
+        try (
+            final var inputStream = new CheckedInputStream(Files.newInputStream(filePath), checksum);
+            final var boundedInputStream = BoundedInputStream.builder().setInputStream(inputStream).setMaxCount(length).get()
+        ) {
+            boundedInputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Creates the copies of the record.
+     *
+     * @param kind Kind of record.
+     * @return The copies.
+     */
+    private byte[] toRecords(final byte kind) {
+        final var buffer = ByteBuffer.allocate(RECORD_LENGTH);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(kind);
+        buffer.put((byte) codec.id);
+        buffer.put((byte) errorCorrection.paritySymbols);
+        buffer.put((byte) blockSize.blockSize);
+        buffer.putShort((short) resolution.width);
+        buffer.putShort((short) resolution.height);
+        buffer.putLong(payloadLength);
+        buffer.putLong(checksum);
+        buffer.putInt(computeCrc(buffer.array()));
+
+        final var records = new byte[LENGTH];
+        for (int i = 0 ; i < COPIES ; i++) {
+            System.arraycopy(buffer.array(), 0, records, i * RECORD_LENGTH, RECORD_LENGTH);
+        }
+        return records;
+    }
+
+    /**
+     * Recovers a record from its copies. The first intact copy is used and, if every copy is damaged, a copy is
+     * rebuilt by taking the majority value of each bit across the copies.
+     *
+     * @param data Data holding the copies.
+     * @param kind Kind of record.
+     * @return The record, or an empty optional if it cannot be recovered.
+     */
+    private static Optional<VideoHeader> fromRecords(final byte[] data, final byte kind) {
+        if (data.length < LENGTH) {
+            return Optional.empty();
+        }
+
+        for (int i = 0 ; i < COPIES ; i++) {
+            final var record = new byte[RECORD_LENGTH];
+            System.arraycopy(data, i * RECORD_LENGTH, record, 0, RECORD_LENGTH);
+
+            final var header = fromRecord(record, kind);
+            if (header.isPresent()) {
+                return header;
+            }
+        }
+
+        final var record = new byte[RECORD_LENGTH];
+        for (int i = 0 ; i < RECORD_LENGTH ; i++) {
+            final var a = data[i];
+            final var b = data[RECORD_LENGTH + i];
+            final var c = data[(2 * RECORD_LENGTH) + i];
+            record[i] = (byte) ((a & b) | (a & c) | (b & c));
+        }
+        return fromRecord(record, kind);
+    }
+
+    /**
+     * Parses a single copy of a record.
+     *
+     * @param record The copy.
+     * @param kind Kind of record.
+     * @return The record, or an empty optional if the copy is damaged, or is not a record of the specified kind.
+     */
+    private static Optional<VideoHeader> fromRecord(final byte[] record, final byte kind) {
+        final var buffer = ByteBuffer.wrap(record);
+        if (buffer.getInt(RECORD_LENGTH - 4) != computeCrc(record)) {
+            return Optional.empty();
+        }
+
+        if (buffer.getInt() != MAGIC || buffer.get() != VERSION || buffer.get() != kind) {
+            return Optional.empty();
+        }
+
+        final var codec = CompressionCodec.fromId(buffer.get() & 0xFF);
+        final var errorCorrection = ErrorCorrection.fromParitySymbols(buffer.get() & 0xFF);
+        final var blockSize = findBlockSize(buffer.get() & 0xFF);
+        final var resolution = findResolution(buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF);
+        if (codec.isEmpty() || errorCorrection.isEmpty() || blockSize.isEmpty() || resolution.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new VideoHeader(codec.get(), errorCorrection.get(), blockSize.get(), resolution.get(), buffer.getLong(), buffer.getLong()));
+    }
+
+    /**
+     * Computes the CRC of a record, excluding the CRC field at its end.
+     *
+     * @param record The record.
+     * @return The CRC.
+     */
+    private static int computeCrc(final byte[] record) {
+        final var crc = new CRC32();
+        crc.update(record, 0, RECORD_LENGTH - 4);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Finds the block size with the specified number of pixels along each edge.
+     *
+     * @param pixels The number of pixels.
+     * @return The block size, or an empty optional if there is no such block size.
+     */
+    private static Optional<BlockSize> findBlockSize(final int pixels) {
+        for (final var blockSize : BlockSize.values()) {
+            if (blockSize.blockSize == pixels) {
+                return Optional.of(blockSize);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the resolution with the specified dimensions.
+     *
+     * @param width Frame width.
+     * @param height Frame height.
+     * @return The resolution, or an empty optional if there is no such resolution.
+     */
+    public static Optional<FrameResolution> findResolution(final int width, final int height) {
+        for (final var resolution : FrameResolution.values()) {
+            if (resolution.width == width && resolution.height == height) {
+                return Optional.of(resolution);
+            }
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,96 @@
+package com.valkryst.Schillsaver.job;
+
+import com.valkryst.Schillsaver.decoder.Decoder;
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.file.Path;
+
+/** A single file which is decoded by a {@link DecodeQueue}. */
+public class DecodeJob {
+    /** Path of the file to decode. */
+    @Getter private final Path inputPath;
+
+    /** Current status of the job. */
+    @Getter private volatile JobStatus status = JobStatus.QUEUED;
+
+    /** Path of the decoded archive, once the job has completed. */
+    @Getter private volatile Path outputPath;
+
+    /** Latest progress reported by FFMPEG while decoding, or {@code null} if none has been reported. */
+    @Getter private volatile ProgressEvent progress;
+
+    /** Exception which caused the job to fail, if any. */
+    @Getter private volatile Exception error;
+
+    /** Whether the job has been asked to stop. */
+    @Getter private volatile boolean cancelRequested = false;
+
+    /** Decoder which is running the job, or {@code null} if it has not started. */
+    private Decoder decoder;
+
+    /**
+     * Constructs a new {@code DecodeJob}.
+     *
+     * @param inputPath Path of the file to decode.
+     */
+    DecodeJob(final @NonNull Path inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    /**
+     * Attempts to start the job with the specified decoder.
+     *
+     * @param decoder The decoder.
+     * @return Whether the job was started, as it may have been cancelled while queued.
+     */
+    synchronized boolean start(final @NonNull Decoder decoder) {
+        if (cancelRequested) {
+            status = JobStatus.CANCELLED;
+            return false;
+        }
+
+        this.decoder = decoder;
+        status = JobStatus.RUNNING;
+        decoder.start();
+        return true;
+    }
+
+    /** Asks the job to stop. A queued job is never started, and a running job's decoder is interrupted. */
+    synchronized void cancel() {
+        cancelRequested = true;
+
+        if (decoder != null) {
+            decoder.interrupt();
+        }
+    }
+
+    /**
+     * Records the latest progress reported by FFMPEG.
+     *
+     * @param progress The progress.
+     */
+    void updateProgress(final @NonNull ProgressEvent progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Marks the job as finished.
+     *
+     * @param outputPath Path of the decoded archive, or {@code null} if decoding failed or was cancelled.
+     * @param error Exception which caused the job to fail, if any.
+     */
+    synchronized void finish(final Path outputPath, final Exception error) {
+        this.outputPath = outputPath;
+        this.error = error;
+
+        if (cancelRequested) {
+            status = JobStatus.CANCELLED;
+        } else if (outputPath == null) {
+            status = JobStatus.FAILED;
+        } else {
+            status = JobStatus.COMPLETED;
+        }
+    }
+}
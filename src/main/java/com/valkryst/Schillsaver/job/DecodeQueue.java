@@ -0,0 +1,253 @@
+package com.valkryst.Schillsaver.job;
+
+import com.valkryst.Schillsaver.decoder.Decoder;
+import com.valkryst.Schillsaver.setting.Settings;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * <p>Decodes a batch of files, several at a time.</p>
+ *
+ * <p>
+ *     The number of files decoded at once is chosen so that the FFMPEG processes of all running jobs fit within the
+ *     machine's cores. The cores are then divided evenly between the running jobs, so that a batch of one file still
+ *     uses the whole machine.
+ * </p>
+ */
+public class DecodeQueue {
+    /** Number of cores assumed to be used by an FFMPEG process, when its thread count is left to FFMPEG. */
+    private static final int DEFAULT_FFMPEG_THREADS = 4;
+
+    /** Consumer to call whenever a job's status changes. */
+    @Setter private Consumer<DecodeJob> onJobUpdate = (final DecodeJob job) -> {};
+
+    /** Consumer to call whenever FFMPEG reports the progress of a job. */
+    @Setter private Consumer<DecodeJob> onJobProgress = (final DecodeJob job) -> {};
+
+    /** Runnable to call once every job has finished. */
+    @Setter private Runnable onFinished = () -> {};
+
+    /** Consumer to call when the progress needs to be updated. */
+    @Setter private Consumer<String> updateProgress = (final String progress) -> {};
+
+    /** Jobs in the queue, in the order they were submitted. */
+    @Getter private final List<DecodeJob> jobs;
+
+    /** Settings to decode with. */
+    private final Settings settings;
+
+    /** Number of jobs which are run at once. */
+    @Getter private final int concurrency;
+
+    /** Number of cores given to each running job. */
+    private final int coresPerJob;
+
+    /** Number of jobs which have not yet finished. */
+    private final AtomicInteger unfinishedJobs;
+
+    /** Pool of threads used to run the jobs. */
+    private ExecutorService executorService;
+
+    /**
+     * Constructs a new {@code DecodeQueue}.
+     *
+     * @param inputPaths Paths of the files to decode.
+     * @param settings Settings to decode with. Each decoded archive is moved to the output folder.
+     */
+    public DecodeQueue(final @NonNull List<Path> inputPaths, final @NonNull Settings settings) {
+        final var jobs = new ArrayList<DecodeJob>(inputPaths.size());
+        for (final var inputPath : inputPaths) {
+            jobs.add(new DecodeJob(inputPath));
+        }
+        this.jobs = Collections.unmodifiableList(jobs);
+        this.settings = settings;
+
+        final var cores = Runtime.getRuntime().availableProcessors();
+        final var threadsPerJob = settings.ffmpegThreads() > 0 ? settings.ffmpegThreads() : DEFAULT_FFMPEG_THREADS;
+        concurrency = Math.max(1, Math.min(jobs.size(), cores / threadsPerJob));
+        coresPerJob = Math.max(1, cores / concurrency);
+
+        unfinishedJobs = new AtomicInteger(jobs.size());
+    }
+
+    /**
+     * Starts running the jobs.
+     *
+     * @throws IllegalStateException If the queue has already been started.
+     */
+    public synchronized void start() {
+        if (executorService != null) {
+            throw new IllegalStateException("The queue has already been started.");
+        }
+
+        if (jobs.isEmpty()) {
+            onFinished.run();
+            return;
+        }
+
+        final var threadNumber = new AtomicInteger(0);
+        executorService = Executors.newFixedThreadPool(concurrency, runnable -> new Thread(runnable, "Decode Job-" + threadNumber.incrementAndGet()));
+        jobs.forEach(job -> executorService.execute(() -> run(job)));
+        executorService.shutdown();
+    }
+
+    /** Cancels every job which has not finished. Queued jobs are skipped, and running jobs are interrupted. */
+    public void cancel() {
+        jobs.forEach(DecodeJob::cancel);
+    }
+
+    /**
+     * Cancels one of the jobs, if it has not finished. A queued job is skipped, and a running job is interrupted.
+     *
+     * @param job The job.
+     *
+     * @throws IllegalArgumentException If the job does not belong to this queue.
+     */
+    public void cancel(final @NonNull DecodeJob job) {
+        if (!jobs.contains(job)) {
+            throw new IllegalArgumentException("The job does not belong to this queue.");
+        }
+
+        job.cancel();
+    }
+
+    /**
+     * Determines whether every job has finished.
+     *
+     * @return Whether every job has finished.
+     */
+    public boolean isFinished() {
+        return unfinishedJobs.get() == 0;
+    }
+
+    /**
+     * Runs a single job, and moves its decoded archive to the output folder.
+     *
+     * @param job The job.
+     */
+    private void run(final DecodeJob job) {
+        final var prefix = "[" + job.getInputPath().getFileName() + "] ";
+        final var outputPath = new AtomicReference<Path>();
+        final var error = new AtomicReference<Exception>();
+
+        final var decoder = new Decoder(job.getInputPath(), settings, coresPerJob);
+        decoder.setOnCompletion(outputPath::set);
+        decoder.setOnError(error::set);
+        decoder.setUpdateProgress((final String progress) -> updateProgress.accept(prefix + progress));
+        decoder.setOnProgress(progress -> {
+            job.updateProgress(progress);
+            onJobProgress.accept(job);
+        });
+
+        try {
+            if (!job.start(decoder)) {
+                updateProgress.accept(prefix + "Decoding cancelled.\n");
+                return;
+            }
+            onJobUpdate.accept(job);
+
+            try {
+                decoder.join();
+            } catch (final InterruptedException e) {
+                decoder.interrupt();
+                Thread.currentThread().interrupt();
+            }
+
+            var archivePath = outputPath.get();
+            if (archivePath != null && job.isCancelRequested()) {
+                deleteQuietly(archivePath);
+                archivePath = null;
+            }
+
+            if (archivePath != null) {
+                final var stagedPath = archivePath;
+                try {
+                    archivePath = moveToOutput(job, stagedPath);
+
+                    // Removes the archive's staging folder.
+                    deleteQuietly(stagedPath);
+                } catch (final IOException e) {
+                    // The archive is kept in its staging folder, so that it is not lost.
+                    error.set(new IOException("Unable to move the decoded archive to the output folder, so it was left at " + stagedPath + ": " + e.getMessage(), e));
+                    archivePath = null;
+                }
+            }
+
+            job.finish(archivePath, error.get());
+
+            switch (job.getStatus()) {
+                case COMPLETED -> updateProgress.accept(prefix + "Decoding complete.\n");
+                case CANCELLED -> updateProgress.accept(prefix + "Decoding cancelled.\n");
+                default -> updateProgress.accept(prefix + "Decoding failed: " + (job.getError() == null ? "Unknown error." : job.getError().getMessage()) + "\n");
+            }
+        } finally {
+            onJobUpdate.accept(job);
+
+            if (unfinishedJobs.decrementAndGet() == 0) {
+                onFinished.run();
+            }
+        }
+    }
+
+    /**
+     * Moves a job's decoded archive to the output folder. If a file with the archive's name already exists, then a
+     * number is added to the name, before its extension.
+     *
+     * @param job The job.
+     * @param stagedPath Path to the decoded archive.
+     * @return Path to the moved archive.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Path moveToOutput(final DecodeJob job, final Path stagedPath) throws IOException {
+        final var outputFolderPath = settings.outputFolderPath();
+        Files.createDirectories(outputFolderPath);
+
+        // The archive is named after the video, followed by its codec's extension, which may have several parts.
+        final var fileName = stagedPath.getFileName().toString();
+        var name = FilenameUtils.getBaseName(job.getInputPath().toString());
+        if (!fileName.startsWith(name)) {
+            name = FilenameUtils.getBaseName(fileName);
+        }
+        final var extension = fileName.substring(name.length());
+
+        var outputPath = outputFolderPath.resolve(fileName);
+        for (int i = 1 ; ; i++) {
+            try {
+                return Files.move(stagedPath, outputPath);
+            } catch (final FileAlreadyExistsException e) {
+                // Another archive, possibly from a job which is running at the same time, already has this name.
+                outputPath = outputFolderPath.resolve(name + " (" + i + ")" + extension);
+            }
+        }
+    }
+
+    /**
+     * Deletes a file, and its parent folder if it is empty, ignoring any errors.
+     *
+     * @param path Path to the file.
+     */
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(path.getParent());
+        } catch (final IOException ignored) {
+            // The file is in a temporary folder, so it will eventually be cleaned up by the OS.
+        }
+    }
+}
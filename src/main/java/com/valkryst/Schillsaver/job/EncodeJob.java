@@ -0,0 +1,148 @@
+package com.valkryst.Schillsaver.job;
+
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/** A set of paths which are encoded, by an {@link EncodeScheduler}, into a single video. */
+public class EncodeJob {
+    /** Formatter used to generate unique video names. */
+    private final static DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+    /** Name of the job, which is also used as the name of its video. */
+    @Getter private final String name;
+
+    /** Paths to encode. */
+    @Getter private final List<Path> paths;
+
+    /** Current status of the job. */
+    @Getter private volatile JobStatus status = JobStatus.QUEUED;
+
+    /** Path of the encoded video, once the job has completed. */
+    @Getter private volatile Path outputPath;
+
+    /** Latest progress reported by FFMPEG while encoding, or {@code null} if none has been reported. */
+    @Getter private volatile ProgressEvent progress;
+
+    /** Exception which caused the job to fail, if any. */
+    @Getter private volatile Exception error;
+
+    /** Whether the job has been asked to stop. */
+    @Getter private volatile boolean cancelRequested = false;
+
+    /** Thread which is running the job's current stage, or {@code null} if no stage is running. */
+    private Thread worker;
+
+    /**
+     * Constructs a new {@code EncodeJob}.
+     *
+     * @param name Name of the job, which is also used as the name of its video.
+     * @param paths Paths to encode.
+     */
+    public EncodeJob(final @NonNull String name, final @NonNull List<Path> paths) {
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("Paths list is empty.");
+        }
+
+        this.name = name;
+        this.paths = List.copyOf(paths);
+    }
+
+    /**
+     * Groups the paths into jobs.
+     *
+     * @param paths The paths to encode.
+     * @param videoPerFolder Whether to group the paths by their folder, rather than into a single job.
+     * @return The jobs.
+     */
+    public static List<EncodeJob> createJobs(final List<Path> paths, final boolean videoPerFolder) {
+        final var timestamp = LocalDateTime.now().format(DATE_TIME_FORMATTER);
+        if (!videoPerFolder) {
+            return List.of(new EncodeJob(timestamp, paths));
+        }
+
+        final var folders = new LinkedHashMap<Path, List<Path>>();
+        for (final var path : paths) {
+            final var folder = path.toAbsolutePath().getParent();
+            folders.computeIfAbsent(folder, key -> new ArrayList<>()).add(path);
+        }
+
+        final var jobs = new ArrayList<EncodeJob>(folders.size());
+        final var names = new HashSet<String>();
+        folders.forEach((folder, folderPaths) -> {
+            final var folderName = folder == null || folder.getFileName() == null ? timestamp : folder.getFileName().toString();
+
+            // Folders in different locations may share a name, but each job's name must be unique.
+            var name = folderName;
+            for (int i = 1 ; !names.add(name) ; i++) {
+                name = folderName + " (" + i + ")";
+            }
+
+            jobs.add(new EncodeJob(name, folderPaths));
+        });
+        return jobs;
+    }
+
+    /**
+     * Attempts to start one of the job's stages on the specified thread.
+     *
+     * @param worker The thread, which must not have been started.
+     * @return Whether the stage was started, as the job may have been cancelled.
+     */
+    synchronized boolean startStage(final @NonNull Thread worker) {
+        if (cancelRequested) {
+            return false;
+        }
+
+        this.worker = worker;
+        status = JobStatus.RUNNING;
+        worker.start();
+        return true;
+    }
+
+    /** Asks the job to stop. A queued job is never started, and the thread of a running stage is interrupted. */
+    synchronized void cancel() {
+        cancelRequested = true;
+
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Records the latest progress reported by FFMPEG.
+     *
+     * @param progress The progress.
+     */
+    void updateProgress(final @NonNull ProgressEvent progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Marks the job as finished.
+     *
+     * @param outputPath Path of the encoded video, or {@code null} if encoding failed or was cancelled.
+     * @param error Exception which caused the job to fail, if any.
+     */
+    synchronized void finish(final Path outputPath, final Exception error) {
+        this.outputPath = outputPath;
+        this.error = error;
+        this.worker = null;
+
+        if (cancelRequested) {
+            status = JobStatus.CANCELLED;
+        } else if (outputPath == null) {
+            status = JobStatus.FAILED;
+        } else {
+            status = JobStatus.COMPLETED;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.valkryst.Schillsaver.job;
+
+import com.valkryst.Schillsaver.archiver.Archiver;
+import com.valkryst.Schillsaver.encoder.Encoder;
+import com.valkryst.Schillsaver.setting.Settings;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * <p>Encodes a batch of independent jobs, several at a time, within a budget of cores.</p>
+ *
+ * <p>
+ *     Each job passes through three stages, each of which has its own pool of threads: archiving, which is mostly
+ *     disk-bound and is internally parallel; encoding, which is CPU-bound; and moving the video to the output folder,
+ *     which is disk-bound. As the stages of different jobs overlap, one job can be archived while others are encoded.
+ * </p>
+ *
+ * <p>
+ *     The core budget is divided between the encoding slots, and each slot's FFMPEG processes are given a matching
+ *     {@code -threads} share, so that the running jobs do not oversubscribe the CPU. When streaming encode is enabled,
+ *     archiving and encoding happen together within an encoding slot.
+ * </p>
+ *
+ * <p>
+ *     Otherwise, a job must claim one of the archive slots before it is archived, and holds it until its archive is
+ *     deleted. There is one more archive slot than there are encoding slots, so that the next job's archive can be
+ *     ready when a slot frees up, without archives piling up in the scratch folder while they wait to be encoded.
+ * </p>
+ */
+public class EncodeScheduler {
+    /** Number of cores assumed to be used by an FFMPEG process, when its thread count is left to FFMPEG. */
+    private static final int DEFAULT_FFMPEG_THREADS = 4;
+
+    /** Consumer to call whenever a job's status changes. */
+    @Setter private Consumer<EncodeJob> onJobUpdate = (final EncodeJob job) -> {};
+
+    /** Consumer to call whenever FFMPEG reports the progress of a job. */
+    @Setter private Consumer<EncodeJob> onJobProgress = (final EncodeJob job) -> {};
+
+    /** Runnable to call once every job has finished. */
+    @Setter private Runnable onFinished = () -> {};
+
+    /** Consumer to call when the progress needs to be updated. */
+    @Setter private Consumer<String> updateProgress = (final String progress) -> {};
+
+    /** Jobs in the scheduler, in the order they were submitted. */
+    @Getter private final List<EncodeJob> jobs;
+
+    /** The settings to encode with. */
+    private final Settings settings;
+
+    /** Number of jobs which may be encoded at once. */
+    @Getter private final int encodeSlots;
+
+    /** Number of threads given to each FFMPEG process. */
+    private final int threadsPerProcess;
+
+    /** Slots which limit the number of archives which exist at once. */
+    private final Semaphore archiveSlots;
+
+    /** Number of jobs which have not yet finished. */
+    private final AtomicInteger unfinishedJobs;
+
+    /** Pool of threads used to archive jobs. */
+    private ExecutorService archivePool;
+
+    /** Pool of threads used to encode jobs. */
+    private ExecutorService encodePool;
+
+    /** Pool of threads used to move encoded videos to the output folder. */
+    private ExecutorService movePool;
+
+    /**
+     * Constructs a new {@code EncodeScheduler}.
+     *
+     * @param jobs Jobs to encode.
+     * @param settings The settings to encode with.
+     * @param coreBudget Number of cores the scheduler may use.
+     *
+     * @throws IllegalArgumentException If {@code coreBudget} is less than one.
+     */
+    public EncodeScheduler(final @NonNull List<EncodeJob> jobs, final @NonNull Settings settings, final int coreBudget) {
+        if (coreBudget < 1) {
+            throw new IllegalArgumentException("The core budget cannot be < 1.");
+        }
+
+        this.jobs = Collections.unmodifiableList(new ArrayList<>(jobs));
+        this.settings = settings;
+
+        final var threadsPerJob = settings.ffmpegThreads() > 0 ? settings.ffmpegThreads() : DEFAULT_FFMPEG_THREADS;
+        encodeSlots = Math.max(1, Math.min(jobs.size(), coreBudget / threadsPerJob));
+
+        // A segmented encode runs several FFMPEG processes per job, so they must share the job's cores. The user's
+        // thread count is kept, unless it is more than the process' share.
+        final var processesPerJob = settings.streamingEncode() ? 1 : Math.max(1, settings.encodeSegments());
+        final var processShare = Math.max(1, coreBudget / encodeSlots / processesPerJob);
+        threadsPerProcess = settings.ffmpegThreads() > 0 ? Math.min(settings.ffmpegThreads(), processShare) : processShare;
+
+        archiveSlots = new Semaphore(encodeSlots + 1);
+        unfinishedJobs = new AtomicInteger(jobs.size());
+    }
+
+    /**
+     * Starts running the jobs.
+     *
+     * @throws IllegalStateException If the scheduler has already been started.
+     */
+    public synchronized void start() {
+        if (encodePool != null) {
+            throw new IllegalStateException("The scheduler has already been started.");
+        }
+
+        if (jobs.isEmpty()) {
+            onFinished.run();
+            return;
+        }
+
+        archivePool = createPool("Archive Stage", 1);
+        encodePool = createPool("Encode Stage", encodeSlots);
+        movePool = createPool("Move Stage", 1);
+
+        for (final var job : jobs) {
+            final var archivePath = new AtomicReference<Path>();
+            final var holdsArchiveSlot = new AtomicBoolean(false);
+
+            final CompletableFuture<Path> videoPath;
+            if (settings.streamingEncode()) {
+                videoPath = CompletableFuture.supplyAsync(() -> encode(job, null), encodePool);
+            } else {
+                videoPath = CompletableFuture.supplyAsync(() -> {
+                                                 acquireArchiveSlot(job);
+                                                 holdsArchiveSlot.set(true);
+                                                 return archive(job);
+                                             }, archivePool)
+                                             .thenApplyAsync(path -> {
+                                                 archivePath.set(path);
+                                                 return encode(job, path);
+                                             }, encodePool);
+            }
+
+            videoPath.thenApplyAsync(path -> move(job, path), movePool)
+                     .whenComplete((path, throwable) -> {
+                         try {
+                             finish(job, path, throwable, archivePath.get());
+                         } finally {
+                             // The job's archive has been deleted, so another job may be archived.
+                             if (holdsArchiveSlot.get()) {
+                                 archiveSlots.release();
+                             }
+                         }
+                     });
+        }
+    }
+
+    /** Cancels every job which has not finished. Queued jobs are skipped, and running jobs are interrupted. */
+    public void cancel() {
+        jobs.forEach(EncodeJob::cancel);
+    }
+
+    /**
+     * Cancels one of the jobs, if it has not finished. A queued job is skipped, and a running job is interrupted.
+     *
+     * @param job The job.
+     *
+     * @throws IllegalArgumentException If the job does not belong to this scheduler.
+     */
+    public void cancel(final @NonNull EncodeJob job) {
+        if (!jobs.contains(job)) {
+            throw new IllegalArgumentException("The job does not belong to this scheduler.");
+        }
+
+        job.cancel();
+    }
+
+    /**
+     * Determines whether every job has finished.
+     *
+     * @return Whether every job has finished.
+     */
+    public boolean isFinished() {
+        return unfinishedJobs.get() == 0;
+    }
+
+    /**
+     * Waits for one of the archive slots to be free, and claims it.
+     *
+     * @param job The job.
+     *
+     * @throws CancellationException If the job is cancelled while it waits.
+     */
+    private void acquireArchiveSlot(final EncodeJob job) {
+        try {
+            while (!archiveSlots.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (job.isCancelRequested()) {
+                    throw new CancellationException();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Archives a job's paths into a temporary file.
+     *
+     * @param job The job.
+     * @return Path to the archive.
+     */
+    private Path archive(final EncodeJob job) {
+        final var archiver = new Archiver(job.getPaths(), settings);
+        return runStage(job, "Archiving", archiver, archiver::setOnCompletion, archiver::setOnError, archiver::setUpdateProgress);
+    }
+
+    /**
+     * Encodes a job's archive into a video.
+     *
+     * @param job The job.
+     * @param archivePath Path to the archive, or {@code null} if the archive is streamed into FFMPEG.
+     * @return Path to the video.
+     */
+    private Path encode(final EncodeJob job, final Path archivePath) {
+        final Encoder encoder;
+        if (archivePath == null) {
+            final var archiver = new Archiver(job.getPaths(), settings);
+            archiver.setUpdateProgress(progress -> updateProgress.accept("[" + job.getName() + "] " + progress));
+            encoder = new Encoder(archiver, settings);
+        } else {
+            encoder = new Encoder(archivePath, settings);
+        }
+
+        encoder.setFfmpegThreads(threadsPerProcess);
+        encoder.setOnProgress(progress -> {
+            job.updateProgress(progress);
+            onJobProgress.accept(job);
+        });
+        return runStage(job, "Encoding", encoder, encoder::setOnCompletion, encoder::setOnError, encoder::setUpdateProgress);
+    }
+
+    /**
+     * Moves a job's video to the output folder. If a file with the job's name already exists, then a number is added
+     * to the name.
+     *
+     * @param job The job.
+     * @param videoPath Path to the video.
+     * @return Path to the moved video.
+     *
+     * @throws CancellationException If the job is cancelled, in which case the video is deleted.
+     * @throws CompletionException If the video cannot be moved, in which case it is left where it is.
+     */
+    private Path move(final EncodeJob job, final Path videoPath) {
+        if (job.isCancelRequested()) {
+            deleteQuietly(videoPath);
+            throw new CancellationException();
+        }
+
+        final Path outputPath;
+        try {
+            outputPath = moveToOutput(job, videoPath);
+        } catch (final IOException e) {
+            // The video is kept in its temporary folder, so that it is not lost.
+            throw new CompletionException(new IOException("Unable to move the encoded video to the output folder, so it was left at " + videoPath + ": " + e.getMessage(), e));
+        }
+
+        // Removes the video's temporary folder.
+        deleteQuietly(videoPath);
+        return outputPath;
+    }
+
+    /**
+     * Moves a job's video to the output folder, adding a number to its name until the name is not already taken.
+     *
+     * @param job The job.
+     * @param videoPath Path to the video.
+     * @return Path to the moved video.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Path moveToOutput(final EncodeJob job, final Path videoPath) throws IOException {
+        final var outputFolderPath = settings.outputFolderPath();
+        Files.createDirectories(outputFolderPath);
+
+        var outputPath = outputFolderPath.resolve(job.getName() + ".mp4");
+        for (int i = 1 ; ; i++) {
+            try {
+                return Files.move(videoPath, outputPath);
+            } catch (final FileAlreadyExistsException e) {
+                // Another video, possibly from a job which is running at the same time, already has this name.
+                outputPath = outputFolderPath.resolve(job.getName() + " (" + i + ").mp4");
+            }
+        }
+    }
+
+    /**
+     * Runs one of a job's stages on its own thread, and waits for it to finish.
+     *
+     * @param job The job.
+     * @param stageName Name of the stage, used in messages.
+     * @param worker Thread which runs the stage.
+     * @param setOnCompletion Sets the worker's completion callback.
+     * @param setOnError Sets the worker's error callback.
+     * @param setUpdateProgress Sets the worker's progress callback.
+     * @return Path to the stage's output.
+     *
+     * @throws CancellationException If the job is cancelled.
+     * @throws CompletionException If the stage fails.
+     */
+    private Path runStage(
+        final EncodeJob job,
+        final String stageName,
+        final Thread worker,
+        final Consumer<Consumer<Path>> setOnCompletion,
+        final Consumer<Consumer<Exception>> setOnError,
+        final Consumer<Consumer<String>> setUpdateProgress
+    ) {
+        final var prefix = "[" + job.getName() + "] ";
+        final var result = new AtomicReference<Path>();
+        final var error = new AtomicReference<Exception>();
+        setOnCompletion.accept(result::set);
+        setOnError.accept(error::set);
+        setUpdateProgress.accept(progress -> updateProgress.accept(prefix + progress));
+
+        if (!job.startStage(worker)) {
+            throw new CancellationException();
+        }
+        updateProgress.accept(prefix + stageName + " started.\n");
+        onJobUpdate.accept(job);
+
+        try {
+            worker.join();
+        } catch (final InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+
+        if (job.isCancelRequested()) {
+            if (result.get() != null) {
+                deleteQuietly(result.get());
+            }
+
+            throw new CancellationException();
+        }
+
+        if (result.get() == null) {
+            throw new CompletionException(error.get() == null ? new IOException(stageName + " failed.") : error.get());
+        }
+
+        return result.get();
+    }
+
+    /**
+     * Records the outcome of a job, and deletes its temporary files.
+     *
+     * @param job The job.
+     * @param videoPath Path to the job's video, or {@code null} if the job did not complete.
+     * @param throwable Exception which stopped the job, if any.
+     * @param archivePath Path to the job's temporary archive, if any.
+     */
+    private void finish(final EncodeJob job, final Path videoPath, final Throwable throwable, final Path archivePath) {
+        try {
+            if (archivePath != null) {
+                deleteQuietly(archivePath);
+            }
+
+            var cause = throwable;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+
+            final Exception error;
+            if (cause == null || cause instanceof CancellationException) {
+                error = null;
+            } else if (cause instanceof Exception exception) {
+                error = exception;
+            } else {
+                error = new IOException(cause);
+            }
+
+            job.finish(videoPath, error);
+
+            final var prefix = "[" + job.getName() + "] ";
+            switch (job.getStatus()) {
+                case COMPLETED -> updateProgress.accept(prefix + "Encoding complete: " + videoPath + "\n");
+                case CANCELLED -> updateProgress.accept(prefix + "Encoding cancelled.\n");
+                default -> updateProgress.accept(prefix + "Encoding failed: " + (error == null ? "Unknown error." : error.getMessage()) + "\n");
+            }
+        } finally {
+            onJobUpdate.accept(job);
+
+            if (unfinishedJobs.decrementAndGet() == 0) {
+                archivePool.shutdown();
+                encodePool.shutdown();
+                movePool.shutdown();
+                onFinished.run();
+            }
+        }
+    }
+
+    /**
+     * Creates a pool of threads for one of the stages.
+     *
+     * @param name Name of the stage.
+     * @param threadCount Number of threads.
+     * @return The pool.
+     */
+    private ExecutorService createPool(final String name, final int threadCount) {
+        final var threadNumber = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(threadCount, runnable -> new Thread(runnable, name + "-" + threadNumber.incrementAndGet()));
+    }
+
+    /**
+     * Deletes a file, and its parent folder if it is empty, ignoring any errors.
+     *
+     * @param path Path to the file.
+     */
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+
+            // Videos and archives are each written to their own temporary folder.
+            Files.deleteIfExists(path.getParent());
+        } catch (final IOException ignored) {
+            // The file is in a temporary folder, so it will eventually be cleaned up by the OS.
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.valkryst.Schillsaver.job;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * Determines whether a job with this status has finished, successfully or not.
+     *
+     * @return Whether a job with this status has finished.
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+
+    @Override
+    public String toString() {
+        return Character.toUpperCase(this.name().charAt(0)) + this.name().substring(1).toLowerCase();
+    }
+}
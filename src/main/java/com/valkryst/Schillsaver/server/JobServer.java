@@ -0,0 +1,622 @@
+package com.valkryst.Schillsaver.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.valkryst.Schillsaver.ffmpeg.ProcessSupervisor;
+import com.valkryst.Schillsaver.ffmpeg.ProgressEvent;
+import com.valkryst.Schillsaver.job.DecodeJob;
+import com.valkryst.Schillsaver.job.DecodeQueue;
+import com.valkryst.Schillsaver.job.EncodeJob;
+import com.valkryst.Schillsaver.job.EncodeScheduler;
+import com.valkryst.Schillsaver.job.JobStatus;
+import com.valkryst.Schillsaver.setting.Settings;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * <p>An HTTP server, bound to the loopback address, through which other programs can submit and monitor jobs.</p>
+ *
+ * <p>
+ *     Each request is handled on its own virtual thread, and a submission only queues its jobs, so any number of
+ *     clients can submit work at once without waiting on each other. The submissions are then run, one at a time and
+ *     in the order they were received, by an {@link EncodeScheduler} or {@link DecodeQueue} which is given every core.
+ * </p>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ *     <li>{@code POST /jobs/encode} with {@code {"paths": [...], "videoPerFolder": false}} queues encode jobs.</li>
+ *     <li>{@code POST /jobs/decode} with {@code {"paths": [...]}} queues a decode job for each path.</li>
+ *     <li>
+ *         {@code GET /jobs} lists every job, and {@code GET /jobs/<id>} retrieves a single job. A running job's
+ *         {@code progress} holds its frames, throughput, and estimated time remaining.
+ *     </li>
+ *     <li>{@code POST /jobs/<id>/cancel} cancels a job.</li>
+ *     <li>{@code GET /metrics} retrieves the number of jobs with each status, and the server's resource usage.</li>
+ * </ul>
+ *
+ * <p>
+ *     Being bound to the loopback address does not stop web pages, open in a local browser, from sending requests to
+ *     the server. So every request must name a loopback host in its {@code Host} header, which defeats DNS rebinding,
+ *     and is rejected if its {@code Origin} header names any other site. Every {@code POST} must also have a
+ *     {@code Content-Type} of {@code application/json}, which a browser only sends across origins after a preflight
+ *     request, and the server never approves a preflight request.
+ * </p>
+ */
+public class JobServer {
+    /** Maximum number of finished jobs which are remembered. Older finished jobs are forgotten. */
+    private static final int MAX_FINISHED_JOBS = 1000;
+
+    /** Host names, of the loopback address, which a request's {@code Host} header may name. */
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    /** Consumer to call when the progress needs to be updated. */
+    @Setter private Consumer<String> updateProgress = (final String progress) -> {};
+
+    /** The settings to encode and decode with. */
+    private final Settings settings;
+
+    /** The underlying HTTP server. */
+    private final HttpServer httpServer;
+
+    /** Executor used to handle requests, with a virtual thread per request. */
+    private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Executor used to run the submissions, one at a time. */
+    private final ExecutorService submissionExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Job Server Submissions"));
+
+    /** Every remembered job, by its ID. */
+    private final Map<Long, SubmittedJob> jobs = new ConcurrentSkipListMap<>();
+
+    /** ID of the next job. */
+    private final AtomicLong nextJobId = new AtomicLong(1);
+
+    /** Number of submissions which have not yet finished. */
+    private final AtomicInteger pendingSubmissions = new AtomicInteger(0);
+
+    /** Whether the server has been stopped. */
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    /** Time, in milliseconds since the epoch, at which the server was started. */
+    private long startTime;
+
+    /**
+     * Constructs a new {@code JobServer}.
+     *
+     * @param settings The settings to encode and decode with.
+     * @param port Port to listen on, or {@code 0} to use any free port.
+     *
+     * @throws IOException If an I/O exception occurs while binding the port.
+     */
+    public JobServer(final @NonNull Settings settings, final int port) throws IOException {
+        this.settings = settings;
+
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.setExecutor(requestExecutor);
+    }
+
+    /** Starts accepting requests. */
+    public void start() {
+        httpServer.createContext("/jobs", this::handleJobs);
+        httpServer.createContext("/metrics", this::handleMetrics);
+
+        startTime = System.currentTimeMillis();
+        httpServer.start();
+    }
+
+    /** Stops accepting requests, cancels every job which has not finished, and waits for the jobs to stop. */
+    public void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+
+        httpServer.stop(1);
+        jobs.values().forEach(SubmittedJob::cancel);
+
+        // The remaining submissions finish quickly, as every one of their jobs has been cancelled.
+        submissionExecutor.shutdown();
+        try {
+            submissionExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        requestExecutor.shutdown();
+    }
+
+    /**
+     * Retrieves the port which the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Handles the requests to {@code /jobs}, and its sub-paths.
+     *
+     * @param exchange The exchange.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void handleJobs(final HttpExchange exchange) throws IOException {
+        try {
+            requireLocalRequest(exchange);
+
+            final var segments = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            final var method = exchange.getRequestMethod();
+
+            if (!segments[0].equals("jobs")) {
+                throw new HttpException(404, "Unknown endpoint.");
+            }
+
+            if (segments.length == 1) {
+                requireMethod(method, "GET");
+                final var array = new JsonArray();
+                jobs.values().forEach(job -> array.add(job.toJson()));
+                sendJson(exchange, 200, array);
+                return;
+            }
+
+            if (segments.length == 2 && (segments[1].equals("encode") || segments[1].equals("decode"))) {
+                requireMethod(method, "POST");
+                final var request = readJson(exchange);
+                final var submitted = segments[1].equals("encode") ? submitEncode(request) : submitDecode(request);
+
+                final var array = new JsonArray();
+                submitted.forEach(job -> array.add(job.toJson()));
+                sendJson(exchange, 202, array);
+                return;
+            }
+
+            final var job = jobs.get(parseJobId(segments[1]));
+            if (job == null) {
+                throw new HttpException(404, "There is no job with the ID " + segments[1] + ".");
+            }
+
+            if (segments.length == 2) {
+                requireMethod(method, "GET");
+                sendJson(exchange, 200, job.toJson());
+            } else if (segments.length == 3 && segments[2].equals("cancel")) {
+                requireMethod(method, "POST");
+                job.cancel();
+                sendJson(exchange, 202, job.toJson());
+            } else {
+                throw new HttpException(404, "Unknown endpoint.");
+            }
+        } catch (final HttpException e) {
+            sendError(exchange, e.statusCode, e.getMessage());
+        } catch (final RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handles the requests to {@code /metrics}.
+     *
+     * @param exchange The exchange.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void handleMetrics(final HttpExchange exchange) throws IOException {
+        try {
+            requireLocalRequest(exchange);
+            requireMethod(exchange.getRequestMethod(), "GET");
+
+            final var counts = new EnumMap<JobStatus, Integer>(JobStatus.class);
+            for (final var status : JobStatus.values()) {
+                counts.put(status, 0);
+            }
+            jobs.values().forEach(job -> counts.merge(job.getStatus(), 1, Integer::sum));
+
+            final var jobCounts = new JsonObject();
+            counts.forEach((status, count) -> jobCounts.addProperty(status.name().toLowerCase(), count));
+
+            final var runtime = Runtime.getRuntime();
+            final var json = new JsonObject();
+            json.add("jobs", jobCounts);
+            json.addProperty("pendingSubmissions", pendingSubmissions.get());
+            json.addProperty("childProcesses", ProcessSupervisor.getInstance().getProcessCount());
+            json.addProperty("uptimeSeconds", (System.currentTimeMillis() - startTime) / 1000);
+            json.addProperty("availableProcessors", runtime.availableProcessors());
+            json.addProperty("usedMemoryBytes", runtime.totalMemory() - runtime.freeMemory());
+            json.addProperty("maxMemoryBytes", runtime.maxMemory());
+            sendJson(exchange, 200, json);
+        } catch (final HttpException e) {
+            sendError(exchange, e.statusCode, e.getMessage());
+        } catch (final RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Queues the encode jobs of a submission.
+     *
+     * @param request The submission.
+     * @return The queued jobs.
+     *
+     * @throws HttpException If the submission is invalid.
+     */
+    private List<SubmittedJob> submitEncode(final JsonObject request) throws HttpException {
+        final var paths = readPaths(request);
+
+        final var videoPerFolderElement = request.get("videoPerFolder");
+        if (videoPerFolderElement != null && (!videoPerFolderElement.isJsonPrimitive() || !videoPerFolderElement.getAsJsonPrimitive().isBoolean())) {
+            throw new HttpException(400, "The \"videoPerFolder\" field must be a boolean.");
+        }
+        final var videoPerFolder = videoPerFolderElement != null && videoPerFolderElement.getAsBoolean();
+
+        final var encodeJobs = EncodeJob.createJobs(paths, videoPerFolder);
+        final var scheduler = new EncodeScheduler(encodeJobs, settings, Runtime.getRuntime().availableProcessors());
+        scheduler.setUpdateProgress(updateProgress);
+
+        final var submitted = new ArrayList<SubmittedJob>(encodeJobs.size());
+        for (final var job : encodeJobs) {
+            submitted.add(new SubmittedJob(nextJobId.getAndIncrement(), job, null, () -> scheduler.cancel(job)));
+        }
+
+        final var finished = new CountDownLatch(1);
+        scheduler.setOnFinished(finished::countDown);
+        submit(submitted, scheduler::start, scheduler::cancel, finished);
+        return submitted;
+    }
+
+    /**
+     * Queues the decode jobs of a submission.
+     *
+     * @param request The submission.
+     * @return The queued jobs.
+     *
+     * @throws HttpException If the submission is invalid.
+     */
+    private List<SubmittedJob> submitDecode(final JsonObject request) throws HttpException {
+        final var queue = new DecodeQueue(readPaths(request), settings);
+        queue.setUpdateProgress(updateProgress);
+
+        final var submitted = new ArrayList<SubmittedJob>(queue.getJobs().size());
+        for (final var job : queue.getJobs()) {
+            submitted.add(new SubmittedJob(nextJobId.getAndIncrement(), null, job, () -> queue.cancel(job)));
+        }
+
+        final var finished = new CountDownLatch(1);
+        queue.setOnFinished(finished::countDown);
+        submit(submitted, queue::start, queue::cancel, finished);
+        return submitted;
+    }
+
+    /**
+     * Remembers a submission's jobs, and queues the submission to be run.
+     *
+     * @param submitted The submission's jobs.
+     * @param start Starts the submission.
+     * @param cancel Cancels the submission.
+     * @param finished Released once every one of the submission's jobs has finished.
+     */
+    private void submit(final List<SubmittedJob> submitted, final Runnable start, final Runnable cancel, final CountDownLatch finished) {
+        submitted.forEach(job -> jobs.put(job.id(), job));
+        forgetOldJobs();
+
+        pendingSubmissions.incrementAndGet();
+        submissionExecutor.execute(() -> {
+            try {
+                start.run();
+                finished.await();
+            } catch (final InterruptedException e) {
+                cancel.run();
+                Thread.currentThread().interrupt();
+            } finally {
+                pendingSubmissions.decrementAndGet();
+            }
+        });
+    }
+
+    /** Forgets the oldest finished jobs, so that at most {@link #MAX_FINISHED_JOBS} finished jobs are remembered. */
+    private void forgetOldJobs() {
+        var finishedJobs = jobs.values().stream().filter(job -> job.getStatus().isFinished()).count();
+
+        for (final var iterator = jobs.values().iterator() ; finishedJobs > MAX_FINISHED_JOBS && iterator.hasNext() ; ) {
+            if (iterator.next().getStatus().isFinished()) {
+                iterator.remove();
+                finishedJobs--;
+            }
+        }
+    }
+
+    /**
+     * Reads the paths of a submission.
+     *
+     * @param request The submission.
+     * @return The paths.
+     *
+     * @throws HttpException If there are no paths, or if a path does not exist.
+     */
+    private static List<Path> readPaths(final JsonObject request) throws HttpException {
+        final var element = request.get("paths");
+        if (element == null || !element.isJsonArray() || element.getAsJsonArray().isEmpty()) {
+            throw new HttpException(400, "The request must contain a non-empty \"paths\" array.");
+        }
+
+        final var paths = new ArrayList<Path>();
+        for (final var pathElement : element.getAsJsonArray()) {
+            if (!pathElement.isJsonPrimitive() || !pathElement.getAsJsonPrimitive().isString()) {
+                throw new HttpException(400, "Every path must be a string.");
+            }
+
+            final var path = Path.of(pathElement.getAsString()).toAbsolutePath();
+            if (Files.notExists(path)) {
+                throw new HttpException(400, "Path does not exist: " + path);
+            }
+
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * Reads the body of a request as a JSON object.
+     *
+     * @param exchange The exchange.
+     * @return The JSON object.
+     *
+     * @throws IOException If an I/O exception occurs.
+     * @throws HttpException If the body is not a JSON object.
+     */
+    private static JsonObject readJson(final HttpExchange exchange) throws IOException, HttpException {
+        try (final var inputStream = exchange.getRequestBody()) {
+            final var json = new Gson().fromJson(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+            if (json == null) {
+                throw new HttpException(400, "The request body must be a JSON object.");
+            }
+
+            return json;
+        } catch (final JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            throw new HttpException(400, "The request body must be a JSON object.");
+        }
+    }
+
+    /**
+     * Parses the ID of a job.
+     *
+     * @param value The ID.
+     * @return The parsed ID.
+     *
+     * @throws HttpException If the ID is not a number.
+     */
+    private static long parseJobId(final String value) throws HttpException {
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new HttpException(404, "Unknown endpoint.");
+        }
+    }
+
+    /**
+     * Ensures that a request was sent to the server by a local program, rather than by a web page in a local browser.
+     *
+     * @param exchange The exchange.
+     *
+     * @throws HttpException If the request's {@code Host} header does not name a loopback host, if its {@code Origin}
+     *                       header names another site, or if it is a {@code POST} without a JSON body.
+     */
+    private void requireLocalRequest(final HttpExchange exchange) throws HttpException {
+        final var headers = exchange.getRequestHeaders();
+
+        final var host = headers.getFirst("Host");
+        if (host == null || !LOOPBACK_HOSTS.contains(stripPort(host).toLowerCase(Locale.ROOT))) {
+            throw new HttpException(403, "The Host header must name the loopback address.");
+        }
+
+        // Browsers send an Origin header with every cross-origin request, so any origin other than the server's own is foreign.
+        final var origin = headers.getFirst("Origin");
+        if (origin != null) {
+            final var originHost = origin.toLowerCase(Locale.ROOT).replaceFirst("^http://", "");
+            if (!origin.toLowerCase(Locale.ROOT).startsWith("http://") || !originHost.endsWith(":" + getPort()) || !LOOPBACK_HOSTS.contains(stripPort(originHost))) {
+                throw new HttpException(403, "Requests from other origins are not allowed.");
+            }
+        }
+
+        if (exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+            final var contentType = headers.getFirst("Content-Type");
+            final var mediaType = contentType == null ? "" : contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            if (!mediaType.equals("application/json")) {
+                throw new HttpException(415, "The Content-Type must be application/json.");
+            }
+        }
+    }
+
+    /**
+     * Removes the port from the value of a {@code Host} header, or from an origin without its scheme.
+     *
+     * @param host The value.
+     * @return The host, without its port.
+     */
+    private static String stripPort(final String host) {
+        final var portIndex = host.lastIndexOf(':');
+        if (portIndex < 0 || host.lastIndexOf(']') > portIndex) {
+            return host;
+        }
+
+        return host.substring(0, portIndex);
+    }
+
+    /**
+     * Ensures that a request uses the expected method.
+     *
+     * @param method Method of the request.
+     * @param expectedMethod The expected method.
+     *
+     * @throws HttpException If the method is not the expected method.
+     */
+    private static void requireMethod(final String method, final String expectedMethod) throws HttpException {
+        if (!method.equalsIgnoreCase(expectedMethod)) {
+            throw new HttpException(405, "The method must be " + expectedMethod + ".");
+        }
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param exchange The exchange.
+     * @param statusCode Status code of the response.
+     * @param message Description of the error.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private static void sendError(final HttpExchange exchange, final int statusCode, final String message) throws IOException {
+        final var json = new JsonObject();
+        json.addProperty("error", message == null ? "Unknown error." : message);
+        sendJson(exchange, statusCode, json);
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param exchange The exchange.
+     * @param statusCode Status code of the response.
+     * @param json Body of the response.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private static void sendJson(final HttpExchange exchange, final int statusCode, final JsonElement json) throws IOException {
+        final var body = new GsonBuilder().disableHtmlEscaping().create().toJson(json).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, body.length);
+
+        try (final var outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    /**
+     * A job which was submitted to the server.
+     *
+     * @param id ID of the job.
+     * @param encodeJob The job, if it is an encode job.
+     * @param decodeJob The job, if it is a decode job.
+     * @param canceller Cancels the job.
+     */
+    private record SubmittedJob(long id, EncodeJob encodeJob, DecodeJob decodeJob, Runnable canceller) {
+        /** Cancels the job, if it has not finished. */
+        public void cancel() {
+            canceller.run();
+        }
+
+        /**
+         * Retrieves the current status of the job.
+         *
+         * @return The status.
+         */
+        public JobStatus getStatus() {
+            return encodeJob == null ? decodeJob.getStatus() : encodeJob.getStatus();
+        }
+
+        /**
+         * Converts the job to JSON.
+         *
+         * @return The JSON.
+         */
+        public JsonObject toJson() {
+            final var json = new JsonObject();
+            json.addProperty("id", id);
+
+            final Path outputPath;
+            final Exception error;
+            final ProgressEvent progress;
+            if (encodeJob == null) {
+                json.addProperty("type", "decode");
+                json.addProperty("inputPath", decodeJob.getInputPath().toString());
+                outputPath = decodeJob.getOutputPath();
+                error = decodeJob.getError();
+                progress = decodeJob.getProgress();
+            } else {
+                final var inputPaths = new JsonArray();
+                encodeJob.getPaths().forEach(path -> inputPaths.add(path.toString()));
+
+                json.addProperty("type", "encode");
+                json.addProperty("name", encodeJob.getName());
+                json.add("inputPaths", inputPaths);
+                outputPath = encodeJob.getOutputPath();
+                error = encodeJob.getError();
+                progress = encodeJob.getProgress();
+            }
+
+            json.addProperty("status", getStatus().name());
+
+            if (progress != null) {
+                final var progressJson = new JsonObject();
+                progressJson.addProperty("frame", progress.frame());
+                progressJson.addProperty("totalFrames", progress.totalFrames());
+                progress.percentComplete().ifPresent(percent -> progressJson.addProperty("percentComplete", percent));
+                progressJson.addProperty("framesPerSecond", progress.framesPerSecond());
+                progressJson.addProperty("bytesPerSecond", progress.bytesPerSecond());
+                progressJson.addProperty("speed", progress.speed());
+                progressJson.addProperty("outTimeMillis", progress.outTime().toMillis());
+                progress.estimatedTimeRemaining().ifPresent(eta -> progressJson.addProperty("etaSeconds", eta.toSeconds()));
+                json.add("progress", progressJson);
+            }
+
+            if (outputPath != null) {
+                json.addProperty("outputPath", outputPath.toString());
+            }
+
+            if (error != null) {
+                json.addProperty("error", error.getMessage());
+            }
+
+            return json;
+        }
+    }
+
+    /** Thrown when a request cannot be handled, and the client should be sent an error response. */
+    private static class HttpException extends Exception {
+        /** Version of the exception's serialized form. */
+        @Serial private static final long serialVersionUID = 1L;
+
+        /** Status code of the error response. */
+        private final int statusCode;
+
+        /**
+         * Constructs a new {@code HttpException}.
+         *
+         * @param statusCode Status code of the error response.
+         * @param message Description of the error.
+         */
+        private HttpException(final int statusCode, final String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
+}
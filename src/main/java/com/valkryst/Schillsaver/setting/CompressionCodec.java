@@ -0,0 +1,81 @@
+package com.valkryst.Schillsaver.setting;
+
+import com.valkryst.Schillsaver.archiver.ArchiveCodec;
+import com.valkryst.Schillsaver.archiver.ZipCodec;
+import com.valkryst.Schillsaver.archiver.ZstdCodec;
+import lombok.NonNull;
+
+import java.util.Optional;
+
+/**
+ * <p>Represents the codecs which can compress an archive.</p>
+ *
+ * <p>
+ *     A codec is identified by its {@code id} in the header of each encoded video, so the id of a codec must never
+ *     change, and must never be reused by another codec.
+ * </p>
+ */
+public enum CompressionCodec {
+    STORE(0, "Store (zip)", new ZipCodec(false)),
+    DEFLATE(1, "Deflate (zip)", new ZipCodec(true)),
+    ZSTD(2, "Zstandard (tar.zst)", new ZstdCodec());
+
+    /** Identifier of the codec in the header of each encoded video. */
+    public final int id;
+
+    /** Name to display for the codec. */
+    private final String displayName;
+
+    /** The codec. */
+    public final ArchiveCodec codec;
+
+    /**
+     * Constructs a new {@code CompressionCodec} enum.
+     *
+     * @param id Identifier of the codec in the header of each encoded video.
+     * @param displayName Name to display for the codec.
+     * @param codec The codec.
+     */
+    CompressionCodec(final int id, final @NonNull String displayName, final @NonNull ArchiveCodec codec) {
+        this.id = id;
+        this.displayName = displayName;
+        this.codec = codec;
+    }
+
+    /**
+     * Finds the codec with the specified identifier.
+     *
+     * @param id The identifier.
+     * @return The codec, or an empty optional if there is no such codec.
+     */
+    public static Optional<CompressionCodec> fromId(final int id) {
+        for (final var compressionCodec : values()) {
+            if (compressionCodec.id == id) {
+                return Optional.of(compressionCodec);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Attempts to detect which codec wrote an archive.
+     *
+     * @param header The first bytes of the archive.
+     * @return The codec, or an empty optional if no codec recognizes the archive.
+     */
+    public static Optional<CompressionCodec> detect(final byte @NonNull [] header) {
+        for (final var compressionCodec : values()) {
+            if (compressionCodec.codec.matches(header)) {
+                return Optional.of(compressionCodec);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,99 @@
+package com.valkryst.Schillsaver.setting;
+
+import lombok.NonNull;
+
+import java.util.Optional;
+
+/**
+ * <p>
+ *     Represents the amounts of Reed–Solomon error correction which can be added to an archive before it is
+ *     encoded.
+ * </p>
+ *
+ * <p>
+ *     Each codeword holds {@link #CODEWORD_LENGTH} bytes, of which {@code paritySymbols} are parity, and can correct up
+ *     to half that many damaged bytes. More parity allows smaller block sizes and lower bitrates to be used, at the
+ *     cost of the space it takes in each frame.
+ * </p>
+ */
+public enum ErrorCorrection {
+    NONE("None", 0),
+    LOW("Low (~7%)", 16),
+    MEDIUM("Medium (~14%)", 32),
+    HIGH("High (~33%)", 64);
+
+    /** Number of bytes in a Reed–Solomon codeword. */
+    public static final int CODEWORD_LENGTH = 255;
+
+    /** Name to display for the level. */
+    private final String displayName;
+
+    /** Number of parity bytes in each codeword. */
+    public final int paritySymbols;
+
+    /**
+     * Constructs a new {@code ErrorCorrection} enum.
+     *
+     * @param displayName Name to display for the level.
+     * @param paritySymbols Number of parity bytes in each codeword.
+     */
+    ErrorCorrection(final @NonNull String displayName, final int paritySymbols) {
+        this.displayName = displayName;
+        this.paritySymbols = paritySymbols;
+    }
+
+    /**
+     * Calculates the number of data bytes in each codeword.
+     *
+     * @return The number of data bytes.
+     */
+    public int getDataSymbols() {
+        return CODEWORD_LENGTH - paritySymbols;
+    }
+
+    /**
+     * <p>Calculates the number of bytes which data occupies once error correction has been added to it.</p>
+     *
+     * <p>
+     *     The data is split into groups of {@code dataSymbols * interleaveDepth} bytes, and each group is written as
+     *     {@code interleaveDepth} interleaved codewords. The codewords of the final group are shortened to the fewest
+     *     data bytes which hold the rest of the data, but each keeps all of its parity.
+     * </p>
+     *
+     * @param dataLength Number of bytes of data.
+     * @param interleaveDepth Number of codewords in a full group.
+     * @return The number of bytes.
+     */
+    public long getEncodedLength(final long dataLength, final int interleaveDepth) {
+        if (this == NONE) {
+            return dataLength;
+        }
+
+        final long groupDataLength = (long) getDataSymbols() * interleaveDepth;
+        final var fullGroups = dataLength / groupDataLength;
+        final var remainder = dataLength % groupDataLength;
+        final var finalGroupLength = remainder == 0 ? 0 : (Math.ceilDiv(remainder, interleaveDepth) + paritySymbols) * interleaveDepth;
+        return (fullGroups * CODEWORD_LENGTH * interleaveDepth) + finalGroupLength;
+    }
+
+    /**
+     * Finds the level with the specified number of parity bytes per codeword.
+     *
+     * @param paritySymbols The number of parity bytes.
+     * @return The level, or an empty optional if there is no such level.
+     */
+    public static Optional<ErrorCorrection> fromParitySymbols(final int paritySymbols) {
+        for (final var errorCorrection : values()) {
+            if (errorCorrection.paritySymbols == paritySymbols) {
+                return Optional.of(errorCorrection);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -39,6 +39,38 @@ public enum FrameResolution {
         this.pixelCount = (long) width * height;
     }
 
+    /**
+     * Calculates the number of bytes which can be stored in a single frame, at this resolution, with the specified
+     * block size. Each whole block stores one bit.
+     *
+     * @param blockSize The block size.
+     * @return The number of bytes per frame.
+     */
+    public int getBytesPerFrame(final BlockSize blockSize) {
+        final var columns = width / blockSize.blockSize;
+        final var rows = height / blockSize.blockSize;
+        return (columns * rows) / 8;
+    }
+
+    /**
+     * Calculates the number of bytes which are stored in a single frame of a video encoded before headers were added,
+     * at this resolution, with the specified block size.
+     *
+     * <p>
+     *     Those videos were drawn from {@code monob} frames, where each row of blocks is padded to a whole number of
+     *     bytes. When the number of columns is not a multiple of 8, the padding's bits were never drawn, and they
+     *     decode as zeroes.
+     * </p>
+     *
+     * @param blockSize The block size.
+     * @return The number of bytes per frame.
+     */
+    public int getPaddedBytesPerFrame(final BlockSize blockSize) {
+        final var columns = width / blockSize.blockSize;
+        final var rows = height / blockSize.blockSize;
+        return ((columns + 7) / 8) * rows;
+    }
+
     @Override
     public String toString() {
         return String.format("%dx%d", width, height);
@@ -0,0 +1,99 @@
+package com.valkryst.Schillsaver.setting;
+
+import lombok.NonNull;
+
+import java.nio.file.Path;
+
+/**
+ * <p>An immutable snapshot of the settings used to archive, encode, and decode.</p>
+ *
+ * <p>
+ *     Unlike the {@link com.valkryst.Schillsaver.display.model.SettingsTabModel}, this does not depend on the UI, so
+ *     it can be used by the command-line interface and shared between threads.
+ * </p>
+ *
+ * @param outputFolderPath Path to output folder.
+ * @param scratchFolderPath Path to the folder for intermediate files, or an empty path to use the system's temporary
+ *                          folder.
+ * @param codec Encoding codec.
+ * @param resolution Video resolution.
+ * @param framerate Video framerate.
+ * @param blockSize Video block size.
+ * @param compressionCodec Codec used to compress the archive.
+ * @param errorCorrection Level of error correction to add to the archive before it is encoded.
+ * @param streamingEncode Whether to stream the archive directly into FFMPEG.
+ * @param encodeSegments Number of segments to split the archive into, each of which is encoded by its own FFMPEG
+ *                       process.
+ * @param ffmpegThreads Number of threads each FFMPEG process may use, or {@code 0} to let FFMPEG decide.
+ */
+public record Settings(
+    @NonNull Path outputFolderPath,
+    @NonNull Path scratchFolderPath,
+    @NonNull String codec,
+    @NonNull FrameResolution resolution,
+    @NonNull FrameRate framerate,
+    @NonNull BlockSize blockSize,
+    @NonNull CompressionCodec compressionCodec,
+    @NonNull ErrorCorrection errorCorrection,
+    boolean streamingEncode,
+    int encodeSegments,
+    int ffmpegThreads
+) {
+    /**
+     * Constructs a new {@code Settings}.
+     *
+     * @throws IllegalArgumentException If {@code encodeSegments} is less than one, or {@code ffmpegThreads} is less
+     *                                  than zero.
+     */
+    public Settings {
+        if (encodeSegments < 1) {
+            throw new IllegalArgumentException("The number of encode segments cannot be < 1.");
+        }
+
+        if (ffmpegThreads < 0) {
+            throw new IllegalArgumentException("The number of FFMPEG threads cannot be < 0.");
+        }
+    }
+
+    /**
+     * Creates a {@code Settings} with the default value of every setting.
+     *
+     * @return The settings.
+     */
+    public static Settings defaults() {
+        return new Settings(Path.of(""), Path.of(""), "libx264", FrameResolution.P1080, FrameRate.FPS_30, BlockSize.S6, CompressionCodec.DEFLATE, ErrorCorrection.NONE, true, 1, 0);
+    }
+
+    /**
+     * Ensures that the settings can be used to write output, and throws an exception, with a descriptive message, if
+     * they cannot.
+     *
+     * @throws IllegalStateException If the path to the output folder is blank.
+     */
+    public void validate() throws IllegalStateException {
+        if (outputFolderPath.toString().isBlank()) {
+            throw new IllegalStateException("The path to the output folder is blank. Please select it in the Settings menu.");
+        }
+    }
+
+    /**
+     * Creates a copy of these settings with a different resolution and block size, such as those detected from a video
+     * which is being decoded.
+     *
+     * @param resolution The resolution.
+     * @param blockSize The block size.
+     * @return The copy.
+     */
+    public Settings withFrameFormat(final @NonNull FrameResolution resolution, final @NonNull BlockSize blockSize) {
+        return new Settings(outputFolderPath, scratchFolderPath, codec, resolution, framerate, blockSize, compressionCodec, errorCorrection, streamingEncode, encodeSegments, ffmpegThreads);
+    }
+
+    /**
+     * Calculates the number of bytes which can be stored in a single frame.
+     *
+     * @return The number of bytes per frame.
+     */
+    public int getBytesPerFrame() {
+        return resolution.getBytesPerFrame(blockSize);
+    }
+}
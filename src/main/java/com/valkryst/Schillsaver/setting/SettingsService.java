@@ -0,0 +1,176 @@
+package com.valkryst.Schillsaver.setting;
+
+import com.google.gson.JsonObject;
+import com.valkryst.Schillsaver.io.FileIO;
+import com.valkryst.Schillsaver.io.FolderIO;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+
+/**
+ * <p>Hands out immutable snapshots of the settings file.</p>
+ *
+ * <p>
+ *     The settings file is only read when it has changed, so retrieving the settings for a job costs no more than a
+ *     volatile read. Changes made through the UI are published directly, and changes made to the file by anything
+ *     else are noticed by a {@link java.nio.file.WatchService}, which marks the snapshot as stale.
+ * </p>
+ */
+public class SettingsService {
+    /** Singleton instance. */
+    private final static SettingsService INSTANCE = new SettingsService();
+
+    /** The path to the settings file. */
+    public static final Path FILE_PATH = FileIO.getFilePath(FolderIO.getFolderPath("Settings"), "settings.json");
+
+    /** The current snapshot, or {@code null} if the settings file has not yet been read. */
+    private volatile Settings settings;
+
+    /** Whether the settings file has changed since the snapshot was taken. */
+    private volatile boolean stale = true;
+
+    /** Whether the settings file is being watched for changes. */
+    private volatile boolean watching = false;
+
+    /** Constructs a new {@code SettingsService}. */
+    private SettingsService() {}
+
+    /**
+     * Retrieves the singleton instance.
+     *
+     * @return The singleton instance.
+     */
+    public static SettingsService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retrieves a snapshot of the settings. The settings file is only read if it has changed since the last snapshot
+     * was taken.
+     *
+     * @return The snapshot.
+     *
+     * @throws IOException If an I/O exception occurs while reading the settings file, or if it cannot be parsed.
+     */
+    public Settings getSettings() throws IOException {
+        if (!stale) {
+            return settings;
+        }
+
+        synchronized (this) {
+            if (!stale) {
+                return settings;
+            }
+
+            startWatching();
+
+            // The flag is cleared before the file is read, so that a change made while it is being read is not missed.
+            stale = !watching;
+            settings = Files.exists(FILE_PATH) ? parse(FileIO.loadJsonFromDisk(FILE_PATH)) : Settings.defaults();
+            return settings;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with settings which have just been saved to the settings file.
+     *
+     * @param settings The settings.
+     */
+    public synchronized void publish(final @NonNull Settings settings) {
+        this.settings = settings;
+        stale = !watching;
+    }
+
+    /**
+     * Parses the settings used to archive, encode, and decode, from the contents of a settings file. Any missing
+     * setting is given its default value.
+     *
+     * @param json Contents of the settings file.
+     * @return The settings.
+     *
+     * @throws IOException If a setting has an invalid value.
+     */
+    public static Settings parse(final @NonNull JsonObject json) throws IOException {
+        try {
+            return new Settings(
+                Path.of(getString(json, "outputFolderPath", "")),
+                Path.of(getString(json, "scratchFolderPath", "")),
+                getString(json, "codec", "libx264"),
+                FrameResolution.valueOf(getString(json, "resolution", FrameResolution.P1080.name())),
+                FrameRate.valueOf(getString(json, "framerate", FrameRate.FPS_30.name())),
+                BlockSize.valueOf(getString(json, "blockSize", BlockSize.S6.name())),
+                CompressionCodec.valueOf(getString(json, "compressionCodec", CompressionCodec.DEFLATE.name())),
+                ErrorCorrection.valueOf(getString(json, "errorCorrection", ErrorCorrection.NONE.name())),
+                Boolean.parseBoolean(getString(json, "streamingEncode", "true")),
+                Math.max(1, Integer.parseInt(getString(json, "encodeSegments", "1"))),
+                Math.max(0, Integer.parseInt(getString(json, "ffmpegThreads", "0")))
+            );
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("The settings file contains an invalid value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrieves a setting from the contents of a settings file.
+     *
+     * @param json Contents of the settings file.
+     * @param key Key of the setting.
+     * @param defaultValue Value to use if the setting is missing, or empty.
+     * @return The setting's value.
+     */
+    public static String getString(final @NonNull JsonObject json, final @NonNull String key, final @NonNull String defaultValue) {
+        final var element = json.get(key);
+        final var value = element == null || element.isJsonNull() ? "" : element.getAsString();
+        return value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * Starts watching the settings file for changes, if it is not already being watched. If the file cannot be
+     * watched, then the snapshot is never cleared of its staleness, and the file is read for every snapshot.
+     */
+    private void startWatching() {
+        if (watching) {
+            return;
+        }
+
+        final var folderPath = FILE_PATH.getParent();
+        try {
+            Files.createDirectories(folderPath);
+
+            final var watchService = folderPath.getFileSystem().newWatchService();
+            folderPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+            final var thread = new Thread(() -> {
+                try (watchService) {
+                    while (true) {
+                        final var key = watchService.take();
+                        for (final var event : key.pollEvents()) {
+                            if (event.kind() == StandardWatchEventKinds.OVERFLOW || FILE_PATH.getFileName().equals(event.context())) {
+                                stale = true;
+                            }
+                        }
+
+                        if (!key.reset()) {
+                            stale = true;
+                            watching = false;
+                            return;
+                        }
+                    }
+                } catch (final InterruptedException | ClosedWatchServiceException | IOException ignored) {
+                    stale = true;
+                    watching = false;
+                }
+            }, "Settings Watcher");
+            thread.setDaemon(true);
+            thread.start();
+
+            watching = true;
+        } catch (final IOException ignored) {
+            // The snapshot will be read from the file every time, as there is no way to know when it changes.
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.valkryst.Schillsaver.watch;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>The size and modification time of a file, or of every file within a folder.</p>
+ *
+ * <p>
+ *     A file is assumed to have stopped changing once its fingerprint has not changed for a while, and a finished
+ *     file is only processed again if its fingerprint changes.
+ * </p>
+ *
+ * @param size Total size, in bytes.
+ * @param lastModified Latest modification time, in milliseconds since the epoch.
+ * @param fileCount Number of files.
+ */
+public record Fingerprint(long size, long lastModified, long fileCount) {
+    /**
+     * Calculates the fingerprint of a file or folder.
+     *
+     * @param path Path to the file or folder.
+     * @return The fingerprint.
+     *
+     * @throws IOException If an I/O exception occurs, such as when the file has been deleted.
+     */
+    public static Fingerprint of(final @NonNull Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return new Fingerprint(Files.size(path), Files.getLastModifiedTime(path).toMillis(), 1);
+        }
+
+        long size = 0;
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        long fileCount = 0;
+
+        try (final var stream = Files.walk(path)) {
+            for (final var iterator = stream.iterator() ; iterator.hasNext() ; ) {
+                final var child = iterator.next();
+                lastModified = Math.max(lastModified, Files.getLastModifiedTime(child).toMillis());
+
+                if (Files.isRegularFile(child)) {
+                    size += Files.size(child);
+                    fileCount++;
+                }
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return new Fingerprint(size, lastModified, fileCount);
+    }
+}
@@ -0,0 +1,10 @@
+package com.valkryst.Schillsaver.watch;
+
+/** The kind of job which is run for each file placed in an inbox. */
+public enum InboxType {
+    /** Each file, or folder, is encoded into its own video. */
+    ENCODE,
+
+    /** Each file is decoded into an archive. */
+    DECODE
+}
@@ -0,0 +1,463 @@
+package com.valkryst.Schillsaver.watch;
+
+import com.valkryst.Schillsaver.job.DecodeQueue;
+import com.valkryst.Schillsaver.job.EncodeJob;
+import com.valkryst.Schillsaver.job.EncodeScheduler;
+import com.valkryst.Schillsaver.job.JobStatus;
+import com.valkryst.Schillsaver.setting.Settings;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>Watches a set of inbox folders, and encodes or decodes each file placed in them.</p>
+ *
+ * <p>
+ *     A file is only picked up once its {@link Fingerprint} has not changed for the settle time, so files which are
+ *     still being copied into an inbox are not processed early. Each top-level entry of an encode inbox, whether it
+ *     is a file or a folder, is encoded into its own video. Each top-level file of a decode inbox is decoded into an
+ *     archive. The results are written to the output folder of the settings.
+ * </p>
+ *
+ * <p>
+ *     Jobs are run one at a time, and each is given every core, so the daemon only ever runs two threads of its own
+ *     alongside the threads of the current job. Its progress is persisted in a {@link WatchState}, so a restarted
+ *     daemon resumes any unfinished jobs, and does not process finished files again unless they have changed.
+ * </p>
+ */
+public class WatchDaemon {
+    /** How often, in milliseconds, the files which have not yet settled are checked. */
+    private static final long POLL_INTERVAL = 1000;
+
+    /** Consumer to call when the progress needs to be updated. */
+    @Setter private Consumer<String> updateProgress = (final String progress) -> {};
+
+    /** Type of each inbox, by its absolute path. */
+    private final Map<Path, InboxType> inboxes;
+
+    /** The settings to encode and decode with. */
+    private final Settings settings;
+
+    /** The persisted state of every file which has been picked up. */
+    private final WatchState state;
+
+    /** How long, in milliseconds, a file must remain unchanged before it is picked up. */
+    private final long settleTime;
+
+    /** Files which have been seen, but have not yet settled, by their absolute path. Only used by the watch thread. */
+    private final Map<Path, PendingFile> pendingFiles = new HashMap<>();
+
+    /** Files which are waiting to be processed, in the order they were picked up. */
+    private final LinkedBlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+
+    /** Files which are either in the queue, or are being processed. */
+    private final Set<Path> queuedPaths = ConcurrentHashMap.newKeySet();
+
+    /** Released once both of the daemon's threads have stopped. */
+    private final CountDownLatch stopped = new CountDownLatch(2);
+
+    /** Whether the daemon is running. */
+    private volatile boolean running = false;
+
+    /** Cancels the job which is currently running, if any. */
+    private volatile Runnable cancelCurrentJob = () -> {};
+
+    /** Thread which watches the inboxes. */
+    private Thread watchThread;
+
+    /** Thread which runs the jobs. */
+    private Thread jobThread;
+
+    /**
+     * Constructs a new {@code WatchDaemon}.
+     *
+     * @param inboxes Type of each inbox, by its path.
+     * @param settings The settings to encode and decode with.
+     * @param stateFilePath Path to the file in which the daemon's state is persisted.
+     * @param settleTime How long a file must remain unchanged before it is picked up.
+     *
+     * @throws IllegalArgumentException If there are no inboxes, if an inbox is not a folder, or if the output folder
+     *                                  is within an inbox.
+     * @throws IOException If an I/O exception occurs while loading the state file.
+     */
+    public WatchDaemon(final @NonNull Map<Path, InboxType> inboxes, final @NonNull Settings settings, final @NonNull Path stateFilePath, final @NonNull Duration settleTime) throws IOException {
+        if (inboxes.isEmpty()) {
+            throw new IllegalArgumentException("No inboxes were specified.");
+        }
+
+        final var outputFolderPath = settings.outputFolderPath().toAbsolutePath().normalize();
+        final var absoluteInboxes = new LinkedHashMap<Path, InboxType>();
+        inboxes.forEach((inbox, type) -> {
+            final var absoluteInbox = inbox.toAbsolutePath().normalize();
+            if (!Files.isDirectory(absoluteInbox)) {
+                throw new IllegalArgumentException("The inbox is not a folder: " + inbox);
+            }
+
+            // Writing results into an inbox would cause them to be picked up again.
+            if (outputFolderPath.startsWith(absoluteInbox)) {
+                throw new IllegalArgumentException("The output folder cannot be within an inbox: " + inbox);
+            }
+
+            absoluteInboxes.put(absoluteInbox, type);
+        });
+
+        this.inboxes = absoluteInboxes;
+        this.settings = settings;
+        this.settleTime = settleTime.toMillis();
+        state = new WatchState(stateFilePath);
+    }
+
+    /**
+     * Starts watching the inboxes.
+     *
+     * @throws IllegalStateException If the daemon has already been started.
+     * @throws IOException If an I/O exception occurs while saving the state, or while registering the inboxes.
+     */
+    public synchronized void start() throws IOException {
+        if (watchThread != null) {
+            throw new IllegalStateException("The daemon has already been started.");
+        }
+
+        state.prune();
+        for (final var path : state.getUnfinishedPaths()) {
+            updateProgress.accept("Resuming: " + path + "\n");
+            enqueue(path);
+        }
+
+        final var watchService = inboxes.keySet().iterator().next().getFileSystem().newWatchService();
+        try {
+            for (final var inbox : inboxes.keySet()) {
+                inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        } catch (final IOException e) {
+            watchService.close();
+            throw e;
+        }
+
+        running = true;
+
+        watchThread = new Thread(() -> watch(watchService), "Inbox Watcher");
+        jobThread = new Thread(this::runJobs, "Inbox Job Runner");
+        watchThread.start();
+        jobThread.start();
+    }
+
+    /**
+     * Stops the daemon, and waits for it to stop. The current job is cancelled, and is resumed when the daemon is
+     * next started.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+
+            // The threads are not interrupted, as that could interrupt a write of the state file. Both of them check
+            // whether the daemon is running at least once per poll interval.
+            running = false;
+            cancelCurrentJob.run();
+        }
+
+        awaitStop();
+    }
+
+    /** Waits for the daemon to stop. */
+    public void awaitStop() {
+        try {
+            stopped.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Watches the inboxes, and queues each file once it has settled.
+     *
+     * @param watchService Watch service with which the inboxes have been registered.
+     */
+    private void watch(final WatchService watchService) {
+        try (watchService) {
+            inboxes.keySet().forEach(this::scan);
+
+            while (running) {
+                final var key = watchService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                }
+
+                checkPendingFiles();
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException ignored) {
+            // The daemon is stopping.
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to close the watch service: " + e.getMessage() + "\n");
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Handles the events of an inbox.
+     *
+     * @param key Key of the inbox.
+     */
+    private void handleEvents(final WatchKey key) {
+        final var inbox = (Path) key.watchable();
+
+        for (final var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Some events were lost, so the inbox must be scanned to find any files which were missed.
+                scan(inbox);
+                continue;
+            }
+
+            final var path = inbox.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                pendingFiles.remove(path);
+
+                try {
+                    state.prune();
+                } catch (final IOException e) {
+                    updateProgress.accept("Unable to save the state: " + e.getMessage() + "\n");
+                }
+            } else {
+                see(path);
+            }
+        }
+
+        if (!key.reset()) {
+            updateProgress.accept("The inbox can no longer be watched: " + inbox + "\n");
+        }
+    }
+
+    /**
+     * Sees every entry of an inbox.
+     *
+     * @param inbox Path to the inbox.
+     */
+    private void scan(final Path inbox) {
+        try (final var stream = Files.list(inbox)) {
+            stream.forEach(this::see);
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to scan the inbox " + inbox + ": " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Starts waiting for a file to settle, unless it is already queued, or it has already been processed and has not
+     * changed since.
+     *
+     * @param path Path to the file.
+     */
+    private void see(final Path path) {
+        // Hidden files are usually the temporary files of programs which are still copying into the inbox.
+        if (queuedPaths.contains(path) || pendingFiles.containsKey(path) || path.getFileName().toString().startsWith(".")) {
+            return;
+        }
+
+        if (inboxes.get(path.getParent()) == InboxType.DECODE && !Files.isRegularFile(path)) {
+            return;
+        }
+
+        try {
+            final var fingerprint = Fingerprint.of(path);
+            final var entry = state.get(path);
+            if (entry != null && entry.status().isFinished() && entry.fingerprint().equals(fingerprint)) {
+                return;
+            }
+
+            pendingFiles.put(path, new PendingFile(fingerprint, System.currentTimeMillis()));
+        } catch (final IOException ignored) {
+            // The file was deleted before it could be seen.
+        }
+    }
+
+    /** Queues every pending file which has settled, and restarts the wait of every pending file which has changed. */
+    private void checkPendingFiles() {
+        final var now = System.currentTimeMillis();
+
+        for (final var iterator = pendingFiles.entrySet().iterator() ; iterator.hasNext() ; ) {
+            final var pendingFile = iterator.next();
+            final var path = pendingFile.getKey();
+
+            final Fingerprint fingerprint;
+            try {
+                fingerprint = Fingerprint.of(path);
+            } catch (final IOException e) {
+                iterator.remove();
+                continue;
+            }
+
+            if (!fingerprint.equals(pendingFile.getValue().fingerprint())) {
+                pendingFile.setValue(new PendingFile(fingerprint, now));
+                continue;
+            }
+
+            if (now - pendingFile.getValue().seenAt() < settleTime) {
+                continue;
+            }
+
+            iterator.remove();
+
+            try {
+                state.put(path, new WatchState.Entry(inboxes.get(path.getParent()), fingerprint, JobStatus.QUEUED, null));
+                updateProgress.accept("Queued: " + path + "\n");
+                enqueue(path);
+            } catch (final IOException e) {
+                updateProgress.accept("Unable to save the state: " + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Adds a file to the queue.
+     *
+     * @param path Path to the file.
+     */
+    private void enqueue(final Path path) {
+        if (queuedPaths.add(path)) {
+            queue.add(path);
+        }
+    }
+
+    /** Runs the queued jobs, one at a time, until the daemon is stopped. */
+    private void runJobs() {
+        try {
+            while (running) {
+                final var path = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (path == null) {
+                    continue;
+                }
+
+                final var entry = state.get(path);
+
+                if (entry == null || entry.status().isFinished()) {
+                    queuedPaths.remove(path);
+                    continue;
+                }
+
+                state.put(path, entry.withStatus(JobStatus.RUNNING, null));
+
+                final var outcome = entry.type() == InboxType.ENCODE ? encode(path) : decode(path);
+                if (!running) {
+                    // The job was cancelled by stop(), so it is left unfinished to be resumed by the next start().
+                    break;
+                }
+
+                state.put(path, entry.withStatus(outcome.status(), outcome.outputPath()));
+                queuedPaths.remove(path);
+            }
+        } catch (final InterruptedException ignored) {
+            // The daemon is stopping.
+        } catch (final IOException e) {
+            updateProgress.accept("Unable to save the state, so no more jobs will be run: " + e.getMessage() + "\n");
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Encodes a file, or folder, into a video.
+     *
+     * @param path Path to the file or folder.
+     * @return The job's outcome.
+     */
+    private Outcome encode(final Path path) {
+        final var job = new EncodeJob(path.getFileName().toString(), List.of(path));
+        final var scheduler = new EncodeScheduler(List.of(job), settings, Runtime.getRuntime().availableProcessors());
+        final var finished = new CountDownLatch(1);
+        scheduler.setUpdateProgress(updateProgress);
+        scheduler.setOnJobProgress(encodeJob -> updateProgress.accept("[" + encodeJob.getName() + "] " + encodeJob.getProgress().describe() + "\n"));
+        scheduler.setOnFinished(finished::countDown);
+
+        run(scheduler::start, scheduler::cancel, finished);
+        return new Outcome(job.getStatus(), job.getOutputPath());
+    }
+
+    /**
+     * Decodes a video into an archive.
+     *
+     * @param path Path to the video.
+     * @return The job's outcome.
+     */
+    private Outcome decode(final Path path) {
+        final var queue = new DecodeQueue(List.of(path), settings);
+        final var finished = new CountDownLatch(1);
+        queue.setUpdateProgress(updateProgress);
+        queue.setOnJobProgress(decodeJob -> updateProgress.accept("[" + decodeJob.getInputPath().getFileName() + "] " + decodeJob.getProgress().describe() + "\n"));
+        queue.setOnFinished(finished::countDown);
+
+        run(queue::start, queue::cancel, finished);
+
+        final var job = queue.getJobs().getFirst();
+        return new Outcome(job.getStatus(), job.getOutputPath());
+    }
+
+    /**
+     * Runs a job, and waits for it to finish. If the daemon is stopped, then the job is cancelled, and is still waited
+     * for so that it can clean up its temporary files.
+     *
+     * @param start Starts the job.
+     * @param cancel Cancels the job.
+     * @param finished Released once the job has finished.
+     */
+    private void run(final Runnable start, final Runnable cancel, final CountDownLatch finished) {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+
+            cancelCurrentJob = cancel;
+        }
+
+        start.run();
+
+        try {
+            finished.await();
+        } catch (final InterruptedException e) {
+            cancel.run();
+
+            try {
+                finished.await();
+            } catch (final InterruptedException ignored) {
+                // Give up on waiting, as the thread was interrupted twice.
+            }
+        } finally {
+            cancelCurrentJob = () -> {};
+        }
+    }
+
+    /**
+     * A file which has been seen, but has not yet settled.
+     *
+     * @param fingerprint Fingerprint of the file, when it was last seen to change.
+     * @param seenAt Time, in milliseconds since the epoch, at which the file was last seen to change.
+     */
+    private record PendingFile(Fingerprint fingerprint, long seenAt) {}
+
+    /**
+     * The outcome of a job.
+     *
+     * @param status Status of the job.
+     * @param outputPath Path of the job's output, or {@code null} if it did not complete.
+     */
+    private record Outcome(JobStatus status, Path outputPath) {}
+}
@@ -0,0 +1,191 @@
+package com.valkryst.Schillsaver.watch;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.valkryst.Schillsaver.io.FileIO;
+import com.valkryst.Schillsaver.job.JobStatus;
+import lombok.NonNull;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The persisted state of every file which a {@link WatchDaemon} has picked up from its inboxes.</p>
+ *
+ * <p>
+ *     The state is written to disk whenever it changes, so that a restarted daemon resumes its queue, and does not
+ *     process finished files again. It is saved with {@link FileIO#saveJsonToDisk}, which replaces the state file in
+ *     a single step, so a crash never leaves a partially written state file behind.
+ * </p>
+ *
+ * <p>
+ *     Only files which are still in an inbox are remembered, so the state's size is bounded by the inboxes' contents
+ *     rather than by how long the daemon has been running.
+ * </p>
+ */
+public class WatchState {
+    /** Path to the state file. */
+    private final Path filePath;
+
+    /** Entry of each file, by its absolute path, in the order they were picked up. */
+    private final Map<Path, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new {@code WatchState}, and loads the state file if it exists.
+     *
+     * @param filePath Path to the state file. If it does not end with {@code .json}, then {@code .json} is added to it,
+     *                 as it is when the file is saved.
+     *
+     * @throws IOException If an I/O exception occurs, or if the state file cannot be parsed.
+     */
+    public WatchState(final @NonNull Path filePath) throws IOException {
+        final var absoluteFilePath = filePath.toAbsolutePath();
+        if (FilenameUtils.getExtension(absoluteFilePath.getFileName().toString()).equals("json")) {
+            this.filePath = absoluteFilePath;
+        } else {
+            this.filePath = absoluteFilePath.resolveSibling(absoluteFilePath.getFileName() + ".json");
+        }
+
+        if (Files.exists(this.filePath)) {
+            load();
+        }
+    }
+
+    /**
+     * Retrieves the entry of a file.
+     *
+     * @param path Absolute path to the file.
+     * @return The entry, or {@code null} if the file has not been picked up.
+     */
+    public synchronized Entry get(final @NonNull Path path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Sets the entry of a file, and saves the state.
+     *
+     * @param path Absolute path to the file.
+     * @param entry The entry.
+     *
+     * @throws IOException If an I/O exception occurs while saving the state.
+     */
+    public synchronized void put(final @NonNull Path path, final @NonNull Entry entry) throws IOException {
+        entries.put(path, entry);
+        save();
+    }
+
+    /**
+     * Retrieves the paths of every file which has been picked up, but has not yet finished.
+     *
+     * @return The paths, in the order they were picked up.
+     */
+    public synchronized List<Path> getUnfinishedPaths() {
+        final var paths = new ArrayList<Path>();
+        entries.forEach((path, entry) -> {
+            if (!entry.status().isFinished()) {
+                paths.add(path);
+            }
+        });
+        return paths;
+    }
+
+    /**
+     * Removes the entries of finished files which no longer exist, and saves the state.
+     *
+     * @throws IOException If an I/O exception occurs while saving the state.
+     */
+    public synchronized void prune() throws IOException {
+        if (entries.entrySet().removeIf(entry -> entry.getValue().status().isFinished() && Files.notExists(entry.getKey()))) {
+            save();
+        }
+    }
+
+    /**
+     * Loads the state file.
+     *
+     * @throws IOException If an I/O exception occurs, or if the state file cannot be parsed.
+     */
+    private void load() throws IOException {
+        try {
+            final var json = new Gson().fromJson(Files.readString(filePath), JsonObject.class);
+            if (json == null || !json.has("entries")) {
+                return;
+            }
+
+            for (final var element : json.getAsJsonArray("entries")) {
+                final var object = element.getAsJsonObject();
+                final var outputPath = object.has("outputPath") ? Path.of(object.get("outputPath").getAsString()) : null;
+
+                entries.put(Path.of(object.get("path").getAsString()), new Entry(
+                    InboxType.valueOf(object.get("type").getAsString()),
+                    new Fingerprint(
+                        object.get("size").getAsLong(),
+                        object.get("lastModified").getAsLong(),
+                        object.get("fileCount").getAsLong()
+                    ),
+                    JobStatus.valueOf(object.get("status").getAsString()),
+                    outputPath
+                ));
+            }
+        } catch (final JsonParseException | IllegalStateException | IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Unable to parse the state file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Saves the state file.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private void save() throws IOException {
+        final var array = new JsonArray();
+        entries.forEach((path, entry) -> {
+            final var object = new JsonObject();
+            object.addProperty("path", path.toString());
+            object.addProperty("type", entry.type().name());
+            object.addProperty("size", entry.fingerprint().size());
+            object.addProperty("lastModified", entry.fingerprint().lastModified());
+            object.addProperty("fileCount", entry.fingerprint().fileCount());
+            object.addProperty("status", entry.status().name());
+
+            if (entry.outputPath() != null) {
+                object.addProperty("outputPath", entry.outputPath().toString());
+            }
+
+            array.add(object);
+        });
+
+        final var json = new JsonObject();
+        json.add("entries", array);
+        FileIO.saveJsonToDisk(filePath, json);
+    }
+
+    /**
+     * The state of a single file.
+     *
+     * @param type Type of the inbox which the file was placed in.
+     * @param fingerprint Fingerprint of the file, when it was picked up.
+     * @param status Status of the file's job.
+     * @param outputPath Path of the job's output, once it has completed.
+     */
+    public record Entry(@NonNull InboxType type, @NonNull Fingerprint fingerprint, @NonNull JobStatus status, Path outputPath) {
+        /**
+         * Creates a copy of this entry with a different status.
+         *
+         * @param status The status.
+         * @param outputPath Path of the job's output, once it has completed.
+         * @return The copy.
+         */
+        public Entry withStatus(final @NonNull JobStatus status, final Path outputPath) {
+            return new Entry(type, fingerprint, status, outputPath);
+        }
+    }
+}
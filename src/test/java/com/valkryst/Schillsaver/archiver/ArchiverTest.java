@@ -0,0 +1,151 @@
+package com.valkryst.Schillsaver.archiver;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.Settings;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ArchiverTest {
+    /** Entries expected in the archive of the test folder, mapped to their contents, which are empty for folders. */
+    private static final Map<String, String> EXPECTED_ENTRIES = new TreeMap<>(Map.of(
+        "folder/", "",
+        "folder/a.txt", "Alpha",
+        "folder/empty/", "",
+        "folder/sub/", "",
+        "folder/sub/b.txt", "Bravo"
+    ));
+
+    @TempDir private Path tempDir;
+
+    @Test
+    public void storeArchivesFolderContents() throws IOException {
+        assertEquals(EXPECTED_ENTRIES, readZip(archive(CompressionCodec.STORE, List.of(createFolder()))));
+    }
+
+    @Test
+    public void deflateArchivesFolderContents() throws IOException {
+        assertEquals(EXPECTED_ENTRIES, readZip(archive(CompressionCodec.DEFLATE, List.of(createFolder()))));
+    }
+
+    @Test
+    public void zstdArchivesFolderContents() throws IOException {
+        assertEquals(EXPECTED_ENTRIES, readTar(archive(CompressionCodec.ZSTD, List.of(createFolder()))));
+    }
+
+    @Test
+    public void overlappingPathsAreArchivedOnce() throws IOException {
+        final var folder = createFolder();
+        final var paths = List.of(folder, folder.resolve("a.txt"), folder.resolve("sub"));
+        assertEquals(EXPECTED_ENTRIES, readZip(archive(CompressionCodec.STORE, paths)));
+    }
+
+    @Test
+    public void overlappingPathsAreEstimatedOnce() throws IOException {
+        final var folder = createFolder();
+        final var paths = List.of(folder, folder.resolve("a.txt"), folder.resolve("sub"));
+        assertEquals("AlphaBravo".length(), createArchiver(CompressionCodec.STORE, paths).estimateArchiveSize());
+    }
+
+    /**
+     * Creates a folder containing files, a sub-folder, and an empty folder.
+     *
+     * @return Path to the folder.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Path createFolder() throws IOException {
+        final var folder = tempDir.resolve("folder");
+        Files.createDirectories(folder.resolve("sub"));
+        Files.createDirectories(folder.resolve("empty"));
+        Files.writeString(folder.resolve("a.txt"), "Alpha");
+        Files.writeString(folder.resolve("sub").resolve("b.txt"), "Bravo");
+        return folder;
+    }
+
+    /**
+     * Archives the specified paths.
+     *
+     * @param compressionCodec Codec to archive with.
+     * @param paths Paths to archive.
+     * @return The archive.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private byte[] archive(final CompressionCodec compressionCodec, final List<Path> paths) throws IOException {
+        final var outputStream = new ByteArrayOutputStream();
+        createArchiver(compressionCodec, paths).writeArchive(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates an archiver for the specified paths.
+     *
+     * @param compressionCodec Codec to archive with.
+     * @param paths Paths to archive.
+     * @return The archiver.
+     */
+    private Archiver createArchiver(final CompressionCodec compressionCodec, final List<Path> paths) {
+        final var defaults = Settings.defaults();
+        final var settings = new Settings(tempDir, tempDir, defaults.codec(), defaults.resolution(), defaults.framerate(), defaults.blockSize(), compressionCodec, ErrorCorrection.NONE, false, 1, 0);
+        return new Archiver(paths, settings);
+    }
+
+    /**
+     * Reads the entries of a zip archive.
+     *
+     * @param archive The archive.
+     * @return The names of the entries, mapped to their contents.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Map<String, String> readZip(final byte[] archive) throws IOException {
+        // Stored entries are followed by data descriptors, which only the central directory can be read past.
+        final var archivePath = tempDir.resolve("archive.zip");
+        Files.write(archivePath, archive);
+
+        final var entries = new TreeMap<String, String>();
+        try (final var zipFile = new ZipFile(archivePath.toFile())) {
+            for (final var entry : Collections.list(zipFile.entries())) {
+                try (final var inputStream = zipFile.getInputStream(entry)) {
+                    entries.put(entry.getName(), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the entries of a Zstandard compressed tar archive.
+     *
+     * @param archive The archive.
+     * @return The names of the entries, mapped to their contents.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private static Map<String, String> readTar(final byte[] archive) throws IOException {
+        final var entries = new TreeMap<String, String>();
+        try (final var tarInputStream = new TarArchiveInputStream(new ZstdInputStream(new ByteArrayInputStream(archive)))) {
+            for (var entry = tarInputStream.getNextEntry() ; entry != null ; entry = tarInputStream.getNextEntry()) {
+                entries.put(entry.getName(), new String(tarInputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,249 @@
+package com.valkryst.Schillsaver.decoder;
+
+import com.valkryst.Schillsaver.io.ErrorCorrectingOutputStream;
+import com.valkryst.Schillsaver.io.VideoHeader;
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ErrorCorrectorTest {
+    /** Number of bytes of data held by each frame, which is enough to hold the trailer. */
+    private static final int BYTES_PER_FRAME = 100;
+
+    /** Level of error correction used by the tests. */
+    private static final ErrorCorrection ERROR_CORRECTION = ErrorCorrection.LOW;
+
+    /** Number of bytes in the test payload, which fills one full group and part of a second. */
+    private static final int PAYLOAD_LENGTH = 30_000;
+
+    @TempDir private Path tempDir;
+
+    @Test
+    public void payloadWithoutErrorsIsUnchanged() throws IOException {
+        final var payload = createPayload();
+        final var result = correct(createHeader(payload.length, -1), encode(payload));
+        assertEquals(PAYLOAD_LENGTH, result.dataLength());
+        assertEquals(0, result.correctedBytes());
+    }
+
+    @Test
+    public void lengthIsReadFromTrailerWhenUnknown() throws IOException {
+        final var payload = createPayload();
+        final var trailer = createHeader(payload.length, VideoHeader.computeChecksum(writePayload(payload), payload.length));
+
+        final var frames = encode(payload);
+        frames.add(toFrame(trailer.toTrailer()));
+
+        final var result = correct(createHeader(-1, -1), frames);
+        assertEquals(PAYLOAD_LENGTH, result.dataLength());
+        assertEquals(trailer.checksum(), result.checksum());
+    }
+
+    @Test
+    public void randomErrorsUpToTheLimitAreCorrected() throws IOException {
+        final var payload = createPayload();
+        final var frames = encode(payload);
+
+        // Each frame holds one byte of each codeword, so damaging a byte of a frame damages a byte of one codeword.
+        final var random = new Random(2);
+        final var damagedFrames = random.ints(0, ErrorCorrection.CODEWORD_LENGTH).distinct().limit(ERROR_CORRECTION.paritySymbols / 2).toArray();
+        for (final var frameIndex : damagedFrames) {
+            for (int i = 0 ; i < BYTES_PER_FRAME / 4 ; i++) {
+                frames.get(frameIndex)[random.nextInt(BYTES_PER_FRAME)] ^= (byte) (1 + random.nextInt(255));
+            }
+        }
+
+        assertTrue(correct(createHeader(payload.length, -1), frames).correctedBytes() > 0);
+    }
+
+    @Test
+    public void burstOfErrorsUpToTheLimitIsCorrected() throws IOException {
+        final var payload = createPayload();
+        final var frames = encode(payload);
+
+        // Every byte of consecutive frames is damaged, which costs each codeword of the group as many bytes as can be
+        // corrected.
+        final var burstFrames = ERROR_CORRECTION.paritySymbols / 2;
+        for (int i = 100 ; i < 100 + burstFrames ; i++) {
+            final var frame = frames.get(i);
+            for (int j = 0 ; j < frame.length ; j++) {
+                frame[j] = (byte) ~frame[j];
+            }
+        }
+
+        assertEquals((long) BYTES_PER_FRAME * burstFrames, correct(createHeader(payload.length, -1), frames).correctedBytes());
+    }
+
+    @Test
+    public void lostFrameInFullGroupIsCorrected() throws IOException {
+        final var payload = createPayload();
+        final var frames = encode(payload);
+        Arrays.fill(frames.get(10), (byte) 0);
+
+        assertTrue(correct(createHeader(payload.length, -1), frames).correctedBytes() > 0);
+    }
+
+    @Test
+    public void checksumIsReadFromTrailerWhenLengthIsKnown() throws IOException {
+        final var payload = createPayload();
+        final var header = createHeader(payload.length, -1);
+        final var trailer = createHeader(payload.length, VideoHeader.computeChecksum(writePayload(payload), payload.length));
+
+        final var frames = encode(payload);
+        frames.add(toFrame(trailer.toTrailer()));
+
+        final var result = correct(header, frames);
+        assertEquals(trailer.checksum(), result.checksum());
+        assertEquals(0, result.correctedBytes());
+    }
+
+    @Test
+    public void uncorrectableCorruptionFailsTheDecode() throws IOException {
+        final var payload = createPayload();
+        final var frames = encode(payload);
+
+        // Each corrupted frame costs each codeword of the first group one byte, which is one more than can be corrected.
+        final var random = new Random(1);
+        for (int i = 0 ; i <= ERROR_CORRECTION.paritySymbols / 2 ; i++) {
+            random.nextBytes(frames.get(i * 2));
+        }
+
+        final var header = createHeader(payload.length, -1);
+        assertThrows(IOException.class, () -> correct(header, frames));
+    }
+
+    @Test
+    public void lostFrameInShortenedGroupIsCorrected() throws IOException {
+        final var payload = createPayload();
+        final var frames = encode(payload);
+
+        // The second group is the final one, so its codewords are shortened.
+        Arrays.fill(frames.get(ErrorCorrection.CODEWORD_LENGTH + 10), (byte) 0);
+
+        final var result = correct(createHeader(payload.length, -1), frames);
+        assertEquals(PAYLOAD_LENGTH, result.dataLength());
+        assertTrue(result.correctedBytes() > 0);
+    }
+
+    /**
+     * Creates a payload of random bytes.
+     *
+     * @return The payload.
+     */
+    private static byte[] createPayload() {
+        final var payload = new byte[PAYLOAD_LENGTH];
+        new Random(0).nextBytes(payload);
+        return payload;
+    }
+
+    /**
+     * Writes a payload to a file.
+     *
+     * @param payload The payload.
+     * @return Path to the file.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private Path writePayload(final byte[] payload) throws IOException {
+        return Files.write(tempDir.resolve("payload"), payload);
+    }
+
+    /**
+     * Creates a header for the test payload.
+     *
+     * @param payloadLength Number of bytes in the payload.
+     * @param checksum CRC32 of the payload, or {@code -1} if unknown.
+     * @return The header.
+     */
+    private static VideoHeader createHeader(final long payloadLength, final long checksum) {
+        return new VideoHeader(CompressionCodec.STORE, ERROR_CORRECTION, BlockSize.S8, FrameResolution.P720, payloadLength, checksum);
+    }
+
+    /**
+     * Adds error correction to a payload, and splits it into the data of its frames.
+     *
+     * @param payload The payload.
+     * @return The data of each frame.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private static List<byte[]> encode(final byte[] payload) throws IOException {
+        final var byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final var outputStream = new ErrorCorrectingOutputStream(byteArrayOutputStream, ERROR_CORRECTION, BYTES_PER_FRAME)) {
+            outputStream.write(payload);
+        }
+
+        final var encoded = byteArrayOutputStream.toByteArray();
+        final var frames = new ArrayList<byte[]>();
+        for (int i = 0 ; i < encoded.length ; i += BYTES_PER_FRAME) {
+            final var frame = new byte[BYTES_PER_FRAME];
+            System.arraycopy(encoded, i, frame, 0, Math.min(BYTES_PER_FRAME, encoded.length - i));
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    /**
+     * Pads data to the length of a frame.
+     *
+     * @param data The data.
+     * @return The data of the frame.
+     */
+    private static byte[] toFrame(final byte[] data) {
+        final var frame = new byte[BYTES_PER_FRAME];
+        System.arraycopy(data, 0, frame, 0, data.length);
+        return frame;
+    }
+
+    /**
+     * Passes frames to an {@link ErrorCorrector}, in reverse order, and checks the corrected payload.
+     *
+     * @param header Header of the video.
+     * @param frames The data of each frame, starting with the first frame of the payload.
+     * @return The results.
+     *
+     * @throws IOException If an I/O exception occurs, or if the payload cannot be corrected.
+     */
+    private ErrorCorrector.Result correct(final VideoHeader header, final List<byte[]> frames) throws IOException {
+        final var outputPath = tempDir.resolve("corrected");
+        try (final var outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var errorCorrector = new ErrorCorrector(ERROR_CORRECTION, BYTES_PER_FRAME, header, outputChannel);
+            for (int i = frames.size() - 1 ; i >= 0 ; i--) {
+                errorCorrector.accept(i, frames.get(i));
+            }
+
+            final var result = errorCorrector.finish();
+            assertEquals(createPayloadChecksum(), VideoHeader.computeChecksum(outputPath, result.dataLength()));
+            return result;
+        }
+    }
+
+    /**
+     * Computes the CRC32 of the test payload.
+     *
+     * @return The CRC32.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private long createPayloadChecksum() throws IOException {
+        return VideoHeader.computeChecksum(writePayload(createPayload()), PAYLOAD_LENGTH);
+    }
+}
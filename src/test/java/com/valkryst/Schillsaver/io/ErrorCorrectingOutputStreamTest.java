@@ -0,0 +1,90 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ErrorCorrectingOutputStreamTest {
+    /** Number of bytes of data held by each frame. */
+    private static final int BYTES_PER_FRAME = 300;
+
+    /** Level of error correction used by the tests. */
+    private static final ErrorCorrection ERROR_CORRECTION = ErrorCorrection.LOW;
+
+    @Test
+    public void encodedLengthMatchesEstimate() throws IOException {
+        final long groupDataLength = (long) ERROR_CORRECTION.getDataSymbols() * BYTES_PER_FRAME;
+        for (final var length : new long[] { 0, 1, 5_000, groupDataLength, groupDataLength + 1, (groupDataLength * 2) + 7 }) {
+            final var encoded = encode(createData((int) length), ERROR_CORRECTION);
+            assertEquals(ERROR_CORRECTION.getEncodedLength(length, BYTES_PER_FRAME), encoded.length);
+        }
+    }
+
+    @Test
+    public void dataIsUnchangedWithoutErrorCorrection() throws IOException {
+        final var data = createData(5_000);
+        assertArrayEquals(data, encode(data, ErrorCorrection.NONE));
+    }
+
+    @Test
+    public void eachFrameOfShortenedGroupHoldsOneByteOfEachCodeword() throws IOException {
+        final var data = createData(5_000);
+        final var encoded = encode(data, ERROR_CORRECTION);
+
+        // The codewords are shortened to the fewest data bytes which hold the data, so each row is a whole frame.
+        final var groupDataSymbols = Math.ceilDiv(data.length, BYTES_PER_FRAME);
+        final var rows = groupDataSymbols + ERROR_CORRECTION.paritySymbols;
+        assertEquals(rows * BYTES_PER_FRAME, encoded.length);
+
+        final var reedSolomon = new ReedSolomon(ERROR_CORRECTION.paritySymbols);
+        final var shortening = ERROR_CORRECTION.getDataSymbols() - groupDataSymbols;
+        final var decoded = new byte[groupDataSymbols * BYTES_PER_FRAME];
+        for (int i = 0 ; i < BYTES_PER_FRAME ; i++) {
+            final var codeword = new byte[ErrorCorrection.CODEWORD_LENGTH];
+            for (int j = 0 ; j < rows ; j++) {
+                codeword[shortening + j] = encoded[(j * BYTES_PER_FRAME) + i];
+            }
+
+            assertEquals(0, reedSolomon.decode(codeword));
+            System.arraycopy(codeword, shortening, decoded, i * groupDataSymbols, groupDataSymbols);
+        }
+
+        assertArrayEquals(data, Arrays.copyOf(decoded, data.length));
+    }
+
+    /**
+     * Creates data of random bytes.
+     *
+     * @param length Number of bytes.
+     * @return The data.
+     */
+    private static byte[] createData(final int length) {
+        final var data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Adds error correction to data.
+     *
+     * @param data The data.
+     * @param errorCorrection The level of error correction.
+     * @return The encoded data.
+     *
+     * @throws IOException If an I/O exception occurs.
+     */
+    private static byte[] encode(final byte[] data, final ErrorCorrection errorCorrection) throws IOException {
+        final var byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final var outputStream = new ErrorCorrectingOutputStream(byteArrayOutputStream, errorCorrection, BYTES_PER_FRAME)) {
+            outputStream.write(data);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+}
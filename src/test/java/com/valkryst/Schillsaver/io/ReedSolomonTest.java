@@ -0,0 +1,89 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReedSolomonTest {
+    /** Number of parity bytes in each codeword. */
+    private static final int PARITY_SYMBOLS = ErrorCorrection.MEDIUM.paritySymbols;
+
+    /** Code under test. */
+    private final ReedSolomon reedSolomon = new ReedSolomon(PARITY_SYMBOLS);
+
+    @Test
+    public void codewordWithoutErrorsIsUnchanged() {
+        final var codeword = createCodeword(new Random(0));
+        final var original = codeword.clone();
+
+        assertEquals(0, reedSolomon.decode(codeword));
+        assertArrayEquals(original, codeword);
+    }
+
+    @Test
+    public void randomErrorsUpToTheLimitAreCorrected() {
+        final var random = new Random(1);
+        for (int errors = 1 ; errors <= PARITY_SYMBOLS / 2 ; errors++) {
+            final var codeword = createCodeword(random);
+            final var original = codeword.clone();
+
+            // Each error is at a distinct position, and changes its byte.
+            final var positions = random.ints(0, codeword.length).distinct().limit(errors).toArray();
+            for (final var position : positions) {
+                codeword[position] ^= (byte) (1 + random.nextInt(255));
+            }
+
+            assertEquals(errors, reedSolomon.decode(codeword));
+            assertArrayEquals(original, codeword);
+        }
+    }
+
+    @Test
+    public void burstOfErrorsUpToTheLimitIsCorrected() {
+        final var random = new Random(2);
+        final var codeword = createCodeword(random);
+        final var original = codeword.clone();
+
+        // The burst spans the end of the data and the start of the parity.
+        final var start = ErrorCorrection.MEDIUM.getDataSymbols() - (PARITY_SYMBOLS / 4);
+        for (int i = start ; i < start + (PARITY_SYMBOLS / 2) ; i++) {
+            codeword[i] = (byte) ~codeword[i];
+        }
+
+        assertEquals(PARITY_SYMBOLS / 2, reedSolomon.decode(codeword));
+        assertArrayEquals(original, codeword);
+    }
+
+    @Test
+    public void codewordWithTooManyErrorsIsReportedAndUnchanged() {
+        final var random = new Random(3);
+        final var codeword = createCodeword(random);
+        for (int i = 0 ; i < PARITY_SYMBOLS ; i++) {
+            codeword[i * 3] = (byte) ~codeword[i * 3];
+        }
+        final var damaged = codeword.clone();
+
+        assertEquals(-1, reedSolomon.decode(codeword));
+        assertArrayEquals(damaged, codeword);
+    }
+
+    /**
+     * Creates a codeword of random data, with its parity.
+     *
+     * @param random Source of the data.
+     * @return The codeword.
+     */
+    private byte[] createCodeword(final Random random) {
+        final var codeword = new byte[ErrorCorrection.CODEWORD_LENGTH];
+        final var data = new byte[ErrorCorrection.MEDIUM.getDataSymbols()];
+        random.nextBytes(data);
+        System.arraycopy(data, 0, codeword, 0, data.length);
+
+        reedSolomon.encode(codeword);
+        return codeword;
+    }
+}
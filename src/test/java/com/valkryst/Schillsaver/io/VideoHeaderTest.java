@@ -0,0 +1,29 @@
+package com.valkryst.Schillsaver.io;
+
+import com.valkryst.Schillsaver.setting.BlockSize;
+import com.valkryst.Schillsaver.setting.CompressionCodec;
+import com.valkryst.Schillsaver.setting.ErrorCorrection;
+import com.valkryst.Schillsaver.setting.FrameResolution;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VideoHeaderTest {
+    @Test
+    public void trailerRoundTripsEveryCodec() {
+        for (final var codec : CompressionCodec.values()) {
+            final var header = new VideoHeader(codec, ErrorCorrection.MEDIUM, BlockSize.S8, FrameResolution.P720, 12_345, 67_890);
+            assertEquals(Optional.of(header), VideoHeader.readTrailer(header.toTrailer()));
+        }
+    }
+
+    @Test
+    public void codecIdsAreStable() {
+        // These ids are written into the header of every encoded video, so changing them breaks existing videos.
+        assertEquals(0, CompressionCodec.STORE.id);
+        assertEquals(1, CompressionCodec.DEFLATE.id);
+        assertEquals(2, CompressionCodec.ZSTD.id);
+    }
+}